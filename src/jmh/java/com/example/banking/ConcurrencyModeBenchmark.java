@@ -0,0 +1,99 @@
+package com.example.banking;
+
+import com.example.banking.domain.Account;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResult;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.service.TransferService;
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the transfer concurrency modes under high and low contention against a PostgreSQL container.
+ * <p>
+ * Lanes are disabled so that, as with several application instances, concurrent transfers of the same
+ * account actually meet in the database. With 4 accounts almost every optimistic attempt conflicts,
+ * with 4096 almost none do. The {@code banking.transfer.optimistic} counters tell how often transfers
+ * retried or fell back to row locks.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ConcurrencyModeBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC", "ADAPTIVE"})
+    private String mode;
+
+    @Param({"4", "4096"})
+    private int accounts;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+
+    private final List<Account> usdAccounts = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("banking")
+                .withUsername("banking")
+                .withPassword("banking");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "exchange-rate.api.url=http://localhost:1",
+                        "exchange-rate.api.key=benchmark",
+                        "banking.transfer.lanes.enabled=false",
+                        "banking.transfer.concurrency.mode=" + mode,
+                        "logging.level.root=WARN"
+                )
+                .run();
+        transferService = context.getBean(TransferService.class);
+
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        for (int i = 0; i < accounts; i++) {
+            usdAccounts.add(accountRepository.save(Account.builder()
+                    .clientId("bench-" + i)
+                    .currency(CurrencyCode.of("USD"))
+                    .balance(INITIAL_BALANCE)
+                    .build()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public TransferResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        return transferService.transferFunds(new TransferRequest(
+                usdAccounts.get(from).getId(), usdAccounts.get(to).getId(), AMOUNT, CurrencyCode.of("USD")));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.banking;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.JournalJdbcRepository;
+import com.example.banking.util.CurrencyCode;
+import com.example.banking.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares journal insert throughput with random and time-ordered entry ids on a large journal.
+ * <p>
+ * The journal is preloaded with ids of the same kind before measuring, so random ids hit an index
+ * that no longer fits in shared buffers, as in production. The default size keeps a run manageable;
+ * the figures that matter come from {@code -p preloadedRows=100000000}, which needs a few tens of GB of
+ * container disk and takes a while to load. Entries are written with the JDBC batches of the
+ * transfer write path, rewritten into multi-row INSERTs by the driver.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 30)
+public class JournalInsertBenchmark {
+
+    private static final int PRELOAD_CHUNK = 1_000_000;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    private String ids;
+
+    @Param({"10000000"})
+    private long preloadedRows;
+
+    @Param({"2", "500"})
+    private int entriesPerTransaction;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private JournalJdbcRepository journalJdbcRepository;
+    private TransactionTemplate transactionTemplate;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("banking")
+                .withUsername("banking")
+                .withPassword("banking");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "exchange-rate.api.url=http://localhost:1",
+                        "exchange-rate.api.key=benchmark",
+                        "banking.journal-chain.verifier-enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        journalJdbcRepository = context.getBean(JournalJdbcRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        account = context.getBean(AccountRepository.class).save(Account.builder()
+                .clientId("bench")
+                .currency(CurrencyCode.of("USD"))
+                .balance(BigDecimal.ZERO)
+                .build());
+
+        preload(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public int insertEntries() {
+        List<AccountTransaction> entries = new ArrayList<>(entriesPerTransaction);
+        Instant now = Instant.now();
+        for (int i = 0; i < entriesPerTransaction; i++) {
+            entries.add(AccountTransaction.builder()
+                    .id(nextId())
+                    .account(account)
+                    .amount(AMOUNT)
+                    .currency(CurrencyCode.of("USD"))
+                    .type(AccountTransaction.TransactionType.TRANSFER_IN)
+                    .createdAt(now)
+                    .correlationId(UUID.randomUUID())
+                    .build());
+        }
+        transactionTemplate.executeWithoutResult(status -> journalJdbcRepository.insertAll(entries, 500));
+        return entries.size();
+    }
+
+    private UUID nextId() {
+        return "RANDOM".equals(ids) ? UUID.randomUUID() : UuidV7.next();
+    }
+
+    private void preload(JdbcTemplate jdbcTemplate) {
+        // Time-ordered ids are built like UuidV7 does, one millisecond apart and all in the past
+        String id = "RANDOM".equals(ids) ? "gen_random_uuid()" : """
+                encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid())
+                    placing substring(int8send(CAST(? AS BIGINT) + g) FROM 3) FROM 1 FOR 6), 52, 1), 53, 1), 'hex')::uuid""";
+        String sql = """
+                INSERT INTO account_transaction (id, account_id, amount, currency, type, created_at, correlation_id)
+                SELECT %s, ?, 1.00, 'USD', 'TRANSFER_IN', now(), gen_random_uuid()
+                FROM generate_series(CAST(? AS BIGINT), CAST(? AS BIGINT)) AS g
+                """.formatted(id);
+        long firstMillis = System.currentTimeMillis() - preloadedRows;
+        for (long from = 0; from < preloadedRows; from += PRELOAD_CHUNK) {
+            long to = Math.min(from + PRELOAD_CHUNK, preloadedRows) - 1;
+            if ("RANDOM".equals(ids)) {
+                jdbcTemplate.update(sql, account.getId(), from, to);
+            } else {
+                jdbcTemplate.update(sql, firstMillis, account.getId(), from, to);
+            }
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE account_transaction");
+    }
+}
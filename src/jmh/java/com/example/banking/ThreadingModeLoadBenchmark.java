@@ -0,0 +1,134 @@
+package com.example.banking;
+
+import com.example.banking.domain.Account;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput and latency percentiles of the HTTP API with platform and virtual request threads.
+ * <p>
+ * Many more client threads than Tomcat's default 200 workers hit POST /transfers and
+ * GET /accounts/{id}/transactions. In virtual mode the connection limiter of the
+ * {@code virtual-threads} profile bounds database access instead of the worker pool.
+ * Compare the p0.99 of the SampleTime results of both modes. Admission control and the background jobs are
+ * disabled, and any response other than a success fails the run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(512)
+@Warmup(iterations = 2, time = 15)
+@Measurement(iterations = 3, time = 20)
+public class ThreadingModeLoadBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"platform", "virtual"})
+    private String threadingMode;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private final List<UUID> accountIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("banking")
+                .withUsername("banking")
+                .withPassword("banking");
+        postgres.start();
+
+        SpringApplicationBuilder application = new SpringApplicationBuilder(BankingApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "exchange-rate.api.url=http://localhost:1",
+                        "exchange-rate.api.key=benchmark",
+                        "exchange-rate.snapshot.enabled=false",
+                        "exchange-rate.snapshot.shared.enabled=false",
+                        // Measures the threading mode alone: no adaptive 429s, no background jobs competing for connections
+                        "banking.transfer.admission.enabled=false",
+                        "banking.outbox.relay-enabled=false",
+                        "banking.balance-checkpoints.enabled=false",
+                        "banking.journal-chain.verifier-enabled=false",
+                        "logging.level.root=WARN"
+                );
+        if ("virtual".equals(threadingMode)) {
+            application.profiles("virtual-threads");
+        }
+        context = application.run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(accountRepository.save(Account.builder()
+                    .clientId("load-" + i)
+                    .currency(CurrencyCode.of("USD"))
+                    .balance(new BigDecimal("1000000000.00"))
+                    .build()).getId());
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        httpClient.close();
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public int transfer() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        String body = """
+                {"fromAccountId":"%s","toAccountId":"%s","amount":"1.00","currency":"USD"}"""
+                .formatted(accountIds.get(from), accountIds.get(to));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/transfers"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    @Benchmark
+    public int history() throws IOException, InterruptedException {
+        UUID accountId = accountIds.get(ThreadLocalRandom.current().nextInt(ACCOUNTS));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/" + accountId + "/transactions?limit=20"))
+                .GET()
+                .build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        // Rejected requests are cheap and would inflate the throughput, so anything but a success fails the run
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.method() + " " + request.uri().getPath()
+                    + " failed with " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
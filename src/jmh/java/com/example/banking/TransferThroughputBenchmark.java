@@ -0,0 +1,152 @@
+package com.example.banking;
+
+import com.example.banking.domain.Account;
+import com.example.banking.dto.TransactionPage;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResult;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.ExchangeRateSnapshotRepository;
+import com.example.banking.service.ExchangeRateSnapshotCache;
+import com.example.banking.service.TransactionService;
+import com.example.banking.service.TransferService;
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end transfer and history throughput of the application against a PostgreSQL container.
+ * <p>
+ * The number of accounts controls contention: with few accounts most transfers wait on the row
+ * locks of others. Exchange rates are served from the snapshot, which is seeded through the stored
+ * rate table before each iteration, so no external call is made. RabbitMQ is not needed: the outbox
+ * relay, the snapshot refresh and the background jobs are switched off.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class TransferThroughputBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final String RATES = "{\"USD\": 1, \"EUR\": 0.92}";
+
+    @Param({"16", "1024"})
+    private int accountsPerCurrency;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private TransactionService transactionService;
+    private ExchangeRateSnapshotRepository snapshotRepository;
+    private ExchangeRateSnapshotCache snapshotCache;
+
+    private final List<Account> usdAccounts = new ArrayList<>();
+    private final List<Account> eurAccounts = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("banking")
+                .withUsername("banking")
+                .withPassword("banking");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(BankingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "exchange-rate.api.url=http://localhost:1",
+                        "exchange-rate.api.key=benchmark",
+                        "exchange-rate.snapshot.refresh-interval=1h",
+                        "exchange-rate.snapshot.stale-after=1h",
+                        "exchange-rate.snapshot.max-staleness=1h",
+                        "exchange-rate.snapshot.shared.enabled=false",
+                        "banking.outbox.relay-enabled=false",
+                        "banking.balance-checkpoints.enabled=false",
+                        "banking.journal-chain.verifier-enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        transferService = context.getBean(TransferService.class);
+        transactionService = context.getBean(TransactionService.class);
+        snapshotRepository = context.getBean(ExchangeRateSnapshotRepository.class);
+        snapshotCache = context.getBean(ExchangeRateSnapshotCache.class);
+
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        for (int i = 0; i < accountsPerCurrency; i++) {
+            usdAccounts.add(accountRepository.save(account("bench-" + i, "USD")));
+            eurAccounts.add(accountRepository.save(account("bench-" + i, "EUR")));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void seedExchangeRates() {
+        // Stored as if fetched by another node, then read as when that node announces it
+        Instant now = Instant.now();
+        snapshotRepository.claimRefresh("USD", "benchmark", now, now);
+        if (!snapshotRepository.save("USD", RATES, now)) {
+            throw new IllegalStateException("No stored rate table to seed for USD");
+        }
+        snapshotCache.onSnapshotStored("USD");
+        if (snapshotCache.lookup("EUR", "USD").isEmpty()) {
+            throw new IllegalStateException("Exchange rate snapshot was not seeded");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public TransferResult sameCurrencyTransfer() {
+        int[] pair = randomPair();
+        return transferService.transferFunds(new TransferRequest(
+                usdAccounts.get(pair[0]).getId(), usdAccounts.get(pair[1]).getId(), AMOUNT, CurrencyCode.of("USD")));
+    }
+
+    @Benchmark
+    public TransferResult crossCurrencyTransfer() {
+        int[] pair = randomPair();
+        return transferService.transferFunds(new TransferRequest(
+                usdAccounts.get(pair[0]).getId(), eurAccounts.get(pair[1]).getId(), AMOUNT, CurrencyCode.of("EUR")));
+    }
+
+    @Benchmark
+    public TransactionPage historyPage() {
+        Account account = usdAccounts.get(ThreadLocalRandom.current().nextInt(accountsPerCurrency));
+        return transactionService.getAccountTransactions(account.getId(), PageRequest.ofSize(20));
+    }
+
+    private int[] randomPair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accountsPerCurrency);
+        int to = (from + 1 + random.nextInt(accountsPerCurrency - 1)) % accountsPerCurrency;
+        return new int[]{from, to};
+    }
+
+    private static Account account(String clientId, String currency) {
+        return Account.builder()
+                .clientId(clientId)
+                .currency(CurrencyCode.of(currency))
+                .balance(INITIAL_BALANCE)
+                .build();
+    }
+}
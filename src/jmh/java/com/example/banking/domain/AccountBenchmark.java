@@ -0,0 +1,49 @@
+package com.example.banking.domain;
+
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the BigDecimal arithmetic of {@link Account#debit} and {@link Account#credit}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AccountBenchmark {
+
+    private static final BigDecimal START_BALANCE = new BigDecimal("1000000000.00");
+
+    @Param({"10.00", "1234.56"})
+    private String amount;
+
+    private BigDecimal transferAmount;
+    private Account account;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        transferAmount = new BigDecimal(amount);
+        account = Account.builder()
+                .id(UUID.randomUUID())
+                .clientId("bench-client")
+                .currency(CurrencyCode.of("USD"))
+                .balance(START_BALANCE)
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal debitThenCredit() {
+        account.debit(transferAmount);
+        account.credit(transferAmount);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal credit() {
+        account.credit(transferAmount);
+        return account.getBalance();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.banking.dto;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping of transfer results and journal entries to response DTOs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DtoMappingBenchmark {
+
+    private TransferResult transferResult;
+    private AccountTransaction transaction;
+
+    @Setup
+    public void setUp() {
+        transferResult = new TransferResult(
+                UUID.randomUUID(),
+                new BigDecimal("108.70"),
+                "USD",
+                new BigDecimal("100.00"),
+                "EUR",
+                new BigDecimal("1.087"),
+                new BigDecimal("891.30"),
+                new BigDecimal("1100.00")
+        );
+        transaction = AccountTransaction.builder()
+                .id(UUID.randomUUID())
+                .account(Account.builder().id(UUID.randomUUID()).currency(CurrencyCode.of("USD")).build())
+                .amount(new BigDecimal("-108.70"))
+                .currency(CurrencyCode.of("USD"))
+                .type(AccountTransaction.TransactionType.TRANSFER_OUT)
+                .createdAt(Instant.now())
+                .description("Transfer to " + UUID.randomUUID() + " (Rate: 1.087 USD/EUR)")
+                .correlationId(transferResult.correlationId())
+                .build();
+    }
+
+    @Benchmark
+    public TransferResponse transferResponse() {
+        return TransferResponse.fromTransferResult(transferResult);
+    }
+
+    @Benchmark
+    public TransactionResponse transactionResponse() {
+        return TransactionResponse.fromDomain(transaction);
+    }
+}
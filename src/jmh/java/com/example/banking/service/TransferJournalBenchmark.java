@@ -0,0 +1,61 @@
+package com.example.banking.service;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.util.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the journal entries of a transfer are built, including their descriptions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class TransferJournalBenchmark {
+
+    /**
+     * Exchange rate of the transfer, 1 meaning same currency.
+     */
+    @Param({"1", "0.92"})
+    private String rate;
+
+    private BigDecimal exchangeRate;
+    private Account sender;
+    private Account receiver;
+    private UUID correlationId;
+
+    @Setup
+    public void setUp() {
+        exchangeRate = new BigDecimal(rate);
+        sender = account("USD");
+        receiver = account(exchangeRate.equals(BigDecimal.ONE) ? "USD" : "EUR");
+        correlationId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String describe() {
+        return TransferJournal.describe(sender, receiver, exchangeRate);
+    }
+
+    @Benchmark
+    public List<AccountTransaction> entries() {
+        return TransferJournal.entries(
+                sender, receiver, new BigDecimal("100.00"), new BigDecimal("92.00"), exchangeRate,
+                correlationId, Instant.now());
+    }
+
+    private static Account account(String currency) {
+        return Account.builder()
+                .id(UUID.randomUUID())
+                .clientId("bench-client")
+                .currency(CurrencyCode.of(currency))
+                .balance(new BigDecimal("1000.00"))
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.banking.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the currency checks of a transfer: string equality of codes read from different rows
+ * against identity of {@link CurrencyCode} instances, including the lookup of the request's code.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CurrencyCodeBenchmark {
+
+    // Distinct instances, as when each code is read from its own row or request
+    private final String senderCode = new String("USD");
+    private final String receiverCode = new String("EUR");
+    private final String requestCode = new String("EUR");
+
+    private final CurrencyCode sender = CurrencyCode.of(senderCode);
+    private final CurrencyCode receiver = CurrencyCode.of(receiverCode);
+
+    @Benchmark
+    public boolean stringEquals() {
+        return receiverCode.equals(requestCode) && !senderCode.equals(requestCode);
+    }
+
+    @Benchmark
+    public boolean identity() {
+        CurrencyCode currency = CurrencyCode.of(requestCode);
+        return receiver == currency && sender != currency;
+    }
+}
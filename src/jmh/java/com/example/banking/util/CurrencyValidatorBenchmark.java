@@ -0,0 +1,37 @@
+package com.example.banking.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CurrencyValidator#isValid} for accepted and rejected codes against the previous
+ * {@link Currency#getInstance} check, which rejects codes by throwing. Run with {@code -prof gc} to
+ * see that the registry lookup allocates nothing in either case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CurrencyValidatorBenchmark {
+
+    @Param({"USD", "XYZ"})
+    private String currency;
+
+    private final CurrencyValidator validator = new CurrencyValidator();
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(currency, null);
+    }
+
+    @Benchmark
+    public boolean currencyGetInstance() {
+        try {
+            Currency.getInstance(currency);
+            return true;
+        } catch (IllegalArgumentException _) {
+            return false;
+        }
+    }
+}
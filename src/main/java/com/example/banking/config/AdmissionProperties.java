@@ -0,0 +1,28 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the admission limiter in front of single transfers.
+ *
+ * @param enabled          whether excess transfers are rejected
+ * @param initialLimit     number of transfers admitted at once before any latency was observed
+ * @param minLimit         lowest the limit may shrink to
+ * @param maxLimit         highest the limit may grow to
+ * @param latencyThreshold latency above which a transfer counts as a sign of overload
+ * @param backoffRatio     factor applied to the limit on overload, at most once per latency threshold
+ * @param retryAfter       delay suggested to rejected clients
+ */
+@ConfigurationProperties(prefix = "banking.transfer.admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("500") int maxLimit,
+        @DefaultValue("200ms") Duration latencyThreshold,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("1s") Duration retryAfter
+) {}
@@ -0,0 +1,21 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the account balance checkpoints.
+ *
+ * @param enabled     whether this instance writes checkpoints
+ * @param settleDelay how far behind now checkpoints are taken, longer than any transfer transaction,
+ *                    so that no journal entry dated before a checkpoint commits after it
+ * @param batchSize   number of accounts checkpointed per statement
+ */
+@ConfigurationProperties(prefix = "banking.balance-checkpoints")
+public record BalanceCheckpointProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1m") Duration settleDelay,
+        @DefaultValue("1000") int batchSize
+) {}
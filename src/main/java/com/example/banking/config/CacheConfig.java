@@ -0,0 +1,41 @@
+package com.example.banking.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The type Cache config.
+ * <p>
+ * Caches use the {@code spring.cache.caffeine.spec} defaults, except for client accounts which are
+ * evicted on write and configured by {@link ClientAccountsCacheProperties}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Name of the cache of client accounts, keyed by client id.
+     */
+    public static final String CLIENT_ACCOUNTS = "clientAccounts";
+
+    /**
+     * Client accounts cache customizer.
+     *
+     * @param properties the properties
+     * @return the cache manager customizer
+     */
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> clientAccountsCacheCustomizer(
+            ClientAccountsCacheProperties properties
+    ) {
+        return cacheManager -> cacheManager.registerCustomCache(CLIENT_ACCOUNTS, Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build());
+    }
+}
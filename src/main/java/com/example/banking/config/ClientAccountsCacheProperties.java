@@ -0,0 +1,19 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the cache of client accounts served by GET /clients/{clientId}/accounts.
+ *
+ * @param maximumSize     maximum number of clients kept in memory
+ * @param expireAfterWrite backstop for changes made outside the application, entries are
+ *                         otherwise evicted when a balance change commits
+ */
+@ConfigurationProperties(prefix = "banking.client-accounts.cache")
+public record ClientAccountsCacheProperties(
+        @DefaultValue("10000") int maximumSize,
+        @DefaultValue("10m") Duration expireAfterWrite
+) {}
@@ -0,0 +1,50 @@
+package com.example.banking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * The type Exchange rate client config.
+ * <p>
+ * The FX API is called through the JDK {@link HttpClient}, which blocks virtual threads without
+ * pinning their carrier. It runs on virtual threads when they are enabled for requests.
+ */
+@Configuration
+public class ExchangeRateClientConfig {
+
+    /**
+     * Exchange rate rest template.
+     *
+     * @param builder        the builder
+     * @param environment    the environment
+     * @param connectTimeout the connect timeout
+     * @param readTimeout    the read timeout
+     * @return the rest template
+     */
+    @Bean
+    RestTemplate exchangeRateRestTemplate(
+            RestTemplateBuilder builder,
+            Environment environment,
+            @Value("${exchange-rate.api.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${exchange-rate.api.read-timeout:3s}") Duration readTimeout
+    ) {
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            httpClient.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient.build());
+        requestFactory.setReadTimeout(readTimeout);
+        return builder.requestFactory(() -> requestFactory).build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the exchange rate snapshot refreshed in the background.
+ *
+ * @param enabled         whether rates are served from the snapshot before calling the API per pair
+ * @param baseCurrency    base currency of the fetched rate table, cross rates are derived from it
+ * @param refreshInterval delay between two scheduled refreshes
+ * @param staleAfter      age after which a lookup also triggers a refresh, still serving the snapshot
+ * @param maxStaleness    age after which the snapshot is no longer used at all
+ * @param shared          the settings of the snapshot shared between nodes
+ */
+@ConfigurationProperties(prefix = "exchange-rate.snapshot")
+public record ExchangeRateSnapshotProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("USD") String baseCurrency,
+        @DefaultValue("60s") Duration refreshInterval,
+        @DefaultValue("2m") Duration staleAfter,
+        @DefaultValue("15m") Duration maxStaleness,
+        @DefaultValue Shared shared
+) {
+
+    /**
+     * Settings of the snapshot shared between nodes through the database.
+     *
+     * @param enabled       whether only the node holding the refresh lease calls the API, the others
+     *                      reading the table it stored
+     * @param leaseDuration how long a node that stopped refreshing keeps the others from taking over
+     * @param exchange      the fanout exchange announcing a newly stored table to every node
+     */
+    public record Shared(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("5m") Duration leaseDuration,
+            @DefaultValue("banking.fx-rates") String exchange
+    ) {}
+}
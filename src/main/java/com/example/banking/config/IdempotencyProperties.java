@@ -0,0 +1,18 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the Idempotency-Key support of POST /transfers.
+ *
+ * @param cacheSize number of recent responses kept in memory
+ * @param retention how long a key is remembered
+ */
+@ConfigurationProperties(prefix = "banking.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("10000") int cacheSize,
+        @DefaultValue("24h") Duration retention
+) {}
@@ -0,0 +1,18 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the connection limiter used when requests run on virtual threads.
+ *
+ * @param permits        number of connections that may be borrowed at once, normally the pool size
+ * @param acquireTimeout how long a thread waits for a permit before the request fails
+ */
+@ConfigurationProperties(prefix = "banking.jdbc.limiter")
+public record JdbcLimiterProperties(
+        @DefaultValue("10") int permits,
+        @DefaultValue("2s") Duration acquireTimeout
+) {}
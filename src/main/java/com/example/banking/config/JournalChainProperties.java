@@ -0,0 +1,18 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the journal hash chain verifier.
+ *
+ * @param verifierEnabled whether this instance verifies the chains
+ * @param workers         number of account id ranges verified in parallel
+ * @param batchSize       number of accounts verified per query
+ */
+@ConfigurationProperties(prefix = "banking.journal-chain")
+public record JournalChainProperties(
+        @DefaultValue("true") boolean verifierEnabled,
+        @DefaultValue("4") int workers,
+        @DefaultValue("500") int batchSize
+) {}
@@ -0,0 +1,39 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Settings of the in-memory ledger used for hot accounts.
+ *
+ * @param enabled        whether transfers touching hot accounts are routed to the ledger
+ * @param hotAccounts    ids of the accounts whose balances are owned by the ledger
+ * @param shards         number of single-threaded shards the hot accounts are spread over
+ * @param flushBatchSize maximum number of rows sent in one JDBC batch when flushing
+ * @param flushInterval  delay between two flushes of pending balances and journal entries
+ * @param maxPending     number of unwritten journal entries above which new hot transfers are rejected
+ */
+@ConfigurationProperties(prefix = "banking.ledger")
+public record LedgerProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue Set<UUID> hotAccounts,
+        @DefaultValue("4") int shards,
+        @DefaultValue("500") int flushBatchSize,
+        @DefaultValue("50ms") Duration flushInterval,
+        @DefaultValue("100000") int maxPending
+) {
+
+    /**
+     * Is hot boolean.
+     *
+     * @param accountId the account id
+     * @return true if the account balance is owned by the ledger
+     */
+    public boolean isHot(UUID accountId) {
+        return enabled && hotAccounts.contains(accountId);
+    }
+}
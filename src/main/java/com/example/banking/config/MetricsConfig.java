@@ -0,0 +1,30 @@
+package com.example.banking.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The type Metrics config.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Gauge of the exchange rate circuit breaker state, as one series that is easy to alert on:
+     * 0 closed, 1 open, 2 half open, 3 disabled, 4 forced open, 5 metrics only.
+     *
+     * @param circuitBreakerRegistry the circuit breaker registry
+     * @return the meter binder
+     */
+    @Bean
+    MeterBinder exchangeRateCircuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("exchangeRate");
+        return registry -> Gauge.builder("banking.fx.circuit.state", circuitBreaker, cb -> cb.getState().getOrder())
+                .description("State of the exchange rate circuit breaker")
+                .register(registry);
+    }
+}
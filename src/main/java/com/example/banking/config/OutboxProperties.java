@@ -0,0 +1,24 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the transfer event outbox and its relay to RabbitMQ.
+ *
+ * @param relayEnabled   whether this node drains the outbox
+ * @param batchSize      number of messages locked, published and deleted together
+ * @param confirmTimeout how long the relay waits for the broker to confirm a batch
+ * @param exchange       the topic exchange transfer events are published to
+ * @param routingKey     the routing key of transfer events
+ */
+@ConfigurationProperties(prefix = "banking.outbox")
+public record OutboxProperties(
+        @DefaultValue("true") boolean relayEnabled,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("5s") Duration confirmTimeout,
+        @DefaultValue("banking.transfers") String exchange,
+        @DefaultValue("transfer.completed") String routingKey
+) {}
@@ -0,0 +1,14 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the monthly partitions of account_transaction.
+ *
+ * @param monthsAhead number of months, after the current one, that must always have a partition
+ */
+@ConfigurationProperties(prefix = "banking.partitions")
+public record PartitionProperties(
+        @DefaultValue("3") int monthsAhead
+) {}
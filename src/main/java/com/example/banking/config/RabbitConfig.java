@@ -0,0 +1,60 @@
+package com.example.banking.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The type Rabbit config.
+ */
+@Configuration
+public class RabbitConfig {
+
+    /**
+     * Exchange transfer events are published to, declared on first connection.
+     *
+     * @param properties the outbox properties
+     * @return the topic exchange
+     */
+    @Bean
+    TopicExchange transferExchange(OutboxProperties properties) {
+        return new TopicExchange(properties.exchange(), true, false);
+    }
+
+    /**
+     * Exchange announcing a newly stored exchange rate table to every node.
+     *
+     * @param properties the snapshot properties
+     * @return the fanout exchange
+     */
+    @Bean
+    FanoutExchange exchangeRateExchange(ExchangeRateSnapshotProperties properties) {
+        return new FanoutExchange(properties.shared().exchange(), true, false);
+    }
+
+    /**
+     * Queue of this node only, deleted when it disconnects.
+     *
+     * @return the anonymous queue
+     */
+    @Bean
+    AnonymousQueue exchangeRateQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Binds the queue of this node to the exchange rate exchange.
+     *
+     * @param exchangeRateQueue    the queue
+     * @param exchangeRateExchange the exchange
+     * @return the binding
+     */
+    @Bean
+    Binding exchangeRateBinding(AnonymousQueue exchangeRateQueue, FanoutExchange exchangeRateExchange) {
+        return BindingBuilder.bind(exchangeRateQueue).to(exchangeRateExchange);
+    }
+}
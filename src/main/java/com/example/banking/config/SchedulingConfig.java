@@ -0,0 +1,12 @@
+package com.example.banking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The type Scheduling config.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
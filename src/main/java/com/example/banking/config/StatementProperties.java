@@ -0,0 +1,20 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the statement export.
+ *
+ * @param fetchSize     number of rows the JDBC cursor holds in memory at a time
+ * @param maxConcurrent number of exports allowed to hold a connection at once, further ones are rejected
+ * @param retryAfter    delay after which a rejected export may be retried
+ */
+@ConfigurationProperties(prefix = "banking.statement")
+public record StatementProperties(
+        @DefaultValue("1000") int fetchSize,
+        @DefaultValue("4") int maxConcurrent,
+        @DefaultValue("5s") Duration retryAfter
+) {}
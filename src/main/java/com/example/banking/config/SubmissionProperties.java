@@ -0,0 +1,40 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the asynchronous transfer submissions.
+ *
+ * @param workersEnabled  whether this node processes submissions
+ * @param workers         number of threads applying transfers, each holding at most one connection
+ * @param batchSize       number of submissions claimed per poll
+ * @param leaseTimeout    time after which a submission left in processing is queued again
+ * @param maxAttempts     number of attempts after which a submission that keeps failing temporarily fails for good
+ * @param retryBackoff    delay before the second attempt, doubled for every further one
+ * @param maxRetryBackoff upper bound of the delay between two attempts
+ */
+@ConfigurationProperties(prefix = "banking.submission")
+public record SubmissionProperties(
+        @DefaultValue("true") boolean workersEnabled,
+        @DefaultValue("8") int workers,
+        @DefaultValue("200") int batchSize,
+        @DefaultValue("5m") Duration leaseTimeout,
+        @DefaultValue("8") int maxAttempts,
+        @DefaultValue("1s") Duration retryBackoff,
+        @DefaultValue("5m") Duration maxRetryBackoff
+) {
+
+    /**
+     * Gets the delay before the next attempt of a submission.
+     *
+     * @param attempts the number of attempts made so far, at least 1
+     * @return the delay, growing exponentially up to the maximum
+     */
+    public Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : delay;
+    }
+}
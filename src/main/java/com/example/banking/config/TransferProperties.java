@@ -0,0 +1,93 @@
+package com.example.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the transfer pipeline.
+ *
+ * @param batch        the batch transfer settings
+ * @param accountCache the account metadata cache settings
+ * @param lanes        the per-account execution lane settings
+ * @param concurrency  the concurrency control settings of single transfers
+ */
+@ConfigurationProperties(prefix = "banking.transfer")
+public record TransferProperties(
+        @DefaultValue Batch batch,
+        @DefaultValue AccountCache accountCache,
+        @DefaultValue Lanes lanes,
+        @DefaultValue Concurrency concurrency
+) {
+
+    /**
+     * Settings of POST /transfers/batch.
+     *
+     * @param chunkSize number of transfers locked, applied and committed together
+     */
+    public record Batch(
+            @DefaultValue("500") int chunkSize
+    ) {}
+
+    /**
+     * Settings of the cache of account currencies read before locking.
+     *
+     * @param maximumSize maximum number of accounts kept in memory
+     */
+    public record AccountCache(
+            @DefaultValue("100000") int maximumSize
+    ) {}
+
+    /**
+     * Settings of the lanes serializing transfers of the same account within this instance.
+     *
+     * @param enabled        whether transfers wait for their lanes before opening a transaction
+     * @param count          number of lanes accounts are hashed to
+     * @param acquireTimeout maximum time a transfer waits for its lanes
+     */
+    public record Lanes(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("256") int count,
+            @DefaultValue("5s") Duration acquireTimeout
+    ) {}
+
+    /**
+     * How single transfers protect the balances they update.
+     */
+    public enum ConcurrencyMode {
+        /**
+         * Lock both account rows before reading them.
+         */
+        PESSIMISTIC,
+        /**
+         * Read without locks and update only if the version did not change, retrying on conflict.
+         */
+        OPTIMISTIC,
+        /**
+         * Optimistic, except for accounts whose recent conflict rate exceeds the threshold.
+         */
+        ADAPTIVE
+    }
+
+    /**
+     * Settings of the concurrency control of single transfers.
+     *
+     * @param mode              the concurrency mode
+     * @param maxAttempts       optimistic attempts per transfer before it falls back to row locks
+     * @param initialBackoff    upper bound of the random pause after the first conflict, doubled per attempt
+     * @param maxBackoff        upper bound of the random pause after any conflict
+     * @param conflictThreshold conflict rate above which adaptive mode locks an account
+     * @param adaptiveWindow    time without optimistic attempts after which an account is tried optimistically again
+     * @param singleStatement   whether same-currency transfers that lock the rows are applied in one SQL statement
+     */
+    public record Concurrency(
+            @DefaultValue("PESSIMISTIC") ConcurrencyMode mode,
+            @DefaultValue("3") int maxAttempts,
+            @DefaultValue("2ms") Duration initialBackoff,
+            @DefaultValue("50ms") Duration maxBackoff,
+            @DefaultValue("0.3") double conflictThreshold,
+            @DefaultValue("1m") Duration adaptiveWindow,
+            @DefaultValue("true") boolean singleStatement
+    ) {}
+}
@@ -0,0 +1,41 @@
+package com.example.banking.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration applied when requests run on virtual threads ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * Tomcat then starts one virtual thread per request, so the number of threads reaching the
+ * connection pool is no longer bounded by the worker pool. The data source is wrapped in a
+ * {@link ConcurrencyLimitedDataSource} to restore that bound.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Wraps the application data source in a connection limiter.
+     *
+     * @param properties the limiter properties
+     * @return the bean post processor
+     */
+    @Bean
+    static BeanPostProcessor connectionLimiterPostProcessor(JdbcLimiterProperties properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    return new ConcurrencyLimitedDataSource(
+                            dataSource, properties.permits(), properties.acquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.banking.controller;
 
-import com.example.banking.domain.Account;
 import com.example.banking.dto.AccountResponse;
+import com.example.banking.dto.ClientAccounts;
 import com.example.banking.service.AccountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,10 +11,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -34,12 +37,14 @@ public class AccountController {
     /**
      * Gets client accounts.
      *
-     * @param clientId the client id
+     * @param clientId    the client id
+     * @param ifNoneMatch the entity tags held by the client
      * @return the client accounts
      */
     @Operation(
             summary = "Get client accounts",
-            description = "Returns all accounts for a given client identifier",
+            description = "Returns all accounts for a given client identifier. " +
+                    "Send the ETag back in If-None-Match to get 304 Not Modified while nothing changed",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -49,6 +54,10 @@ public class AccountController {
                                     array = @ArraySchema(schema = @Schema(implementation = AccountResponse.class))
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Accounts unchanged since the given ETag"
+                    ),
                     @ApiResponse(
                             responseCode = "400",
                             description = "Invalid client ID format"
@@ -62,12 +71,18 @@ public class AccountController {
                     @GetMapping("/{clientId}/accounts")
     public ResponseEntity<List<AccountResponse>> getClientAccounts(
             @Parameter(description = "Client identifier", example = "client-123")
-            @PathVariable @NotBlank String clientId
+            @PathVariable @NotBlank String clientId,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        List<Account> accounts = accountService.getClientAccounts(clientId);
-        List<AccountResponse> response = accounts.stream()
-                .map(AccountResponse::fromDomain)
-                .toList();
-        return ResponseEntity.ok(response);
+        // Polls of an unchanged list are answered from the version index, without loading or serializing it
+        if (ifNoneMatch != null) {
+            String etag = accountService.getClientAccountsTag(clientId);
+            if (EntityTags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        ClientAccounts accounts = accountService.getClientAccounts(clientId);
+        return ResponseEntity.ok().eTag(accounts.etag()).body(accounts.accounts());
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.BalanceResponse;
+import com.example.banking.service.BalanceHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The type Balance controller.
+ */
+@Validated
+@RestController
+@RequiredArgsConstructor
+public class BalanceController {
+
+    private final BalanceHistoryService balanceHistoryService;
+
+    /**
+     * Gets the balance of an account at a point in time.
+     *
+     * @param accountId the account id
+     * @param at        the point in time, now if absent
+     * @return the balance
+     */
+    @Operation(
+            summary = "Get account balance at a point in time",
+            description = "Returns the balance of an account including all transactions created up to the given time",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Balance of the account",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = BalanceResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid account ID or time"
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Account not found"
+                    )
+            }
+    )
+    @GetMapping("/accounts/{accountId}/balance")
+    public ResponseEntity<BalanceResponse> getAccountBalance(
+            @Parameter(description = "Account identifier", example = "123e4567-e89b-12d3-a456-426614174000")
+            @PathVariable @NotNull UUID accountId,
+            @Parameter(description = "ISO-8601 instant, defaults to now", example = "2023-07-15T11:45:30Z")
+            @RequestParam(required = false) Instant at
+    ) {
+        return ResponseEntity.ok(balanceHistoryService.getBalanceAt(accountId, at));
+    }
+}
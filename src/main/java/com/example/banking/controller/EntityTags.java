@@ -0,0 +1,30 @@
+package com.example.banking.controller;
+
+import org.springframework.http.ETag;
+
+/**
+ * Evaluation of {@code If-None-Match} against entity tags computed before any body is loaded.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Tells whether a GET can be answered with {@code 304 Not Modified}.
+     * {@code If-None-Match} uses the weak comparison, as specified by RFC 9110.
+     *
+     * @param ifNoneMatch the If-None-Match header, possibly a list
+     * @param etag        the current entity tag, unquoted
+     * @return true if the client already holds the current representation
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        ETag current = new ETag(etag, false);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,26 +1,39 @@
 package com.example.banking.controller;
 
-import com.example.banking.domain.AccountTransaction;
-import com.example.banking.dto.PagedResponse;
+import com.example.banking.dto.ErrorResponse;
+import com.example.banking.dto.StatementFormat;
+import com.example.banking.dto.TransactionCursor;
+import com.example.banking.dto.TransactionPage;
 import com.example.banking.dto.TransactionResponse;
+import com.example.banking.repository.TransactionView;
+import com.example.banking.service.StatementService;
 import com.example.banking.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -33,28 +46,43 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TransactionController {
 
+    /**
+     * Response header carrying the cursor of the next page, absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TransactionService transactionService;
+    private final StatementService statementService;
 
     /**
      * Gets account transactions.
      *
      * @param accountId the account id
-     * @param offset    the offset
+     * @param offset    the offset, ignored when a cursor is given
      * @param limit     the limit
+     * @param cursor      the cursor returned with the previous page
+     * @param ifNoneMatch the entity tags held by the client
      * @return the account transactions
      */
     @Operation(
             summary = "Get account transactions",
-            description = "Returns transaction history for an account with pagination",
+            description = "Returns transaction history for an account with pagination. " +
+                    "Follow the X-Next-Cursor header for constant cost deep pages. " +
+                    "Send the ETag back in If-None-Match to get 304 Not Modified while nothing changed",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Paginated transaction list",
+                            headers = @Header(name = NEXT_CURSOR_HEADER, description = "Cursor of the next page, absent on the last page"),
                             content = @Content(
                                     mediaType = "application/json",
                                     array = @ArraySchema(schema = @Schema(implementation = TransactionResponse.class))
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "History unchanged since the given ETag"
+                    ),
                     @ApiResponse(
                             responseCode = "400",
                             description = "Invalid account ID or pagination parameters"
@@ -70,21 +98,99 @@ public class TransactionController {
             @Parameter(description = "Account identifier", example = "123e4567-e89b-12d3-a456-426614174000")
             @PathVariable @NotNull UUID accountId,
             @Parameter(description = "Pagination offset", example = "0")
-            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
             @Parameter(description = "Maximum results per page", example = "10")
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") @Min(1) @Max(1000) int limit,
+            @Parameter(description = "Opaque cursor from the X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        Pageable pageable = PageRequest.of(offset / limit, limit);
-        Page<AccountTransaction> page = transactionService.getAccountTransactions(accountId, pageable);
-        List<TransactionResponse> content = page.getContent().stream()
-                .map(TransactionResponse::fromDomain)
+        if (ifNoneMatch != null) {
+            String etag = transactionService.getAccountTransactionsTag(accountId);
+            if (EntityTags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+
+        // The page and its tag come from one snapshot
+        TransactionPage page;
+        if (cursor != null) {
+            page = transactionService.getAccountTransactions(accountId, TransactionCursor.decode(cursor), limit);
+        } else {
+            Pageable pageable = PageRequest.of(offset / limit, limit);
+            page = transactionService.getAccountTransactions(accountId, pageable);
+        }
+        Slice<TransactionView> slice = page.transactions();
+        List<TransactionResponse> content = slice.getContent().stream()
+                .map(TransactionResponse::fromView)
                 .toList();
 
-        return ResponseEntity.ok(new PagedResponse<>(
-                content,
-                offset,
-                limit,
-                page.getTotalElements()
-        ).items());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(page.etag());
+        if (slice.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, TransactionCursor.after(slice.getContent().getLast()).encode());
+        }
+        return response.body(content);
+    }
+
+    /**
+     * Gets the full statement of an account.
+     *
+     * @param accountId the account id
+     * @param format    the format, ndjson or csv
+     * @return the statement, streamed
+     */
+    @Operation(
+            summary = "Export account statement",
+            description = "Streams the complete transaction history of an account, oldest first, " +
+                    "as newline delimited JSON or CSV",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Statement of the account",
+                            content = {
+                                    @Content(mediaType = "application/x-ndjson"),
+                                    @Content(mediaType = "text/csv")
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid account ID or format"
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Account not found"
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many exports running, retry after the delay in the Retry-After header",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    )
+            }
+    )
+    @GetMapping("/accounts/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> getAccountStatement(
+            @Parameter(description = "Account identifier", example = "123e4567-e89b-12d3-a456-426614174000")
+            @PathVariable @NotNull UUID accountId,
+            @Parameter(description = "Export format, ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        StatementFormat statementFormat = StatementFormat.of(format);
+        // Checked before streaming, errors can no longer change the status once rows are written
+        statementService.requireAccount(accountId);
+        StatementService.ExportPermit permit = statementService.acquireExport();
+
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                statementService.export(accountId, statementFormat, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(statementFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("statement-" + accountId + "." + statementFormat.extension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 }
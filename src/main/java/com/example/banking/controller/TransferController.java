@@ -1,10 +1,19 @@
 package com.example.banking.controller;
 
+import com.example.banking.dto.BatchTransferItemResult;
+import com.example.banking.dto.BatchTransferRequest;
+import com.example.banking.dto.BatchTransferResponse;
 import com.example.banking.dto.TransferRequest;
 import com.example.banking.dto.TransferResponse;
 import com.example.banking.dto.TransferResult;
+import com.example.banking.dto.TransferSubmissionResponse;
+import com.example.banking.service.BatchTransferService;
+import com.example.banking.service.IdempotentTransferService;
+import com.example.banking.service.TransferAdmission;
 import com.example.banking.service.TransferService;
+import com.example.banking.service.TransferSubmissionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,10 +21,18 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * The type Transfer controller.
@@ -26,11 +43,16 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransferController {
 
     private final TransferService transferService;
+    private final BatchTransferService batchTransferService;
+    private final IdempotentTransferService idempotentTransferService;
+    private final TransferSubmissionService transferSubmissionService;
+    private final TransferAdmission transferAdmission;
 
     /**
      * Transfer funds response entity.
      *
-     * @param request the request
+     * @param idempotencyKey the idempotency key
+     * @param request        the request
      * @return the response entity
      */
     @Operation(
@@ -53,16 +75,127 @@ public class TransferController {
                     ),
                     @ApiResponse(
                             responseCode = "422",
-                            description = "Business rule violation",
+                            description = "Business rule violation or idempotency key reused for another request",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "429",
+                            description = "Overloaded, retry after the delay in the Retry-After header",
                             content = @Content(schema = @Schema(implementation = ErrorResponse.class))
                     )
             }
     )
     @PostMapping
     public ResponseEntity<TransferResponse> transferFunds(
+            @Parameter(description = "Client generated key making retries of the same transfer safe",
+                    example = "5f0c6a9e-3c1b-4f5e-9b7a-2d8e4c1f0a6b")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request
     ) {
-        TransferResult result = transferService.transferFunds(request);
-        return ResponseEntity.ok(TransferResponse.fromTransferResult(result));
+        return ResponseEntity.ok(transferAdmission.admit(request, () -> {
+            if (idempotencyKey != null) {
+                return idempotentTransferService.transferFunds(idempotencyKey, request);
+            }
+            TransferResult result = transferService.transferFunds(request);
+            return TransferResponse.fromTransferResult(result);
+        }));
+    }
+
+    /**
+     * Transfer funds in batch response entity.
+     *
+     * @param request the request
+     * @return the response entity
+     */
+    @Operation(
+            summary = "Transfer funds in batch",
+            description = "Executes many transfers at once. Each transfer succeeds or fails on its own",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Batch processed, see the status of each transfer",
+                            content = @Content(schema = @Schema(implementation = BatchTransferResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid batch transfer request",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "429",
+                            description = "Overloaded, retry after the delay in the Retry-After header",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    )
+            }
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> transferFundsBatch(
+            @Valid @RequestBody BatchTransferRequest request
+    ) {
+        List<BatchTransferItemResult> results = transferAdmission.admitBatch(
+                () -> batchTransferService.transferFunds(request.transfers()));
+        return ResponseEntity.ok(BatchTransferResponse.fromItemResults(results));
+    }
+
+    /**
+     * Submit transfer response entity.
+     *
+     * @param request the request
+     * @return the response entity
+     */
+    @Operation(
+            summary = "Submit a transfer for asynchronous processing",
+            description = "Validates and queues the transfer, then returns immediately. " +
+                    "Poll the Location header for its outcome",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "Transfer queued",
+                            content = @Content(schema = @Schema(implementation = TransferSubmissionResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid transfer request",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    )
+            }
+    )
+    @PostMapping("/async")
+    public ResponseEntity<TransferSubmissionResponse> submitTransfer(@Valid @RequestBody TransferRequest request) {
+        TransferSubmissionResponse submission = transferSubmissionService.submit(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/transfers/{id}")
+                .buildAndExpand(submission.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(submission);
+    }
+
+    /**
+     * Gets transfer submission.
+     *
+     * @param id the id
+     * @return the transfer submission
+     */
+    @Operation(
+            summary = "Get the status of a submitted transfer",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Current status, with the transfer details once completed",
+                            content = @Content(schema = @Schema(implementation = TransferSubmissionResponse.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Transfer not found",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+                    )
+            }
+    )
+    @GetMapping("/{id}")
+    public ResponseEntity<TransferSubmissionResponse> getTransferSubmission(
+            @Parameter(description = "Transfer ID returned on submission")
+            @PathVariable UUID id
+    ) {
+        return ResponseEntity.ok(transferSubmissionService.getSubmission(id));
     }
-}
\ No newline at end of file
+}
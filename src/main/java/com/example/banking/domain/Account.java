@@ -1,7 +1,7 @@
 package com.example.banking.domain;
 
 import com.example.banking.exception.InsufficientFundsException;
-import com.example.banking.util.ValidCurrency;
+import com.example.banking.util.CurrencyCode;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -31,9 +31,10 @@ public class Account {
     @Column(name = "client_id", nullable = false)
     private String clientId;
 
+    // Known ISO 4217 codes only, read back as the shared instance and compared by identity
+    @NotNull
     @Column(nullable = false, length = 3)
-    @ValidCurrency
-    private String currency;
+    private CurrencyCode currency;
 
     @NotNull
     @DecimalMin(value = "0.00")
@@ -45,6 +46,17 @@ public class Account {
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Head of the hash chain over the journal entries of the account
+    @Column(name = "journal_seq", nullable = false)
+    private long journalSeq;
+
+    @Column(name = "journal_hash")
+    private byte[] journalHash;
+
     /**
      * Credit.
      *
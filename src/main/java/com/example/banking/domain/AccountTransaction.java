@@ -1,10 +1,10 @@
 package com.example.banking.domain;
 
-import com.example.banking.util.ValidCurrency;
+import com.example.banking.util.GeneratedUuidV7;
+import com.example.banking.util.CurrencyCode;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -36,8 +36,9 @@ public class AccountTransaction {
         TRANSFER_OUT
     }
 
+    // Time-ordered, so journal inserts append to the right edge of the primary key index
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @NotNull
@@ -53,15 +54,14 @@ public class AccountTransaction {
 
     @NotNull
     @Column(nullable = false, length = 3)
-    @ValidCurrency
-    private String currency;
+    private CurrencyCode currency;
 
     @NotNull
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 15)
     private TransactionType type;
 
-    @CreationTimestamp
+    // Assigned with the id before the entry is chained, both are covered by the chain hash
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
@@ -71,4 +71,11 @@ public class AccountTransaction {
     // Reference for transfers (links IN/OUT transactions)
     @Column(name = "correlation_id")
     private UUID correlationId;
+
+    // Position in the hash chain of the account, null for entries written before chaining
+    @Column(name = "chain_seq", updatable = false)
+    private Long chainSeq;
+
+    @Column(name = "chain_hash", updatable = false)
+    private byte[] chainHash;
 }
\ No newline at end of file
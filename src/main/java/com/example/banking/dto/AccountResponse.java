@@ -1,6 +1,7 @@
 package com.example.banking.dto;
 
 import com.example.banking.domain.Account;
+import com.example.banking.repository.AccountView;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -34,9 +35,24 @@ public record AccountResponse(
     public static AccountResponse fromDomain(Account account) {
         return new AccountResponse(
                 account.getId(),
-                account.getCurrency(),
+                account.getCurrency().code(),
                 account.getBalance(),
                 account.getCreatedAt().toString()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * From view account response.
+     *
+     * @param account the account view
+     * @return the account response
+     */
+    public static AccountResponse fromView(AccountView account) {
+        return new AccountResponse(
+                account.id(),
+                account.currency().code(),
+                account.balance(),
+                account.createdAt().toString()
+        );
+    }
+}
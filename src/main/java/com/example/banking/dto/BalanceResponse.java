@@ -0,0 +1,26 @@
+package com.example.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The type Balance response.
+ */
+@Schema(description = "Balance of an account at a point in time")
+public record BalanceResponse(
+        @Schema(description = "Account ID", example = "123e4567-e89b-12d3-a456-426614174000")
+        UUID accountId,
+
+        @Schema(description = "Balance", example = "1000.00")
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        BigDecimal balance,
+
+        @Schema(description = "Account currency", example = "USD")
+        String currency,
+
+        @Schema(description = "Point in time of the balance", example = "2023-07-15T11:45:30Z")
+        String at
+) {}
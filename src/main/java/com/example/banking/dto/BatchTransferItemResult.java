@@ -0,0 +1,38 @@
+package com.example.banking.dto;
+
+/**
+ * The type Batch transfer item result.
+ */
+public record BatchTransferItemResult(
+        TransferResult result,
+        String error
+) {
+    /**
+     * Completed batch transfer item result.
+     *
+     * @param result the result
+     * @return the batch transfer item result
+     */
+    public static BatchTransferItemResult completed(TransferResult result) {
+        return new BatchTransferItemResult(result, null);
+    }
+
+    /**
+     * Failed batch transfer item result.
+     *
+     * @param error the error
+     * @return the batch transfer item result
+     */
+    public static BatchTransferItemResult failed(String error) {
+        return new BatchTransferItemResult(null, error);
+    }
+
+    /**
+     * Is completed boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isCompleted() {
+        return result != null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.banking.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * The type Batch transfer request.
+ */
+@Schema(description = "Batch of funds transfer requests")
+public record BatchTransferRequest(
+        @NotEmpty
+        @Size(max = 10000)
+        @Schema(description = "Transfers to execute, processed in order")
+        List<@NotNull @Valid TransferRequest> transfers
+) {}
@@ -0,0 +1,73 @@
+package com.example.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The type Batch transfer response.
+ */
+@Schema(description = "Outcome of a batch of transfers")
+public record BatchTransferResponse(
+        @Schema(description = "Number of completed transfers", example = "199998")
+        int completed,
+
+        @Schema(description = "Number of failed transfers", example = "2")
+        int failed,
+
+        @Schema(description = "One result per requested transfer, in request order")
+        List<Item> results
+) {
+    /**
+     * The enum Status.
+     */
+    public enum Status {
+        /**
+         * Completed status.
+         */
+        COMPLETED,
+        /**
+         * Failed status.
+         */
+        FAILED
+    }
+
+    /**
+     * The type Item.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(
+            @Schema(description = "Position of the transfer in the request", example = "0")
+            int index,
+
+            @Schema(description = "Transfer status", example = "COMPLETED")
+            Status status,
+
+            @Schema(description = "Transfer details when completed")
+            TransferResponse transfer,
+
+            @Schema(description = "Failure reason when failed", example = "Account not found: 123e4567-e89b-12d3-a456-426614174000")
+            String error
+    ) {}
+
+    /**
+     * From item results batch transfer response.
+     *
+     * @param results the results
+     * @return the batch transfer response
+     */
+    public static BatchTransferResponse fromItemResults(List<BatchTransferItemResult> results) {
+        List<Item> items = IntStream.range(0, results.size())
+                .mapToObj(i -> {
+                    BatchTransferItemResult result = results.get(i);
+                    return result.isCompleted()
+                            ? new Item(i, Status.COMPLETED, TransferResponse.fromTransferResult(result.result()), null)
+                            : new Item(i, Status.FAILED, null, result.error());
+                })
+                .toList();
+        int completed = (int) items.stream().filter(item -> item.status() == Status.COMPLETED).count();
+        return new BatchTransferResponse(completed, items.size() - completed, items);
+    }
+}
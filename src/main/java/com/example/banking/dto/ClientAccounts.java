@@ -0,0 +1,11 @@
+package com.example.banking.dto;
+
+import java.util.List;
+
+/**
+ * The accounts of a client together with the entity tag of exactly this list.
+ *
+ * @param accounts the accounts
+ * @param etag     the entity tag, unquoted
+ */
+public record ClientAccounts(List<AccountResponse> accounts, String etag) {}
@@ -0,0 +1,59 @@
+package com.example.banking.dto;
+
+import java.util.Locale;
+
+/**
+ * Formats an account statement can be exported in.
+ */
+public enum StatementFormat {
+    /**
+     * One JSON transaction object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * Comma separated values with a header line.
+     */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    StatementFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the media type of the response.
+     *
+     * @return the media type
+     */
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the file extension of the export.
+     *
+     * @return the extension
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parses a format name, ignoring case.
+     *
+     * @param name the name
+     * @return the statement format
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static StatementFormat of(String name) {
+        for (StatementFormat format : values()) {
+            if (format.extension.equals(name.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported statement format: " + name);
+    }
+}
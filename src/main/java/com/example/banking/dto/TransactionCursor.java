@@ -0,0 +1,61 @@
+package com.example.banking.dto;
+
+import com.example.banking.repository.TransactionView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in an account's transaction history, matching its {@code createdAt DESC, id DESC} order.
+ * Clients only see it as an opaque token.
+ *
+ * @param createdAt the creation timestamp of the last transaction returned
+ * @param id        the id of the last transaction returned
+ */
+public record TransactionCursor(
+        Instant createdAt,
+        UUID id
+) {
+    private static final char SEPARATOR = '|';
+
+    /**
+     * After transaction cursor.
+     *
+     * @param transaction the last transaction returned
+     * @return the transaction cursor
+     */
+    public static TransactionCursor after(TransactionView transaction) {
+        return new TransactionCursor(transaction.createdAt(), transaction.id());
+    }
+
+    /**
+     * Decode transaction cursor.
+     *
+     * @param token the token
+     * @return the transaction cursor
+     */
+    public static TransactionCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new TransactionCursor(
+                    Instant.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1))
+            );
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Encode string.
+     *
+     * @return the opaque token
+     */
+    public String encode() {
+        String value = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
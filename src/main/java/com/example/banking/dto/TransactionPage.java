@@ -0,0 +1,12 @@
+package com.example.banking.dto;
+
+import com.example.banking.repository.TransactionView;
+import org.springframework.data.domain.Slice;
+
+/**
+ * A page of the history of an account together with the entity tag it was read under.
+ *
+ * @param transactions the transactions
+ * @param etag         the entity tag, unquoted
+ */
+public record TransactionPage(Slice<TransactionView> transactions, String etag) {}
@@ -1,6 +1,7 @@
 package com.example.banking.dto;
 
 import com.example.banking.domain.AccountTransaction;
+import com.example.banking.repository.TransactionView;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -44,11 +45,29 @@ public record TransactionResponse(
         return new TransactionResponse(
                 transaction.getId(),
                 transaction.getAmount(),
-                transaction.getCurrency(),
+                transaction.getCurrency().code(),
                 transaction.getType().name(),
                 transaction.getCreatedAt().toString(),
                 transaction.getDescription(),
                 transaction.getCorrelationId()
         );
     }
+
+    /**
+     * From view transaction response.
+     *
+     * @param transaction the transaction view
+     * @return the transaction response
+     */
+    public static TransactionResponse fromView(TransactionView transaction) {
+        return new TransactionResponse(
+                transaction.id(),
+                transaction.amount(),
+                transaction.currency().code(),
+                transaction.type().name(),
+                transaction.createdAt().toString(),
+                transaction.description(),
+                transaction.correlationId()
+        );
+    }
 }
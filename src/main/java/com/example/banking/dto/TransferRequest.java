@@ -1,6 +1,6 @@
 package com.example.banking.dto;
 
-import com.example.banking.util.ValidCurrency;
+import com.example.banking.util.CurrencyCode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 
@@ -26,9 +26,8 @@ public record TransferRequest(
         @Schema(description = "Transfer amount", example = "150.75")
         BigDecimal amount,
 
-        @NotBlank
-        @Size(min = 3, max = 3)
-        @Schema(description = "Currency of the transfer amount", example = "USD")
-        @ValidCurrency
-        String currency
+        // Read from its code, an unknown code fails the request before validation
+        @NotNull
+        @Schema(description = "Currency of the transfer amount (ISO 4217)", type = "string", example = "USD")
+        CurrencyCode currency
 ) {}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.UUID;
+
+/**
+ * The type Transfer submission response.
+ */
+@Schema(description = "Status of an asynchronously submitted transfer")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransferSubmissionResponse(
+        @Schema(description = "Transfer ID", example = "550e8400-e29b-41d4-a716-446655440000")
+        UUID id,
+
+        @Schema(description = "Processing status", example = "PENDING",
+                allowableValues = {"PENDING", "PROCESSING", "COMPLETED", "FAILED"})
+        String status,
+
+        @Schema(description = "Transfer details, once completed")
+        TransferResponse transfer,
+
+        @Schema(description = "Failure reason, once failed", example = "Account not found: 550e8400-e29b-41d4-a716-446655440000")
+        String error,
+
+        @Schema(description = "Submission timestamp", example = "2023-07-15T11:45:30Z")
+        String submittedAt
+) {}
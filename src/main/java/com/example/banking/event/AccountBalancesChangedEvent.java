@@ -0,0 +1,28 @@
+package com.example.banking.event;
+
+import com.example.banking.domain.Account;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published when balances are changed, inside the transaction that changes them.
+ * Listeners interested in committed data only should listen after commit.
+ *
+ * @param clientIds the clients owning the changed accounts
+ */
+public record AccountBalancesChangedEvent(Set<String> clientIds) {
+
+    /**
+     * Of accounts balances changed event.
+     *
+     * @param accounts the changed accounts
+     * @return the event
+     */
+    public static AccountBalancesChangedEvent of(Collection<Account> accounts) {
+        return new AccountBalancesChangedEvent(accounts.stream()
+                .map(Account::getClientId)
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.banking.event;
+
+import java.util.UUID;
+
+/**
+ * Published by the ledger journal writer when the journal head of a hot account moved outside the
+ * ledger. The pending changes of the account are held back until its shard relinked them onto the
+ * head found in the database.
+ *
+ * @param accountId the account id
+ */
+public record JournalHeadMovedEvent(UUID accountId) {
+}
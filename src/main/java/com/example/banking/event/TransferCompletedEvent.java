@@ -0,0 +1,54 @@
+package com.example.banking.event;
+
+import com.example.banking.domain.AccountTransaction;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event sent to downstream systems for every committed transfer, keyed by correlation id.
+ *
+ * @param correlationId    the correlation id shared by both journal entries
+ * @param fromAccountId    the debited account
+ * @param toAccountId      the credited account
+ * @param debitedAmount    the debited amount, in the sender currency
+ * @param debitedCurrency  the sender currency
+ * @param creditedAmount   the credited amount, in the receiver currency
+ * @param creditedCurrency the receiver currency
+ * @param occurredAt       when the transfer was applied
+ */
+public record TransferCompletedEvent(
+        UUID correlationId,
+        UUID fromAccountId,
+        UUID toAccountId,
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        BigDecimal debitedAmount,
+        String debitedCurrency,
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        BigDecimal creditedAmount,
+        String creditedCurrency,
+        Instant occurredAt
+) {
+
+    /**
+     * From journal entries transfer completed event.
+     *
+     * @param debit  the debit entry
+     * @param credit the credit entry
+     * @return the transfer completed event
+     */
+    public static TransferCompletedEvent fromEntries(AccountTransaction debit, AccountTransaction credit) {
+        return new TransferCompletedEvent(
+                debit.getCorrelationId(),
+                debit.getAccount().getId(),
+                credit.getAccount().getId(),
+                debit.getAmount().negate(),
+                debit.getCurrency().code(),
+                credit.getAmount(),
+                credit.getCurrency().code(),
+                debit.getCreatedAt()
+        );
+    }
+}
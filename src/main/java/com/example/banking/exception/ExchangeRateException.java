@@ -4,4 +4,8 @@ public class ExchangeRateException extends RuntimeException {
     public ExchangeRateException(String message) {
         super(message);
     }
+
+    public ExchangeRateException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -1,26 +1,50 @@
 package com.example.banking.exception;
 
 import com.example.banking.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * The type Global exception handler.
+ * <p>
+ * Every handled exception is counted in {@code banking.errors}, tagged with its type and the
+ * response status. Counters are kept per exception type so that counting does not look up meters.
  */
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Global exception handler.
+     *
+     * @param meterRegistry the meter registry, the global one when none is configured
+     */
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
     /**
      * Handle not found response entity.
      *
@@ -30,7 +54,8 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler({
             AccountNotFoundException.class,
-            ClientNotFoundException.class
+            ClientNotFoundException.class,
+            TransferSubmissionNotFoundException.class
     })
     public ResponseEntity<ErrorResponse> handleNotFound(RuntimeException ex, WebRequest request) {
         return buildErrorResponse(ex, HttpStatus.NOT_FOUND, request);
@@ -47,12 +72,67 @@ public class GlobalExceptionHandler {
             CurrencyMismatchException.class,
             InsufficientFundsException.class,
             SameAccountTransferException.class,
-            InvalidCurrencyException.class
+            InvalidCurrencyException.class,
+            IdempotencyKeyReuseException.class
     })
     public ResponseEntity<ErrorResponse> handleBusinessRuleViolation(RuntimeException ex, WebRequest request) {
         return buildErrorResponse(ex, HttpStatus.UNPROCESSABLE_ENTITY, request);
     }
 
+    /**
+     * Handle conflict response entity.
+     *
+     * @param ex      the ex
+     * @param request the request
+     * @return the response entity
+     */
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(RuntimeException ex, WebRequest request) {
+        return buildErrorResponse(ex, HttpStatus.CONFLICT, request);
+    }
+
+    /**
+     * Handle service unavailable response entity.
+     *
+     * @param ex      the ex
+     * @param request the request
+     * @return the response entity
+     */
+    @ExceptionHandler({
+            ExchangeRateException.class,
+            AccountBusyException.class
+    })
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(RuntimeException ex, WebRequest request) {
+        return buildErrorResponse(ex, HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    /**
+     * Handle transfer rejected response entity.
+     *
+     * @param ex      the ex
+     * @param request the request
+     * @return the response entity, with the delay after which the client may retry
+     */
+    @ExceptionHandler(TransferRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleTransferRejected(TransferRejectedException ex, WebRequest request) {
+        return withRetryAfter(buildErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS, request), ex.getRetryAfter());
+    }
+
+    /**
+     * Handle statement export rejected response entity.
+     *
+     * @param ex      the ex
+     * @param request the request
+     * @return the response entity, with the delay after which the client may retry
+     */
+    @ExceptionHandler(StatementExportRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleStatementExportRejected(
+            StatementExportRejectedException ex,
+            WebRequest request
+    ) {
+        return withRetryAfter(buildErrorResponse(ex, HttpStatus.SERVICE_UNAVAILABLE, request), ex.getRetryAfter());
+    }
+
     /**
      * Handle validation exception response entity.
      *
@@ -71,7 +151,25 @@ public class GlobalExceptionHandler {
                     .map(fe -> fe.getField() + ": " + fe.getDefaultMessage())
                     .collect(Collectors.joining("; "));
         }
-        return buildErrorResponse(new Exception(message), HttpStatus.BAD_REQUEST, request);
+        return buildErrorResponse(ex, message, HttpStatus.BAD_REQUEST, request);
+    }
+
+    /**
+     * Handle unreadable request body response entity.
+     * <p>
+     * Currency codes are read into their shared instance while the body is parsed, so an unknown code
+     * surfaces here rather than as a validation error.
+     *
+     * @param ex      the ex
+     * @param request the request
+     * @return the response entity
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableBody(HttpMessageNotReadableException ex, WebRequest request) {
+        String message = ex.getMostSpecificCause() instanceof InvalidCurrencyException invalidCurrency
+                ? invalidCurrency.getMessage()
+                : "Malformed request body";
+        return buildErrorResponse(ex, message, HttpStatus.BAD_REQUEST, request);
     }
 
     /**
@@ -83,9 +181,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex, WebRequest req) {
-        return buildErrorResponse(
-                new Exception("Invalid parameter '" + ex.getName()),
-                HttpStatus.BAD_REQUEST, req);
+        return buildErrorResponse(ex, "Invalid parameter '" + ex.getName(), HttpStatus.BAD_REQUEST, req);
     }
 
     /**
@@ -113,19 +209,51 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex, HttpStatus.INTERNAL_SERVER_ERROR, request);
     }
 
+    private static ResponseEntity<ErrorResponse> withRetryAfter(
+            ResponseEntity<ErrorResponse> response,
+            Duration retryAfter
+    ) {
+        long retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response.getBody());
+    }
+
     private ResponseEntity<ErrorResponse> buildErrorResponse(
             Exception ex,
             HttpStatus status,
             WebRequest request
     ) {
+        return buildErrorResponse(ex, ex.getMessage(), status, request);
+    }
+
+    private ResponseEntity<ErrorResponse> buildErrorResponse(
+            Exception ex,
+            String message,
+            HttpStatus status,
+            WebRequest request
+    ) {
+        errorCounter(ex.getClass(), status).increment();
         return ResponseEntity.status(status)
                 .body(ErrorResponse.builder()
                         .timestamp(Instant.now())
                         .status(status.value())
                         .error(status.getReasonPhrase())
-                        .message(ex.getMessage())
+                        .message(message)
                         .path(request.getDescription(false).replace("uri=", ""))
                         .build()
                 );
     }
-}
\ No newline at end of file
+
+    private Counter errorCounter(Class<?> type, HttpStatus status) {
+        Counter counter = errorCounters.get(type);
+        if (counter != null) {
+            return counter;
+        }
+        return errorCounters.computeIfAbsent(type, t -> Counter.builder("banking.errors")
+                .description("Exceptions answered by the API")
+                .tag("exception", t.getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry));
+    }
+}
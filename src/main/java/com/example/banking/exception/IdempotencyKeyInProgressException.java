@@ -0,0 +1,7 @@
+package com.example.banking.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String key) {
+        super("A transfer request with idempotency key " + key + " is still being processed");
+    }
+}
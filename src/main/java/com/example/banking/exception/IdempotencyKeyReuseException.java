@@ -0,0 +1,7 @@
+package com.example.banking.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String key) {
+        super("Idempotency key " + key + " was already used with a different transfer request");
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.banking.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+public class JournalHeadMovedException extends IllegalStateException {
+
+    private final UUID accountId;
+
+    public JournalHeadMovedException(UUID accountId, long expectedJournalSeq) {
+        super("Account " + accountId + " no longer has journal_seq " + expectedJournalSeq
+                + ", its balance was changed outside the ledger");
+        this.accountId = accountId;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banking.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a statement export is refused because the maximum number of exports is running.
+ */
+public class StatementExportRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Instantiates a new Statement export rejected exception.
+     *
+     * @param message    the message
+     * @param retryAfter the delay after which the client may retry
+     */
+    public StatementExportRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the delay after which the client may retry.
+     *
+     * @return the retry after
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banking.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a transfer is shed because the service is at its admission limit.
+ */
+public class TransferRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Instantiates a new Transfer rejected exception.
+     *
+     * @param message    the message
+     * @param retryAfter the delay after which the client may retry
+     */
+    public TransferRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the delay after which the client may retry.
+     *
+     * @return the retry after
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
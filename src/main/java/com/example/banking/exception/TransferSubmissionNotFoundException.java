@@ -0,0 +1,9 @@
+package com.example.banking.exception;
+
+import java.util.UUID;
+
+public class TransferSubmissionNotFoundException extends RuntimeException {
+    public TransferSubmissionNotFoundException(UUID id) {
+        super("Transfer not found: " + id);
+    }
+}
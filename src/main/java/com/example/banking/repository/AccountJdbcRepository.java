@@ -0,0 +1,82 @@
+package com.example.banking.repository;
+
+import com.example.banking.exception.JournalHeadMovedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The type Account jdbc repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountJdbcRepository {
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE account SET balance = ?, journal_seq = ?, journal_hash = ?, version = version + 1 "
+                    + "WHERE id = ? AND journal_seq = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The new balance of an account and the head of its journal chain after the change.
+     *
+     * @param balance            the balance
+     * @param expectedJournalSeq the sequence number of the head the change was computed from
+     * @param journalSeq         the sequence number of the last journal entry
+     * @param journalHash        the hash of the last journal entry
+     */
+    public record BalanceUpdate(BigDecimal balance, long expectedJournalSeq, long journalSeq, byte[] journalHash) {
+
+        /**
+         * Combines this update with a later one computed on top of it.
+         *
+         * @param next the later update
+         * @return the later balance and head, still expecting the head this update started from
+         */
+        public BalanceUpdate then(BalanceUpdate next) {
+            return new BalanceUpdate(next.balance(), expectedJournalSeq, next.journalSeq(), next.journalHash());
+        }
+    }
+
+    /**
+     * Overwrites account balances and journal chain heads using JDBC batches.
+     * <p>
+     * Each row is only written if its journal head is still the one the update was computed from.
+     * Any other head means the balance was changed behind the caller's back, and overwriting it
+     * would lose that change.
+     *
+     * @param balances  the new balance per account id
+     * @param batchSize the maximum number of statements per batch
+     * @throws JournalHeadMovedException if the journal head of an account moved
+     */
+    public void updateBalances(Map<UUID, BalanceUpdate> balances, int batchSize) {
+        if (balances.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, BalanceUpdate>> rows = List.copyOf(balances.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, rows, batchSize, (ps, entry) -> {
+            ps.setBigDecimal(1, entry.getValue().balance());
+            ps.setLong(2, entry.getValue().journalSeq());
+            ps.setBytes(3, entry.getValue().journalHash());
+            ps.setObject(4, entry.getKey());
+            ps.setLong(5, entry.getValue().expectedJournalSeq());
+        });
+
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    Map.Entry<UUID, BalanceUpdate> entry = rows.get(row);
+                    throw new JournalHeadMovedException(entry.getKey(), entry.getValue().expectedJournalSeq());
+                }
+                row++;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.banking.repository;
+
+import com.example.banking.util.CurrencyCode;
+
+import java.util.UUID;
+
+/**
+ * The immutable attributes of an account, read without its balance.
+ *
+ * @param id       the id
+ * @param clientId the client id
+ * @param currency the currency, compared by identity
+ */
+public record AccountMetadata(UUID id, String clientId, CurrencyCode currency) {}
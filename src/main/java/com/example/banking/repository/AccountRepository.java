@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,6 +27,28 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdWithLock(@Param("id") UUID id);
 
+    /**
+     * Find all by id with lock list.
+     * <p>
+     * Rows are locked in id order, the same order as {@link com.example.banking.util.LockOrder#ACCOUNT_IDS}.
+     *
+     * @param ids the ids
+     * @return the list
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdWithLock(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Find metadata by id optional.
+     *
+     * @param id the id
+     * @return the optional
+     */
+    @Query("SELECT new com.example.banking.repository.AccountMetadata(a.id, a.clientId, a.currency) " +
+            "FROM Account a WHERE a.id = :id")
+    Optional<AccountMetadata> findMetadataById(@Param("id") UUID id);
+
     /**
      * Find by client id list.
      *
@@ -33,4 +56,37 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
      * @return the list
      */
     List<Account> findByClientId(String clientId);
+
+    /**
+     * Find views by client id list.
+     * <p>
+     * Only the columns of the response are selected, so no entity is hydrated or managed.
+     *
+     * @param clientId the client id
+     * @return the list
+     */
+    @Query("SELECT new com.example.banking.repository.AccountView(a.id, a.currency, a.balance, a.createdAt, a.version) " +
+            "FROM Account a WHERE a.clientId = :clientId")
+    List<AccountView> findViewsByClientId(@Param("clientId") String clientId);
+
+    /**
+     * Find the versions of the accounts of a client.
+     * <p>
+     * Answered from the index on client id alone, without reading account columns.
+     *
+     * @param clientId the client id
+     * @return the number of accounts and the sum of their versions
+     */
+    @Query("SELECT new com.example.banking.repository.ClientAccountsVersion(count(a), coalesce(sum(a.version), 0L)) " +
+            "FROM Account a WHERE a.clientId = :clientId")
+    ClientAccountsVersion findVersionByClientId(@Param("clientId") String clientId);
+
+    /**
+     * Find version by id optional.
+     *
+     * @param id the id
+     * @return the version, empty if the account does not exist
+     */
+    @Query("SELECT a.version FROM Account a WHERE a.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
 }
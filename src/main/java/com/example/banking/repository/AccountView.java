@@ -0,0 +1,18 @@
+package com.example.banking.repository;
+
+import com.example.banking.util.CurrencyCode;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The columns of an account shown to its client, read without the entity.
+ *
+ * @param id        the id
+ * @param currency  the currency
+ * @param balance   the balance
+ * @param createdAt the creation timestamp
+ * @param version   the row version, bumped by every balance update
+ */
+public record AccountView(UUID id, CurrencyCode currency, BigDecimal balance, Instant createdAt, long version) {}
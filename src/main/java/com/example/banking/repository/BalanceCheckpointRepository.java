@@ -0,0 +1,154 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The type Balance checkpoint repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceCheckpointRepository {
+
+    /**
+     * Lowest account id, to start paging accounts from.
+     */
+    public static final UUID FIRST_ACCOUNT_ID = new UUID(0, 0);
+
+    // Rolls the latest checkpoint of each account forward to the cutoff, or derives the first one from
+    // the current balance. Accounts without journal entries since their latest checkpoint are skipped.
+    private static final String CHECKPOINT_SQL = """
+            WITH p AS (SELECT CAST(? AS TIMESTAMP) AS cutoff)
+            INSERT INTO account_balance_checkpoint (account_id, as_of, balance)
+            SELECT a.id, p.cutoff, CASE
+                WHEN c.as_of IS NULL THEN a.balance - COALESCE((
+                    SELECT SUM(t.amount) FROM account_transaction t
+                    WHERE t.account_id = a.id AND t.created_at > p.cutoff), 0)
+                ELSE c.balance + COALESCE((
+                    SELECT SUM(t.amount) FROM account_transaction t
+                    WHERE t.account_id = a.id AND t.created_at > c.as_of AND t.created_at <= p.cutoff), 0)
+                END
+            FROM p CROSS JOIN account a
+            LEFT JOIN LATERAL (
+                SELECT as_of, balance FROM account_balance_checkpoint
+                WHERE account_id = a.id ORDER BY as_of DESC LIMIT 1
+            ) c ON TRUE
+            WHERE a.id = ANY (?)
+              AND a.created_at <= p.cutoff
+              AND (c.as_of IS NULL OR (c.as_of < p.cutoff AND EXISTS (
+                    SELECT 1 FROM account_transaction t
+                    WHERE t.account_id = a.id AND t.created_at > c.as_of AND t.created_at <= p.cutoff)))
+            ON CONFLICT DO NOTHING""";
+
+    private static final RowMapper<Checkpoint> ROW_MAPPER = (rs, rowNum) -> new Checkpoint(
+            rs.getObject("account_id", UUID.class),
+            rs.getTimestamp("as_of").toInstant(),
+            rs.getBigDecimal("balance"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The balance of an account at a point in time.
+     *
+     * @param accountId the account id
+     * @param asOf      the point in time, journal entries created up to and including it are counted
+     * @param balance   the balance
+     */
+    public record Checkpoint(UUID accountId, Instant asOf, BigDecimal balance) {}
+
+    /**
+     * Gets a page of account ids, in id order.
+     *
+     * @param after the last id of the previous page, exclusive
+     * @param limit the maximum number of ids
+     * @return the account ids
+     */
+    public List<UUID> findAccountIdsAfter(UUID after, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM account WHERE id > ? ORDER BY id LIMIT ?", UUID.class, after, limit);
+    }
+
+    /**
+     * Writes a checkpoint at the cutoff for each of the accounts that had journal entries since
+     * their latest one.
+     *
+     * @param accountIds the account ids
+     * @param cutoff     the point in time of the new checkpoints
+     * @return the number of checkpoints written
+     */
+    public int checkpoint(List<UUID> accountIds, Instant cutoff) {
+        return jdbcTemplate.update(CHECKPOINT_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.from(cutoff));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", accountIds.toArray()));
+        });
+    }
+
+    /**
+     * Finds the latest checkpoint of an account taken at or before a point in time.
+     *
+     * @param accountId the account id
+     * @param at        the point in time
+     * @return the checkpoint
+     */
+    public Optional<Checkpoint> findLatestAtOrBefore(UUID accountId, Instant at) {
+        return jdbcTemplate.query("""
+                        SELECT account_id, as_of, balance FROM account_balance_checkpoint
+                        WHERE account_id = ? AND as_of <= ? ORDER BY as_of DESC LIMIT 1""",
+                ROW_MAPPER, accountId, Timestamp.from(at)).stream().findFirst();
+    }
+
+    /**
+     * Finds the earliest checkpoint of an account taken after a point in time.
+     *
+     * @param accountId the account id
+     * @param at        the point in time
+     * @return the checkpoint
+     */
+    public Optional<Checkpoint> findEarliestAfter(UUID accountId, Instant at) {
+        return jdbcTemplate.query("""
+                        SELECT account_id, as_of, balance FROM account_balance_checkpoint
+                        WHERE account_id = ? AND as_of > ? ORDER BY as_of LIMIT 1""",
+                ROW_MAPPER, accountId, Timestamp.from(at)).stream().findFirst();
+    }
+
+    /**
+     * Sums the journal entries of an account created in a time range.
+     *
+     * @param accountId the account id
+     * @param after     the start of the range, exclusive
+     * @param until     the end of the range, inclusive
+     * @return the sum, zero without entries
+     */
+    public BigDecimal sumAmounts(UUID accountId, Instant after, Instant until) {
+        return jdbcTemplate.queryForObject("""
+                        SELECT COALESCE(SUM(amount), 0) FROM account_transaction
+                        WHERE account_id = ? AND created_at > ? AND created_at <= ?""",
+                BigDecimal.class, accountId, Timestamp.from(after), Timestamp.from(until));
+    }
+
+    /**
+     * Derives the balance of an account at a point in time from its current balance, for accounts
+     * without any checkpoint yet.
+     *
+     * @param accountId the account id
+     * @param at        the point in time
+     * @return the balance, empty if the account does not exist
+     */
+    public Optional<BigDecimal> balanceFromCurrent(UUID accountId, Instant at) {
+        return jdbcTemplate.queryForList("""
+                        SELECT a.balance - COALESCE((
+                            SELECT SUM(t.amount) FROM account_transaction t
+                            WHERE t.account_id = a.id AND t.created_at > ?), 0)
+                        FROM account a WHERE a.id = ?""",
+                BigDecimal.class, Timestamp.from(at), accountId).stream().findFirst();
+    }
+}
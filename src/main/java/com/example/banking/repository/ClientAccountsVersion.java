@@ -0,0 +1,22 @@
+package com.example.banking.repository;
+
+/**
+ * Version of the account list of a client.
+ * <p>
+ * Accounts are never deleted and their versions only grow, so any change to the list changes either
+ * the number of accounts or the sum of their versions.
+ *
+ * @param accounts the number of accounts
+ * @param versions the sum of the account versions
+ */
+public record ClientAccountsVersion(long accounts, long versions) {
+
+    /**
+     * Gets the entity tag of the account list.
+     *
+     * @return the tag, unquoted
+     */
+    public String etag() {
+        return accounts + "-" + versions;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The type Exchange rate snapshot repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExchangeRateSnapshotRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A stored rate table.
+     *
+     * @param rates     the serialized rates
+     * @param fetchedAt when the rates were fetched
+     */
+    public record StoredSnapshot(String rates, Instant fetchedAt) {}
+
+    /**
+     * Takes the lease on refreshing the rate table of a base currency.
+     * <p>
+     * The lease is granted if nobody holds it, it expired, or the owner already holds it, so the
+     * refreshing node stays the same as long as it refreshes successfully. A lease still held by the
+     * owner is not extended here, only by {@link #moveRefreshLease} once a refresh succeeded.
+     *
+     * @param baseCurrency the base currency
+     * @param owner        the node asking for the lease
+     * @param now          the current time
+     * @param leaseUntil   the end of the lease if taken anew
+     * @return true if the owner holds the lease
+     */
+    public boolean claimRefresh(String baseCurrency, String owner, Instant now, Instant leaseUntil) {
+        Timestamp timestamp = Timestamp.from(now);
+        return jdbcTemplate.update("""
+                        INSERT INTO exchange_rate_snapshot (base_currency, refresh_owner, refresh_lease_until)
+                        VALUES (?, ?, ?)
+                        ON CONFLICT (base_currency) DO UPDATE
+                        SET refresh_owner = EXCLUDED.refresh_owner,
+                            refresh_lease_until = CASE WHEN exchange_rate_snapshot.refresh_lease_until < ?
+                                THEN EXCLUDED.refresh_lease_until ELSE exchange_rate_snapshot.refresh_lease_until END
+                        WHERE exchange_rate_snapshot.refresh_owner = EXCLUDED.refresh_owner
+                           OR exchange_rate_snapshot.refresh_lease_until < ?""",
+                baseCurrency, owner, Timestamp.from(leaseUntil), timestamp, timestamp) == 1;
+    }
+
+    /**
+     * Moves the end of a lease held by the owner.
+     * <p>
+     * Extends the lease after a successful refresh, or releases it after a failed one by ending it now,
+     * so that another node may take over on its next attempt.
+     *
+     * @param baseCurrency the base currency
+     * @param owner        the node holding the lease
+     * @param leaseUntil   the new end of the lease
+     */
+    public void moveRefreshLease(String baseCurrency, String owner, Instant leaseUntil) {
+        jdbcTemplate.update(
+                "UPDATE exchange_rate_snapshot SET refresh_lease_until = ? WHERE base_currency = ? AND refresh_owner = ?",
+                Timestamp.from(leaseUntil), baseCurrency, owner);
+    }
+
+    /**
+     * Stores a rate table unless a newer one is stored already.
+     *
+     * @param baseCurrency the base currency
+     * @param rates        the serialized rates
+     * @param fetchedAt    when the rates were fetched
+     * @return true if the table was stored
+     */
+    public boolean save(String baseCurrency, String rates, Instant fetchedAt) {
+        Timestamp timestamp = Timestamp.from(fetchedAt);
+        return jdbcTemplate.update(
+                "UPDATE exchange_rate_snapshot SET rates = ?, fetched_at = ? " +
+                        "WHERE base_currency = ? AND (fetched_at IS NULL OR fetched_at < ?)",
+                rates, timestamp, baseCurrency, timestamp) == 1;
+    }
+
+    /**
+     * Find by base currency optional.
+     *
+     * @param baseCurrency the base currency
+     * @return the stored rate table, empty if none was stored yet
+     */
+    public Optional<StoredSnapshot> findByBaseCurrency(String baseCurrency) {
+        return jdbcTemplate.query(
+                "SELECT rates, fetched_at FROM exchange_rate_snapshot WHERE base_currency = ? AND rates IS NOT NULL",
+                (rs, rowNum) -> new StoredSnapshot(rs.getString("rates"), rs.getTimestamp("fetched_at").toInstant()),
+                baseCurrency
+        ).stream().findFirst();
+    }
+}
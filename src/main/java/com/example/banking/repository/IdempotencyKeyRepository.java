@@ -0,0 +1,98 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The type Idempotency key repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A stored idempotency key.
+     *
+     * @param requestHash  the hash of the request first sent with the key
+     * @param responseBody the serialized response, null while the request is being processed
+     */
+    public record StoredKey(String requestHash, String responseBody) {}
+
+    /**
+     * Claims a key of a client. The claim is visible to other requests as soon as it committed,
+     * as a key without a response.
+     *
+     * @param clientId    the client id
+     * @param key         the key
+     * @param requestHash the request hash
+     * @param createdAt   the creation timestamp
+     * @return false if the key was already claimed
+     */
+    public boolean claim(String clientId, String key, String requestHash, Instant createdAt) {
+        return jdbcTemplate.update(
+                "INSERT INTO transfer_idempotency_key (client_id, idempotency_key, request_hash, created_at) " +
+                        "VALUES (?, ?, ?, ?) ON CONFLICT (client_id, idempotency_key) DO NOTHING",
+                clientId, key, requestHash, Timestamp.from(createdAt)) == 1;
+    }
+
+    /**
+     * Stores the response of a claimed key.
+     *
+     * @param clientId     the client id
+     * @param key          the key
+     * @param responseBody the serialized response
+     */
+    public void complete(String clientId, String key, String responseBody) {
+        jdbcTemplate.update(
+                "UPDATE transfer_idempotency_key SET response_body = ? WHERE client_id = ? AND idempotency_key = ?",
+                responseBody, clientId, key);
+    }
+
+    /**
+     * Gives up the claim on a key whose request failed without a response, so that it can be sent again.
+     *
+     * @param clientId the client id
+     * @param key      the key
+     */
+    public void release(String clientId, String key) {
+        jdbcTemplate.update(
+                "DELETE FROM transfer_idempotency_key " +
+                        "WHERE client_id = ? AND idempotency_key = ? AND response_body IS NULL",
+                clientId, key);
+    }
+
+    /**
+     * Find by key optional.
+     *
+     * @param clientId the client id
+     * @param key      the key
+     * @return the optional
+     */
+    public Optional<StoredKey> findByKey(String clientId, String key) {
+        return jdbcTemplate.query(
+                "SELECT request_hash, response_body FROM transfer_idempotency_key " +
+                        "WHERE client_id = ? AND idempotency_key = ?",
+                (rs, rowNum) -> new StoredKey(rs.getString("request_hash"), rs.getString("response_body")),
+                clientId, key
+        ).stream().findFirst();
+    }
+
+    /**
+     * Delete created before int.
+     *
+     * @param cutoff the cutoff
+     * @return the number of deleted keys
+     */
+    public int deleteCreatedBefore(Instant cutoff) {
+        return jdbcTemplate.update(
+                "DELETE FROM transfer_idempotency_key WHERE created_at < ?",
+                Timestamp.from(cutoff));
+    }
+}
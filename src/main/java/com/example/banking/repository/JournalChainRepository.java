@@ -0,0 +1,144 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The type Journal chain repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JournalChainRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The head of an account's chain together with the last entry verified so far.
+     *
+     * @param accountId    the account id
+     * @param headSeq      the sequence number of the last entry
+     * @param headHash     the hash of the last entry
+     * @param verifiedSeq  the sequence number of the last verified entry, 0 if none
+     * @param verifiedHash the hash of the last verified entry, null if none
+     */
+    public record ChainHead(UUID accountId, long headSeq, byte[] headHash, long verifiedSeq, byte[] verifiedHash) {}
+
+    /**
+     * A chained journal entry, with the fields covered by its hash.
+     *
+     * @param id            the entry id
+     * @param accountId     the account id
+     * @param seq           the sequence number
+     * @param hash          the stored hash
+     * @param amount        the signed amount
+     * @param currency      the currency
+     * @param type          the transaction type
+     * @param createdAt     the creation timestamp
+     * @param correlationId the correlation id
+     * @param description   the description
+     */
+    public record ChainedEntry(
+            UUID id,
+            UUID accountId,
+            long seq,
+            byte[] hash,
+            BigDecimal amount,
+            String currency,
+            String type,
+            Instant createdAt,
+            UUID correlationId,
+            String description
+    ) {}
+
+    /**
+     * Gets a page of accounts whose chain grew since it was last verified, in id order.
+     *
+     * @param after the last id of the previous page, exclusive
+     * @param upTo  the end of the id range, inclusive
+     * @param limit the maximum number of accounts
+     * @return the chain heads
+     */
+    public List<ChainHead> findUnverifiedAfter(UUID after, UUID upTo, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT a.id, a.journal_seq, a.journal_hash, c.verified_seq, c.verified_hash
+                        FROM account a
+                        LEFT JOIN journal_chain_checkpoint c ON c.account_id = a.id
+                        WHERE a.id > ? AND a.id <= ? AND a.journal_seq > COALESCE(c.verified_seq, 0)
+                        ORDER BY a.id
+                        LIMIT ?""",
+                (rs, rowNum) -> new ChainHead(
+                        rs.getObject("id", UUID.class),
+                        rs.getLong("journal_seq"),
+                        rs.getBytes("journal_hash"),
+                        rs.getLong("verified_seq"),
+                        rs.getBytes("verified_hash")),
+                after, upTo, limit);
+    }
+
+    /**
+     * Streams the entries appended to the chains since they were last verified, by account and
+     * sequence number.
+     *
+     * @param heads    the chain heads
+     * @param consumer the consumer
+     */
+    public void forEachUnverifiedEntry(List<ChainHead> heads, Consumer<ChainedEntry> consumer) {
+        UUID[] accountIds = heads.stream().map(ChainHead::accountId).toArray(UUID[]::new);
+        Long[] verifiedSeqs = heads.stream().map(ChainHead::verifiedSeq).toArray(Long[]::new);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                    SELECT t.id, t.account_id, t.chain_seq, t.chain_hash, t.amount, t.currency, t.type,
+                           t.created_at, t.correlation_id, t.description
+                    FROM unnest(?, ?) AS v (account_id, verified_seq)
+                    JOIN account_transaction t ON t.account_id = v.account_id AND t.chain_seq > v.verified_seq
+                    ORDER BY t.account_id, t.chain_seq""");
+            ps.setArray(1, connection.createArrayOf("uuid", accountIds));
+            ps.setArray(2, connection.createArrayOf("bigint", verifiedSeqs));
+            return ps;
+        }, rs -> {
+            consumer.accept(new ChainedEntry(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("account_id", UUID.class),
+                    rs.getLong("chain_seq"),
+                    rs.getBytes("chain_hash"),
+                    rs.getBigDecimal("amount"),
+                    rs.getString("currency"),
+                    rs.getString("type"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getObject("correlation_id", UUID.class),
+                    rs.getString("description")));
+        });
+    }
+
+    /**
+     * Records the heads up to which chains were verified.
+     *
+     * @param heads      the verified heads
+     * @param verifiedAt the verification timestamp
+     */
+    public void saveCheckpoints(List<ChainHead> heads, Instant verifiedAt) {
+        Timestamp timestamp = Timestamp.from(verifiedAt);
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO journal_chain_checkpoint (account_id, verified_seq, verified_hash, verified_at)
+                        VALUES (?, ?, ?, ?)
+                        ON CONFLICT (account_id) DO UPDATE
+                        SET verified_seq = EXCLUDED.verified_seq, verified_hash = EXCLUDED.verified_hash,
+                            verified_at = EXCLUDED.verified_at
+                        WHERE journal_chain_checkpoint.verified_seq < EXCLUDED.verified_seq""",
+                heads, heads.size(), (ps, head) -> {
+                    ps.setObject(1, head.accountId());
+                    ps.setLong(2, head.headSeq());
+                    ps.setBytes(3, head.headHash());
+                    ps.setTimestamp(4, timestamp);
+                });
+    }
+}
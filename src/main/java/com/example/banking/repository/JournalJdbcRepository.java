@@ -0,0 +1,54 @@
+package com.example.banking.repository;
+
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+
+/**
+ * The type Journal jdbc repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JournalJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO account_transaction " +
+                    "(id, account_id, amount, currency, type, created_at, description, correlation_id, " +
+                    "chain_seq, chain_hash) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts journal entries using JDBC batches, bypassing the persistence context.
+     * Entries without an id get one assigned before they are written.
+     *
+     * @param entries   the entries
+     * @param batchSize the maximum number of statements per batch
+     */
+    public void insertAll(Collection<AccountTransaction> entries, int batchSize) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, batchSize, (ps, entry) -> {
+            if (entry.getId() == null) {
+                entry.setId(UuidV7.next());
+            }
+            ps.setObject(1, entry.getId());
+            ps.setObject(2, entry.getAccount().getId());
+            ps.setBigDecimal(3, entry.getAmount());
+            ps.setString(4, entry.getCurrency().code());
+            ps.setString(5, entry.getType().name());
+            ps.setTimestamp(6, Timestamp.from(entry.getCreatedAt()));
+            ps.setString(7, entry.getDescription());
+            ps.setObject(8, entry.getCorrelationId());
+            ps.setObject(9, entry.getChainSeq());
+            ps.setBytes(10, entry.getChainHash());
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The type Statement jdbc repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatementJdbcRepository {
+
+    private static final String SELECT_SQL =
+            "SELECT id, amount, currency, type, created_at, description, correlation_id " +
+                    "FROM account_transaction WHERE account_id = ? ORDER BY created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One line of an account statement.
+     *
+     * @param id            the transaction id
+     * @param amount        the amount
+     * @param currency      the currency
+     * @param type          the transaction type
+     * @param createdAt     the creation time
+     * @param description   the description
+     * @param correlationId the correlation id of the transfer
+     */
+    public record StatementLine(
+            UUID id,
+            BigDecimal amount,
+            String currency,
+            String type,
+            Instant createdAt,
+            String description,
+            UUID correlationId
+    ) {}
+
+    /**
+     * Reads the whole history of an account, oldest first, through a forward-only cursor.
+     * <p>
+     * PostgreSQL only honours the fetch size with auto-commit off, so this must run in a transaction;
+     * otherwise the driver loads the complete result into memory before the first row is returned.
+     *
+     * @param accountId the account id
+     * @param fetchSize the number of rows fetched per round trip
+     * @param consumer  the consumer, called once per row
+     * @return the number of rows read
+     */
+    public long forEachByAccountId(UUID accountId, int fetchSize, Consumer<StatementLine> consumer) {
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, accountId);
+            return ps;
+        }, rs -> {
+            consumer.accept(new StatementLine(
+                    rs.getObject("id", UUID.class),
+                    rs.getBigDecimal("amount"),
+                    rs.getString("currency"),
+                    rs.getString("type"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getString("description"),
+                    rs.getObject("correlation_id", UUID.class)
+            ));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+}
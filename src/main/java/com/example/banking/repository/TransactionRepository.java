@@ -3,10 +3,12 @@ package com.example.banking.repository;
 import com.example.banking.domain.AccountTransaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -26,4 +28,41 @@ public interface TransactionRepository extends JpaRepository<AccountTransaction,
             @Param("accountId") UUID accountId,
             Pageable pageable
     );
+
+    /**
+     * Find transactions by account id slice, without counting the whole history.
+     * Only the columns of the response are selected, so no entity is hydrated or managed.
+     *
+     * @param accountId the account id
+     * @param pageable  the pageable
+     * @return the slice
+     */
+    @Query("SELECT new com.example.banking.repository.TransactionView(t.id, t.amount, t.currency, t.type, " +
+            "t.createdAt, t.description, t.correlationId) FROM AccountTransaction t WHERE t.account.id = :accountId " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<TransactionView> findSliceByAccountId(
+            @Param("accountId") UUID accountId,
+            Pageable pageable
+    );
+
+    /**
+     * Find the transactions following a cursor, seeking on {@code (created_at, id)} instead of
+     * skipping rows, so every page costs the same. Only the columns of the response are selected.
+     *
+     * @param accountId the account id
+     * @param createdAt the creation timestamp of the cursor
+     * @param id        the id of the cursor
+     * @param pageable  the pageable, only its size is used
+     * @return the slice
+     */
+    @Query("SELECT new com.example.banking.repository.TransactionView(t.id, t.amount, t.currency, t.type, " +
+            "t.createdAt, t.description, t.correlationId) FROM AccountTransaction t WHERE t.account.id = :accountId " +
+            "AND (t.createdAt, t.id) < (:createdAt, :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<TransactionView> findSliceByAccountIdBefore(
+            @Param("accountId") UUID accountId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Pageable pageable
+    );
 }
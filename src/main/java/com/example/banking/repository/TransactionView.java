@@ -0,0 +1,29 @@
+package com.example.banking.repository;
+
+import com.example.banking.domain.AccountTransaction.TransactionType;
+import com.example.banking.util.CurrencyCode;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The columns of a journal entry shown in the transaction history, read without the entity.
+ *
+ * @param id            the id
+ * @param amount        the amount, negative for debits
+ * @param currency      the currency
+ * @param type          the type
+ * @param createdAt     the creation timestamp
+ * @param description   the description
+ * @param correlationId the correlation id of the transfer
+ */
+public record TransactionView(
+        UUID id,
+        BigDecimal amount,
+        CurrencyCode currency,
+        TransactionType type,
+        Instant createdAt,
+        String description,
+        UUID correlationId
+) {}
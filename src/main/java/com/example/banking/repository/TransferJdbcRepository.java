@@ -0,0 +1,116 @@
+package com.example.banking.repository;
+
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The type Transfer jdbc repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferJdbcRepository {
+
+    // Locks both rows in id order to prevent deadlocks, then moves the amounts only if both accounts exist
+    // and the sender covers the debit, advancing the journal chain of each account, and inserts the chained
+    // journal entries only if the balances moved. The one-time filters of the update run the locking CTE
+    // before any row is written. Every locked row is returned, with its new balance if the transfer applied.
+    private static final String TRANSFER_SQL = """
+            WITH locked AS MATERIALIZED (
+                SELECT id, balance FROM account WHERE id IN (?, ?) ORDER BY id FOR UPDATE
+            ), applied AS (
+                UPDATE account a SET
+                    balance = a.balance + d.amount,
+                    journal_seq = a.journal_seq + 1,
+                    journal_hash = journal_entry_hash(a.journal_hash, a.journal_seq + 1, d.entry_id, a.id, d.amount,
+                            d.currency, d.type, d.created_at, d.correlation_id, d.description),
+                    version = a.version + 1
+                FROM (VALUES %1$s, %1$s) AS d (entry_id, account_id, amount, currency, type, created_at, description, correlation_id)
+                WHERE a.id = d.account_id
+                  AND (SELECT count(*) FROM locked) = 2
+                  AND (SELECT l.balance FROM locked l WHERE l.id = ?) >= ?
+                RETURNING a.id, a.balance, a.journal_seq, a.journal_hash,
+                    d.entry_id, d.amount, d.currency, d.type, d.created_at, d.description, d.correlation_id
+            ), journal AS (
+                INSERT INTO account_transaction
+                    (id, account_id, amount, currency, type, created_at, description, correlation_id, chain_seq, chain_hash)
+                SELECT entry_id, id, amount, currency, type, created_at, description, correlation_id, journal_seq, journal_hash
+                FROM applied
+                WHERE (SELECT count(*) FROM applied) = 2
+            )
+            SELECT l.id, COALESCE(a.balance, l.balance) AS balance, a.id IS NOT NULL AS applied
+            FROM locked l LEFT JOIN applied a ON a.id = l.id"""
+            .formatted("(CAST(? AS UUID), CAST(? AS UUID), CAST(? AS NUMERIC), CAST(? AS VARCHAR), "
+                    + "CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR), CAST(? AS UUID))");
+
+    private static final RowMapper<LockedBalance> ROW_MAPPER = (rs, rowNum) -> new LockedBalance(
+            rs.getObject("id", UUID.class),
+            rs.getBigDecimal("balance"),
+            rs.getBoolean("applied"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The balance of an account locked by a transfer.
+     *
+     * @param accountId the account id
+     * @param balance   the balance after the transfer if it applied, the unchanged balance otherwise
+     * @param applied   whether the transfer changed the balance
+     */
+    public record LockedBalance(UUID accountId, BigDecimal balance, boolean applied) {}
+
+    /**
+     * Moves an amount between two accounts of the same currency and records the journal entries,
+     * in a single statement. Nothing is written unless both accounts exist and the sender's balance
+     * covers the amount. Entries without an id get one assigned before they are written; they are
+     * chained by the database, their own chain fields are left unset.
+     *
+     * @param senderId   the sender account id
+     * @param receiverId the receiver account id
+     * @param amount     the amount
+     * @param entries    the debit and credit entries, in that order
+     * @return the balances of the accounts found, in id order
+     */
+    public List<LockedBalance> transfer(
+            UUID senderId,
+            UUID receiverId,
+            BigDecimal amount,
+            List<AccountTransaction> entries
+    ) {
+        return jdbcTemplate.query(TRANSFER_SQL, ps -> {
+            int i = 1;
+            ps.setObject(i++, senderId);
+            ps.setObject(i++, receiverId);
+            for (AccountTransaction entry : entries) {
+                i = bind(ps, i, entry);
+            }
+            ps.setObject(i++, senderId);
+            ps.setBigDecimal(i, amount);
+        }, ROW_MAPPER);
+    }
+
+    private static int bind(PreparedStatement ps, int i, AccountTransaction entry) throws SQLException {
+        if (entry.getId() == null) {
+            entry.setId(UuidV7.next());
+        }
+        ps.setObject(i++, entry.getId());
+        ps.setObject(i++, entry.getAccount().getId());
+        ps.setBigDecimal(i++, entry.getAmount());
+        ps.setString(i++, entry.getCurrency().code());
+        ps.setString(i++, entry.getType().name());
+        ps.setTimestamp(i++, Timestamp.from(entry.getCreatedAt()));
+        ps.setString(i++, entry.getDescription());
+        ps.setObject(i++, entry.getCorrelationId());
+        return i;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.banking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The type Transfer outbox repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferOutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A message waiting in the outbox.
+     *
+     * @param id            the id, increasing in insertion order
+     * @param correlationId the correlation id of the transfer
+     * @param payload       the serialized event
+     */
+    public record OutboxMessage(long id, UUID correlationId, String payload) {}
+
+    /**
+     * Appends messages in JDBC batches.
+     *
+     * @param messages  the correlation ids and payloads, the ids are ignored
+     * @param createdAt the creation timestamp
+     * @param batchSize the maximum number of statements per batch
+     */
+    public void appendAll(Collection<OutboxMessage> messages, Instant createdAt, int batchSize) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(createdAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transfer_outbox (correlation_id, payload, created_at) VALUES (?, ?, ?)",
+                messages, batchSize, (ps, message) -> {
+                    ps.setObject(1, message.correlationId());
+                    ps.setString(2, message.payload());
+                    ps.setTimestamp(3, timestamp);
+                });
+    }
+
+    /**
+     * Locks the oldest messages for the current transaction.
+     * Messages locked by another relay are skipped, so several relays can drain concurrently.
+     *
+     * @param limit the maximum number of messages
+     * @return the messages, oldest first
+     */
+    public List<OutboxMessage> lockOldest(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, correlation_id, payload FROM transfer_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"), rs.getObject("correlation_id", UUID.class), rs.getString("payload")),
+                limit);
+    }
+
+    /**
+     * Deletes relayed messages.
+     *
+     * @param messages the messages
+     */
+    public void deleteAll(List<OutboxMessage> messages) {
+        jdbcTemplate.update(
+                "DELETE FROM transfer_outbox WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf(
+                        "bigint", messages.stream().map(OutboxMessage::id).toArray())));
+    }
+}
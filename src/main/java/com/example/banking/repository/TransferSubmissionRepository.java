@@ -0,0 +1,173 @@
+package com.example.banking.repository;
+
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.util.CurrencyCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The type Transfer submission repository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferSubmissionRepository {
+
+    private static final RowMapper<Submission> ROW_MAPPER = (rs, rowNum) -> new Submission(
+            rs.getObject("id", UUID.class),
+            new TransferRequest(
+                    rs.getObject("from_account_id", UUID.class),
+                    rs.getObject("to_account_id", UUID.class),
+                    rs.getBigDecimal("amount"),
+                    CurrencyCode.of(rs.getString("currency"))),
+            Status.valueOf(rs.getString("status")),
+            rs.getInt("attempts"),
+            rs.getString("response_body"),
+            rs.getString("error"),
+            rs.getTimestamp("created_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The processing status of a submission.
+     */
+    public enum Status {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
+
+    /**
+     * A submitted transfer.
+     *
+     * @param id           the id
+     * @param request      the transfer request
+     * @param status       the status
+     * @param attempts     the number of times the submission was claimed for processing
+     * @param responseBody the serialized transfer response once completed
+     * @param error        the error once failed
+     * @param createdAt    the submission timestamp
+     */
+    public record Submission(
+            UUID id,
+            TransferRequest request,
+            Status status,
+            int attempts,
+            String responseBody,
+            String error,
+            Instant createdAt
+    ) {}
+
+    /**
+     * Inserts a pending submission.
+     *
+     * @param id        the id
+     * @param request   the request
+     * @param createdAt the creation timestamp
+     */
+    public void insert(UUID id, TransferRequest request, Instant createdAt) {
+        Timestamp timestamp = Timestamp.from(createdAt);
+        jdbcTemplate.update(
+                "INSERT INTO transfer_submission " +
+                        "(id, from_account_id, to_account_id, amount, currency, status, created_at, updated_at, " +
+                        "next_attempt_at) VALUES (?, ?, ?, ?, ?, 'PENDING', ?, ?, ?)",
+                id, request.fromAccountId(), request.toAccountId(), request.amount(), request.currency().code(),
+                timestamp, timestamp, timestamp);
+    }
+
+    /**
+     * Moves the oldest pending submissions due for an attempt to processing, counting the attempt,
+     * and returns them. Rows claimed by another worker at the same time are skipped.
+     *
+     * @param limit the maximum number of submissions
+     * @return the claimed submissions, oldest first
+     */
+    public List<Submission> claimPending(int limit) {
+        Timestamp now = now();
+        return jdbcTemplate.query(
+                "UPDATE transfer_submission SET status = 'PROCESSING', attempts = attempts + 1, updated_at = ? " +
+                        "WHERE id IN (SELECT id FROM transfer_submission " +
+                        "WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+                        "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING *",
+                ROW_MAPPER, now, now, limit
+        ).stream().sorted(Comparator.comparing(Submission::createdAt)).toList();
+    }
+
+    /**
+     * Marks a submission completed.
+     *
+     * @param id           the id
+     * @param responseBody the serialized transfer response
+     */
+    public void complete(UUID id, String responseBody) {
+        jdbcTemplate.update(
+                "UPDATE transfer_submission SET status = 'COMPLETED', response_body = ?, updated_at = ? " +
+                        "WHERE id = ?",
+                responseBody, now(), id);
+    }
+
+    /**
+     * Marks a submission failed.
+     *
+     * @param id    the id
+     * @param error the error
+     */
+    public void fail(UUID id, String error) {
+        jdbcTemplate.update(
+                "UPDATE transfer_submission SET status = 'FAILED', error = ?, updated_at = ? WHERE id = ?",
+                error, now(), id);
+    }
+
+    /**
+     * Puts a submission back in the queue for a later attempt.
+     *
+     * @param id            the id
+     * @param nextAttemptAt the earliest time of the next attempt
+     */
+    public void retry(UUID id, Instant nextAttemptAt) {
+        jdbcTemplate.update(
+                "UPDATE transfer_submission SET status = 'PENDING', next_attempt_at = ?, updated_at = ? WHERE id = ?",
+                Timestamp.from(nextAttemptAt), now(), id);
+    }
+
+    /**
+     * Puts submissions left in processing by a stopped worker back in the queue, or fails them
+     * once they used up their attempts.
+     *
+     * @param cutoff      submissions claimed before this instant are released
+     * @param maxAttempts the number of attempts after which a submission fails
+     * @return the number of released or failed submissions
+     */
+    public int releaseProcessingBefore(Instant cutoff, int maxAttempts) {
+        return jdbcTemplate.update(
+                "UPDATE transfer_submission SET " +
+                        "status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END, " +
+                        "error = CASE WHEN attempts >= ? THEN 'Abandoned after ' || attempts || ' attempts' END, " +
+                        "next_attempt_at = ?, updated_at = ? " +
+                        "WHERE status = 'PROCESSING' AND updated_at < ?",
+                maxAttempts, maxAttempts, now(), now(), Timestamp.from(cutoff));
+    }
+
+    /**
+     * Find by id optional.
+     *
+     * @param id the id
+     * @return the optional
+     */
+    public Optional<Submission> findById(UUID id) {
+        return jdbcTemplate.query("SELECT * FROM transfer_submission WHERE id = ?", ROW_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.banking.service;
+
+import com.example.banking.config.TransferProperties;
+import com.example.banking.config.TransferProperties.ConcurrencyMode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Chooses between optimistic and pessimistic concurrency control for a transfer.
+ * <p>
+ * In adaptive mode every optimistic attempt updates an exponentially weighted conflict rate of both
+ * accounts. Accounts above the threshold are locked instead; since locked transfers are not observed,
+ * their rate expires after the adaptive window and they are tried optimistically again.
+ */
+@Component
+public class AccountContentionTracker {
+
+    // Weight of the latest attempt, two conflicts in a row from zero cross a threshold of 0.3
+    private static final double ALPHA = 0.2;
+
+    private final TransferProperties.Concurrency settings;
+    private final Cache<UUID, ConflictRate> rates;
+
+    /**
+     * Instantiates a new Account contention tracker.
+     *
+     * @param properties the properties
+     */
+    public AccountContentionTracker(TransferProperties properties) {
+        this.settings = properties.concurrency();
+        this.rates = Caffeine.newBuilder()
+                .maximumSize(properties.accountCache().maximumSize())
+                .expireAfterWrite(settings.adaptiveWindow())
+                .build();
+    }
+
+    /**
+     * Tells whether a transfer between two accounts should run optimistically.
+     *
+     * @param fromAccountId the sender account id
+     * @param toAccountId   the receiver account id
+     * @return true to read without locks, false to lock the rows
+     */
+    public boolean optimistic(UUID fromAccountId, UUID toAccountId) {
+        return switch (settings.mode()) {
+            case PESSIMISTIC -> false;
+            case OPTIMISTIC -> true;
+            case ADAPTIVE -> rate(fromAccountId) <= settings.conflictThreshold()
+                    && rate(toAccountId) <= settings.conflictThreshold();
+        };
+    }
+
+    /**
+     * Records the outcome of an optimistic attempt.
+     *
+     * @param fromAccountId the sender account id
+     * @param toAccountId   the receiver account id
+     * @param conflicted    whether the attempt lost against a concurrent update
+     */
+    public void record(UUID fromAccountId, UUID toAccountId, boolean conflicted) {
+        if (settings.mode() != ConcurrencyMode.ADAPTIVE) {
+            return;
+        }
+        rates.asMap().compute(fromAccountId, (id, rate) -> ConflictRate.update(rate, conflicted));
+        rates.asMap().compute(toAccountId, (id, rate) -> ConflictRate.update(rate, conflicted));
+    }
+
+    double rate(UUID accountId) {
+        ConflictRate rate = rates.getIfPresent(accountId);
+        return rate == null ? 0 : rate.value();
+    }
+
+    private record ConflictRate(double value) {
+
+        static ConflictRate update(ConflictRate previous, boolean conflicted) {
+            double value = previous == null ? 0 : previous.value();
+            return new ConflictRate(value + ALPHA * ((conflicted ? 1 : 0) - value));
+        }
+    }
+}
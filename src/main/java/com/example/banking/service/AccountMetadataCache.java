@@ -0,0 +1,51 @@
+package com.example.banking.service;
+
+import com.example.banking.config.TransferProperties;
+import com.example.banking.exception.AccountNotFoundException;
+import com.example.banking.repository.AccountMetadata;
+import com.example.banking.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * In-process cache of {@link AccountMetadata}.
+ * <p>
+ * The client and currency of an account never change once it exists, so entries are only evicted
+ * by size. Unknown accounts are not cached.
+ */
+@Component
+public class AccountMetadataCache {
+
+    private final AccountRepository accountRepository;
+    private final Cache<UUID, AccountMetadata> cache;
+
+    /**
+     * Instantiates a new Account metadata cache.
+     *
+     * @param accountRepository the account repository
+     * @param properties        the properties
+     */
+    public AccountMetadataCache(AccountRepository accountRepository, TransferProperties properties) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.accountCache().maximumSize())
+                .build();
+    }
+
+    /**
+     * Gets the metadata of an account.
+     *
+     * @param accountId the account id
+     * @return the account metadata
+     */
+    public AccountMetadata get(UUID accountId) {
+        AccountMetadata metadata = cache.get(accountId, id -> accountRepository.findMetadataById(id).orElse(null));
+        if (metadata == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return metadata;
+    }
+}
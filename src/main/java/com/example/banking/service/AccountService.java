@@ -1,10 +1,16 @@
 package com.example.banking.service;
 
-import com.example.banking.domain.Account;
+import com.example.banking.config.CacheConfig;
+import com.example.banking.dto.AccountResponse;
+import com.example.banking.dto.ClientAccounts;
 import com.example.banking.exception.ClientNotFoundException;
 import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.AccountView;
+import com.example.banking.repository.ClientAccountsVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -19,15 +25,42 @@ public class AccountService {
 
     /**
      * Gets client accounts.
+     * <p>
+     * Served from the client accounts cache, which is evicted by {@link ClientAccountsCacheInvalidator}
+     * once a balance change of the client commits. Loading is synchronized per client, so an eviction
+     * waits for a concurrent load to finish and removes what it loaded. Misses read
+     * {@link AccountView} projections, so no entity is hydrated. The entity tag is computed from the
+     * same rows and cached with them, so a list is never served under the tag of another one.
      *
      * @param clientId the client id
      * @return the client accounts
      */
-    public List<Account> getClientAccounts(String clientId) {
-        List<Account> accounts = accountRepository.findByClientId(clientId);
+    @Cacheable(cacheNames = CacheConfig.CLIENT_ACCOUNTS, sync = true)
+    @Transactional(readOnly = true)
+    public ClientAccounts getClientAccounts(String clientId) {
+        List<AccountView> accounts = accountRepository.findViewsByClientId(clientId);
         if (accounts.isEmpty()) {
             throw new ClientNotFoundException(clientId);
         }
-        return accounts;
+        ClientAccountsVersion version = new ClientAccountsVersion(
+                accounts.size(), accounts.stream().mapToLong(AccountView::version).sum());
+        return new ClientAccounts(
+                accounts.stream().map(AccountResponse::fromView).toList(),
+                version.etag());
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the entity tag of the client accounts without loading them.
+     *
+     * @param clientId the client id
+     * @return the entity tag, unquoted
+     */
+    @Transactional(readOnly = true)
+    public String getClientAccountsTag(String clientId) {
+        ClientAccountsVersion version = accountRepository.findVersionByClientId(clientId);
+        if (version.accounts() == 0) {
+            throw new ClientNotFoundException(clientId);
+        }
+        return version.etag();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BalanceCheckpointProperties;
+import com.example.banking.repository.BalanceCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes balance checkpoints incrementally from the journal.
+ * <p>
+ * Each run rolls the latest checkpoint of every account with new journal entries forward to a cutoff
+ * slightly in the past, so only entries since the previous run are read. Accounts are processed in
+ * pages of {@code batchSize}, one statement each. Runs of several instances may overlap: each
+ * checkpoint is computed from the database alone and duplicates are ignored.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceCheckpointJob {
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final BalanceCheckpointProperties properties;
+
+    /**
+     * Checkpoints on a fixed delay when enabled.
+     */
+    @Scheduled(fixedDelayString = "${banking.balance-checkpoints.interval:1h}")
+    public void checkpointPeriodically() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            checkpoint(Instant.now().minus(properties.settleDelay()));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write balance checkpoints, will retry", ex);
+        }
+    }
+
+    /**
+     * Writes a checkpoint at the cutoff for every account with journal entries since its latest one.
+     *
+     * @param cutoff the point in time of the checkpoints
+     * @return the number of checkpoints written
+     */
+    public int checkpoint(Instant cutoff) {
+        int written = 0;
+        UUID after = BalanceCheckpointRepository.FIRST_ACCOUNT_ID;
+        List<UUID> accountIds;
+        do {
+            accountIds = checkpointRepository.findAccountIdsAfter(after, properties.batchSize());
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            written += checkpointRepository.checkpoint(accountIds, cutoff);
+            after = accountIds.getLast();
+        } while (accountIds.size() == properties.batchSize());
+        log.info("Wrote {} balance checkpoints as of {}", written, cutoff);
+        return written;
+    }
+}
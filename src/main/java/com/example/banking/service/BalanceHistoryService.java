@@ -0,0 +1,81 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.BalanceResponse;
+import com.example.banking.exception.AccountNotFoundException;
+import com.example.banking.repository.AccountMetadata;
+import com.example.banking.repository.BalanceCheckpointRepository;
+import com.example.banking.repository.BalanceCheckpointRepository.Checkpoint;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Answers the balance of an account at a point in time.
+ * <p>
+ * The balance is the nearest checkpoint plus or minus the journal entries between it and the requested
+ * time, so the cost depends on the checkpoint interval and not on the length of the history. The
+ * queries run in one repeatable read transaction so that they all see the same journal.
+ */
+@Service
+public class BalanceHistoryService {
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final AccountMetadataCache accountMetadataCache;
+    private final TransactionTemplate snapshotTransaction;
+
+    /**
+     * Instantiates a new Balance history service.
+     *
+     * @param checkpointRepository the checkpoint repository
+     * @param accountMetadataCache the account metadata cache
+     * @param transactionManager   the transaction manager
+     */
+    public BalanceHistoryService(
+            BalanceCheckpointRepository checkpointRepository,
+            AccountMetadataCache accountMetadataCache,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.checkpointRepository = checkpointRepository;
+        this.accountMetadataCache = accountMetadataCache;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Gets the balance of an account at a point in time.
+     *
+     * @param accountId the account id
+     * @param at        the point in time, now if absent or in the future
+     * @return the balance response
+     */
+    public BalanceResponse getBalanceAt(UUID accountId, Instant at) {
+        AccountMetadata account = accountMetadataCache.get(accountId);
+        Instant now = Instant.now();
+        Instant asOf = at == null || at.isAfter(now) ? now : at;
+
+        BigDecimal balance = snapshotTransaction.execute(status -> balanceAt(accountId, asOf));
+        return new BalanceResponse(accountId, balance, account.currency().code(), asOf.toString());
+    }
+
+    private BigDecimal balanceAt(UUID accountId, Instant at) {
+        Optional<Checkpoint> before = checkpointRepository.findLatestAtOrBefore(accountId, at);
+        if (before.isPresent()) {
+            return before.get().balance().add(checkpointRepository.sumAmounts(accountId, before.get().asOf(), at));
+        }
+        // Before the first checkpoint, walk back from it
+        Optional<Checkpoint> after = checkpointRepository.findEarliestAfter(accountId, at);
+        if (after.isPresent()) {
+            return after.get().balance().subtract(checkpointRepository.sumAmounts(accountId, at, after.get().asOf()));
+        }
+        // Not checkpointed yet, walk back from the current balance
+        return checkpointRepository.balanceFromCurrent(accountId, at)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+}
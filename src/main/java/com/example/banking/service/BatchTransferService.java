@@ -0,0 +1,208 @@
+package com.example.banking.service;
+
+import com.example.banking.config.TransferProperties;
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.dto.BatchTransferItemResult;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResult;
+import com.example.banking.event.AccountBalancesChangedEvent;
+import com.example.banking.exception.AccountNotFoundException;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.JournalJdbcRepository;
+import com.example.banking.util.CurrencyCode;
+import com.example.banking.util.LockOrder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes many transfers with one lock round trip and one journal batch per chunk.
+ * <p>
+ * Each chunk runs in its own transaction. Transfers that break a business rule are reported as failed
+ * without affecting the others, since balances are only mutated once all checks of a transfer passed.
+ * The exchange rates of a chunk are resolved before its rows are locked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchTransferService {
+
+    private final AccountRepository accountRepository;
+    private final JournalJdbcRepository journalJdbcRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final AccountMetadataCache accountMetadataCache;
+    private final HotAccountLedger hotAccountLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties properties;
+    private final TransferOutbox transferOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Transfer funds in batch.
+     *
+     * @param requests the requests
+     * @return one result per request, in request order
+     */
+    public List<BatchTransferItemResult> transferFunds(List<TransferRequest> requests) {
+        int chunkSize = properties.batch().chunkSize();
+        List<BatchTransferItemResult> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            List<TransferRequest> chunk = requests.subList(from, Math.min(from + chunkSize, requests.size()));
+            results.addAll(transferChunk(chunk));
+        }
+        return results;
+    }
+
+    private List<BatchTransferItemResult> transferChunk(List<TransferRequest> chunk) {
+        BatchTransferItemResult[] results = new BatchTransferItemResult[chunk.size()];
+        BigDecimal[] exchangeRates = new BigDecimal[chunk.size()];
+        Map<List<CurrencyCode>, BigDecimal> ratesByPair = new HashMap<>();
+        List<Integer> locked = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            TransferRequest request = chunk.get(i);
+            if (request.fromAccountId().equals(request.toAccountId())) {
+                results[i] = BatchTransferItemResult.failed("Cannot transfer to the same account");
+            } else if (hotAccountLedger.handles(request)) {
+                // Hot accounts are owned by the in-memory ledger instead of being row locked
+                results[i] = transferHot(request);
+            } else {
+                try {
+                    exchangeRates[i] = exchangeRate(request, ratesByPair);
+                    locked.add(i);
+                } catch (RuntimeException ex) {
+                    results[i] = BatchTransferItemResult.failed(ex.getMessage());
+                }
+            }
+        }
+
+        if (!locked.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> transferLocked(chunk, locked, exchangeRates, results));
+            } catch (RuntimeException ex) {
+                log.error("Batch chunk of {} transfers rolled back", locked.size(), ex);
+                for (int i : locked) {
+                    results[i] = BatchTransferItemResult.failed("Transfer rolled back: " + ex.getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private BatchTransferItemResult transferHot(TransferRequest request) {
+        try {
+            return BatchTransferItemResult.completed(hotAccountLedger.transfer(request));
+        } catch (RuntimeException ex) {
+            return BatchTransferItemResult.failed(ex.getMessage());
+        }
+    }
+
+    // Reads the sender currency without locks, it never changes once an account exists, and fetches
+    // each currency pair once per chunk
+    private BigDecimal exchangeRate(TransferRequest request, Map<List<CurrencyCode>, BigDecimal> ratesByPair) {
+        CurrencyCode senderCurrency = accountMetadataCache.get(request.fromAccountId()).currency();
+        if (senderCurrency == request.currency()) {
+            return BigDecimal.ONE;
+        }
+        return ratesByPair.computeIfAbsent(
+                List.of(request.currency(), senderCurrency),
+                pair -> exchangeRateService.getExchangeRate(pair.get(0).code(), pair.get(1).code())
+        );
+    }
+
+    private void transferLocked(
+            List<TransferRequest> chunk,
+            List<Integer> indexes,
+            BigDecimal[] exchangeRates,
+            BatchTransferItemResult[] results
+    ) {
+        // Lock every involved account in one statement, in ID order to prevent deadlocks
+        Set<UUID> accountIds = new TreeSet<>(LockOrder.ACCOUNT_IDS);
+        for (int i : indexes) {
+            accountIds.add(chunk.get(i).fromAccountId());
+            accountIds.add(chunk.get(i).toAccountId());
+        }
+        Map<UUID, Account> accounts = accountRepository.findAllByIdWithLock(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        List<AccountTransaction> entries = new ArrayList<>(indexes.size() * 2);
+        Instant now = Instant.now();
+
+        for (int i : indexes) {
+            try {
+                results[i] = BatchTransferItemResult.completed(
+                        apply(chunk.get(i), accounts, exchangeRates[i], entries, now));
+            } catch (RuntimeException ex) {
+                results[i] = BatchTransferItemResult.failed(ex.getMessage());
+            }
+        }
+
+        // Balances are flushed by dirty checking on commit, journal entries in JDBC batches
+        journalJdbcRepository.insertAll(entries, properties.batch().chunkSize());
+        if (!entries.isEmpty()) {
+            transferOutbox.append(entries);
+            eventPublisher.publishEvent(AccountBalancesChangedEvent.of(
+                    entries.stream().map(AccountTransaction::getAccount).toList()));
+        }
+    }
+
+    private TransferResult apply(
+            TransferRequest request,
+            Map<UUID, Account> accounts,
+            BigDecimal exchangeRate,
+            List<AccountTransaction> entries,
+            Instant now
+    ) {
+        Account sender = find(accounts, request.fromAccountId());
+        Account receiver = find(accounts, request.toAccountId());
+
+        // Validate receiver currency matches transfer currency
+        TransferRules.checkReceiverCurrency(receiver, request);
+
+        // Convert amount if currencies differ, at the rate resolved before locking
+        BigDecimal amountToDebit = request.amount();
+        if (sender.getCurrency() != request.currency()) {
+            amountToDebit = TransferRules.convert(request.amount(), exchangeRate);
+        }
+
+        // Debit first: it is the only step that can fail and leaves the balance untouched when it does
+        sender.debit(amountToDebit);
+        receiver.credit(request.amount());
+
+        UUID correlationId = UUID.randomUUID();
+        List<AccountTransaction> transferEntries = TransferJournal.entries(
+                sender, receiver, amountToDebit, request.amount(), exchangeRate, correlationId, now);
+        // The advanced chain heads are flushed with the balances on commit
+        JournalChain.link(transferEntries);
+        entries.addAll(transferEntries);
+
+        return new TransferResult(
+                correlationId,
+                amountToDebit,
+                sender.getCurrency().code(),
+                request.amount(),
+                receiver.getCurrency().code(),
+                exchangeRate,
+                sender.getBalance(),
+                receiver.getBalance()
+        );
+    }
+
+    private static Account find(Map<UUID, Account> accounts, UUID accountId) {
+        Account account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return account;
+    }
+}
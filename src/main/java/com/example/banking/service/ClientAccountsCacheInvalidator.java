@@ -0,0 +1,34 @@
+package com.example.banking.service;
+
+import com.example.banking.config.CacheConfig;
+import com.example.banking.event.AccountBalancesChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts the cached accounts of clients whose balances changed, once the change is committed.
+ * Rolled back changes leave the cache untouched.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientAccountsCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * On balances changed.
+     *
+     * @param event the event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBalancesChanged(AccountBalancesChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.CLIENT_ACCOUNTS);
+        if (cache != null) {
+            event.clientIds().forEach(cache::evict);
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package com.example.banking.service;
 
 import com.example.banking.exception.ExchangeRateException;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * The type Exchange rate client.
+ * <p>
+ * Single pairs are only asked for when the snapshot cannot serve them. They are cached per pair, and
+ * the call is retried and guarded by the {@code exchangeRate} circuit breaker.
  */
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class ExchangeRateClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate exchangeRateRestTemplate;
 
     @Value("${exchange-rate.api.url}")
     private String apiUrl;
@@ -30,7 +41,11 @@ public class ExchangeRateClient {
      * @param toCurrency   the to currency
      * @return the big decimal
      */
+    @Cacheable(value = "exchangeRates", key = "{#fromCurrency, #toCurrency}")
+    @CircuitBreaker(name = "exchangeRate", fallbackMethod = "rateUnavailable")
+    @Retry(name = "exchangeRate", fallbackMethod = "rateUnavailable")
     public BigDecimal fetchExchangeRate(String fromCurrency, String toCurrency) {
+        log.info("Fetching fresh exchange rate {}=>{}", fromCurrency, toCurrency);
         String url = UriComponentsBuilder.fromUriString(apiUrl)
                 .queryParam("app_Id", apiKey)
                 .queryParam("base", fromCurrency)
@@ -39,7 +54,7 @@ public class ExchangeRateClient {
                 .queryParam("show_alternative", false)
                 .toUriString();
 
-        Map<?, ?> response = restTemplate.getForObject(url, Map.class);
+        Map<?, ?> response = exchangeRateRestTemplate.getForObject(url, Map.class);
 
         if (response != null && response.containsKey("rates")) {
             Map<?, ?> rates = (Map<?, ?>) response.get("rates");
@@ -49,4 +64,46 @@ public class ExchangeRateClient {
         }
         throw new ExchangeRateException("Failed to retrieve exchange rate");
     }
+
+    /**
+     * Rate unavailable.
+     * <p>
+     * Reached once the API call failed or the circuit is open, so there is no rate recent enough
+     * to convert with.
+     *
+     * @param fromCurrency the from currency
+     * @param toCurrency   the to currency
+     * @param t            the t
+     * @return never returns normally
+     */
+    public BigDecimal rateUnavailable(String fromCurrency, String toCurrency, Throwable t) {
+        log.warn("No usable exchange rate for {}=>{} due to {}",
+                fromCurrency, toCurrency, t.getMessage());
+        throw new ExchangeRateException(
+                "Exchange rate " + fromCurrency + "=>" + toCurrency + " is currently unavailable", t);
+    }
+
+    /**
+     * Fetch all exchange rates of a base currency in one call.
+     *
+     * @param baseCurrency the base currency
+     * @return the units of each currency per unit of the base currency
+     */
+    public Map<String, BigDecimal> fetchRateTable(String baseCurrency) {
+        String url = UriComponentsBuilder.fromUriString(apiUrl)
+                .queryParam("app_Id", apiKey)
+                .queryParam("base", baseCurrency)
+                .queryParam("prettyprint", false)
+                .queryParam("show_alternative", false)
+                .toUriString();
+
+        Map<?, ?> response = exchangeRateRestTemplate.getForObject(url, Map.class);
+
+        if (response != null && response.get("rates") instanceof Map<?, ?> rates && !rates.isEmpty()) {
+            Map<String, BigDecimal> table = new HashMap<>(rates.size() * 2);
+            rates.forEach((currency, rate) -> table.put(currency.toString(), new BigDecimal(rate.toString())));
+            return table;
+        }
+        throw new ExchangeRateException("Failed to retrieve exchange rate table for " + baseCurrency);
+    }
 }
\ No newline at end of file
@@ -1,52 +1,83 @@
 package com.example.banking.service;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The type Exchange rate service.
+ * <p>
+ * Rates are read straight from the snapshot, without going through a cache or the resilience
+ * aspects of the API. Lookups are counted in {@code banking.fx.lookups} by where the rate came from,
+ * and {@code banking.fx.cache.hit.ratio} reports the share served by the snapshot. Pairs the snapshot
+ * cannot serve go to {@link ExchangeRateClient#fetchExchangeRate}, whose per-pair cache is exported
+ * as standard cache metrics.
  */
-@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ExchangeRateService {
 
     private final ExchangeRateClient exchangeRateClient;
+    private final ExchangeRateSnapshotCache snapshotCache;
+    private final LongAdder snapshotHits = new LongAdder();
+    private final LongAdder apiFetches = new LongAdder();
+
+    /**
+     * Instantiates a new Exchange rate service.
+     *
+     * @param exchangeRateClient the exchange rate client
+     * @param snapshotCache      the snapshot cache
+     * @param meterRegistry      the meter registry
+     */
+    public ExchangeRateService(
+            ExchangeRateClient exchangeRateClient,
+            ExchangeRateSnapshotCache snapshotCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.exchangeRateClient = exchangeRateClient;
+        this.snapshotCache = snapshotCache;
+        FunctionCounter.builder("banking.fx.lookups", snapshotHits, LongAdder::sum)
+                .description("Exchange rate lookups by source")
+                .tag("source", "snapshot")
+                .register(meterRegistry);
+        FunctionCounter.builder("banking.fx.lookups", apiFetches, LongAdder::sum)
+                .description("Exchange rate lookups by source")
+                .tag("source", "api")
+                .register(meterRegistry);
+        Gauge.builder("banking.fx.cache.hit.ratio", this, ExchangeRateService::hitRatio)
+                .description("Share of exchange rate lookups served from the snapshot")
+                .register(meterRegistry);
+    }
 
     /**
      * Gets exchange rate.
+     * <p>
+     * Rates are served from the background refreshed snapshot; the API is only called per pair
+     * when the snapshot is missing, too stale, or does not know either currency.
      *
      * @param fromCurrency the from currency
      * @param toCurrency   the to currency
      * @return the exchange rate
+     * @throws com.example.banking.exception.ExchangeRateException if the snapshot cannot serve the pair
+     *                                                              and the API is unavailable
      */
-    @Cacheable(value = "exchangeRates", key = "{#fromCurrency, #toCurrency}")
-    @CircuitBreaker(name = "exchangeRate", fallbackMethod = "getCachedRate")
-    @Retry(name = "exchangeRate", fallbackMethod = "getCachedRate")
     public BigDecimal getExchangeRate(String fromCurrency, String toCurrency) {
-        log.info("Fetching fresh exchange rate {}=>{}", fromCurrency, toCurrency);
+        Optional<BigDecimal> snapshotRate = snapshotCache.lookup(fromCurrency, toCurrency);
+        if (snapshotRate.isPresent()) {
+            snapshotHits.increment();
+            return snapshotRate.get();
+        }
+        apiFetches.increment();
         return exchangeRateClient.fetchExchangeRate(fromCurrency, toCurrency);
     }
 
-    /**
-     * Gets cached rate.
-     *
-     * @param fromCurrency the from currency
-     * @param toCurrency   the to currency
-     * @param t            the t
-     * @return the cached rate
-     */
-// Fallback method using cached rates
-    public BigDecimal getCachedRate(String fromCurrency, String toCurrency, Throwable t) {
-        log.warn("Using cached exchange rate for {}=>{} due to {}",
-                fromCurrency, toCurrency, t.getMessage());
-        // Actual cache retrieval handled by Spring
-        return null; // Spring will handle cache lookup
+    private double hitRatio() {
+        long hits = snapshotHits.sum();
+        long total = hits + apiFetches.sum();
+        return total == 0 ? Double.NaN : (double) hits / total;
     }
-}
\ No newline at end of file
+}
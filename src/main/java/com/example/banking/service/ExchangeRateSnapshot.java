@@ -0,0 +1,94 @@
+package com.example.banking.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable table of exchange rates against one base currency, as fetched at a point in time.
+ * Rates between two other currencies are derived through the base.
+ */
+public final class ExchangeRateSnapshot {
+
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> rates;
+    private final Instant fetchedAt;
+
+    /**
+     * Instantiates a new Exchange rate snapshot.
+     *
+     * @param baseCurrency the base currency
+     * @param rates        the units of each currency per unit of the base currency
+     * @param fetchedAt    when the rates were fetched
+     */
+    public ExchangeRateSnapshot(String baseCurrency, Map<String, BigDecimal> rates, Instant fetchedAt) {
+        Map<String, BigDecimal> copy = new HashMap<>(rates);
+        copy.put(baseCurrency, BigDecimal.ONE);
+        this.baseCurrency = baseCurrency;
+        this.rates = Map.copyOf(copy);
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Gets the rate converting one unit of a currency into another.
+     *
+     * @param fromCurrency the from currency
+     * @param toCurrency   the to currency
+     * @return the rate, empty if either currency is missing from the table
+     */
+    public Optional<BigDecimal> rate(String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return Optional.of(BigDecimal.ONE);
+        }
+        BigDecimal from = rates.get(fromCurrency);
+        BigDecimal to = rates.get(toCurrency);
+        if (from == null || to == null || from.signum() == 0) {
+            return Optional.empty();
+        }
+        if (fromCurrency.equals(baseCurrency)) {
+            return Optional.of(to);
+        }
+        return Optional.of(to.divide(from, MathContext.DECIMAL64));
+    }
+
+    /**
+     * Gets the age of the snapshot.
+     *
+     * @param now the current time
+     * @return the time elapsed since the rates were fetched
+     */
+    public Duration age(Instant now) {
+        return Duration.between(fetchedAt, now);
+    }
+
+    /**
+     * Gets base currency.
+     *
+     * @return the base currency
+     */
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Gets rates.
+     *
+     * @return the units of each currency per unit of the base currency, including the base itself
+     */
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    /**
+     * Gets fetched at.
+     *
+     * @return the fetched at
+     */
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.banking.service;
+
+import com.example.banking.config.ExchangeRateSnapshotProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link ExchangeRateSnapshot} and refreshes it in the background.
+ * <p>
+ * The whole rate table of the base currency is fetched in one call on a fixed delay and swapped in
+ * atomically, so lookups never perform I/O. A snapshot older than the stale threshold is still
+ * served while a refresh is triggered; one older than the maximum staleness is not served at all.
+ * <p>
+ * With the shared tier enabled the table comes from the {@link SharedExchangeRateStore} and only the
+ * node holding its refresh lease calls the API, so the number of API calls does not grow with the
+ * number of nodes.
+ */
+@Slf4j
+@Component
+public class ExchangeRateSnapshotCache {
+
+    private static final Duration MIN_REVALIDATION_INTERVAL = Duration.ofSeconds(5);
+
+    private final ExchangeRateClient exchangeRateClient;
+    private final SharedExchangeRateStore sharedStore;
+    private final ExchangeRateSnapshotProperties properties;
+    private final CacheManager cacheManager;
+    private final Clock clock;
+
+    private final AtomicReference<ExchangeRateSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicBoolean revalidationPending = new AtomicBoolean();
+    private volatile Instant lastAttempt = Instant.EPOCH;
+    private final ExecutorService revalidator = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("fx-snapshot-revalidate").daemon(true).factory());
+
+    /**
+     * Instantiates a new Exchange rate snapshot cache.
+     *
+     * @param exchangeRateClient the exchange rate client
+     * @param sharedStore        the shared store
+     * @param properties         the properties
+     * @param cacheManager       the cache manager
+     */
+    public ExchangeRateSnapshotCache(
+            ExchangeRateClient exchangeRateClient,
+            SharedExchangeRateStore sharedStore,
+            ExchangeRateSnapshotProperties properties,
+            CacheManager cacheManager
+    ) {
+        this(exchangeRateClient, sharedStore, properties, cacheManager, Clock.systemUTC());
+    }
+
+    ExchangeRateSnapshotCache(
+            ExchangeRateClient exchangeRateClient,
+            SharedExchangeRateStore sharedStore,
+            ExchangeRateSnapshotProperties properties,
+            CacheManager cacheManager,
+            Clock clock
+    ) {
+        this.exchangeRateClient = exchangeRateClient;
+        this.sharedStore = sharedStore;
+        this.properties = properties;
+        this.cacheManager = cacheManager;
+        this.clock = clock;
+    }
+
+    /**
+     * Looks up a rate in the current snapshot.
+     *
+     * @param fromCurrency the from currency
+     * @param toCurrency   the to currency
+     * @return the rate, empty if there is no usable snapshot or it lacks either currency
+     */
+    public Optional<BigDecimal> lookup(String fromCurrency, String toCurrency) {
+        ExchangeRateSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        Duration age = snapshot.age(clock.instant());
+        if (age.compareTo(properties.maxStaleness()) > 0) {
+            revalidate();
+            return Optional.empty();
+        }
+        if (age.compareTo(properties.staleAfter()) > 0) {
+            revalidate();
+        }
+        return snapshot.rate(fromCurrency, toCurrency);
+    }
+
+    /**
+     * Gets the current snapshot.
+     *
+     * @return the current snapshot, empty until the first successful refresh
+     */
+    public Optional<ExchangeRateSnapshot> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * Fetches the rate table and swaps it in. A failed refresh keeps the previous snapshot.
+     * <p>
+     * With the shared tier the stored table is read first, and the API is only called if it is due
+     * for a refresh and this node holds the refresh lease.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${exchange-rate.snapshot.refresh-interval:60s}",
+            initialDelayString = "${exchange-rate.snapshot.refresh-interval:60s}"
+    )
+    public void refresh() {
+        if (!properties.enabled() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant now = clock.instant();
+            lastAttempt = now;
+            if (properties.shared().enabled()) {
+                refreshShared(now);
+            } else {
+                swap(fetch(now));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to refresh exchange rate snapshot, keeping the one fetched at {}",
+                    current().map(ExchangeRateSnapshot::getFetchedAt).orElse(null), ex);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Reads the stored rate table once another node announced it.
+     *
+     * @param baseCurrency the base currency of the stored table
+     */
+    @RabbitListener(
+            queues = "#{exchangeRateQueue.name}",
+            autoStartup = "#{${exchange-rate.snapshot.enabled:true} and ${exchange-rate.snapshot.shared.enabled:true}}"
+    )
+    public void onSnapshotStored(String baseCurrency) {
+        if (!properties.baseCurrency().equals(baseCurrency)) {
+            return;
+        }
+        try {
+            sharedStore.load().ifPresent(this::swap);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to read the announced exchange rate snapshot, waiting for the next refresh", ex);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    private void refreshShared(Instant now) {
+        // Another node may have stored a newer table since this one last looked
+        sharedStore.load().ifPresent(this::swap);
+        ExchangeRateSnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.age(now).compareTo(properties.refreshInterval().dividedBy(2)) < 0) {
+            return;
+        }
+        // The other nodes read the table once the lease holder announced it
+        if (!sharedStore.claimRefresh(now)) {
+            return;
+        }
+        ExchangeRateSnapshot fetched;
+        try {
+            fetched = fetch(now);
+            sharedStore.publish(fetched);
+        } catch (RuntimeException ex) {
+            try {
+                sharedStore.releaseRefresh(clock.instant());
+            } catch (RuntimeException releaseEx) {
+                ex.addSuppressed(releaseEx);
+            }
+            throw ex;
+        }
+        // Only a node that keeps storing tables keeps the lease
+        sharedStore.extendRefresh(clock.instant());
+        swap(fetched);
+    }
+
+    private ExchangeRateSnapshot fetch(Instant now) {
+        return new ExchangeRateSnapshot(
+                properties.baseCurrency(),
+                exchangeRateClient.fetchRateTable(properties.baseCurrency()),
+                now);
+    }
+
+    private synchronized void swap(ExchangeRateSnapshot snapshot) {
+        ExchangeRateSnapshot previous = current.get();
+        if (previous != null && !snapshot.getFetchedAt().isAfter(previous.getFetchedAt())) {
+            return;
+        }
+        current.set(snapshot);
+        // Pairs cached from individual API calls must not outlive a newer table
+        Cache pairs = cacheManager.getCache("exchangeRates");
+        if (pairs != null) {
+            pairs.clear();
+        }
+        log.debug("Swapped exchange rate snapshot fetched at {}", snapshot.getFetchedAt());
+    }
+
+    private void revalidate() {
+        // One background refresh at a time, and not more often than the API can reasonably be asked
+        if (!properties.enabled()
+                || Duration.between(lastAttempt, clock.instant()).compareTo(MIN_REVALIDATION_INTERVAL) < 0
+                || !revalidationPending.compareAndSet(false, true)) {
+            return;
+        }
+        revalidator.execute(() -> {
+            try {
+                refresh();
+            } finally {
+                revalidationPending.set(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.banking.service;
+
+import com.example.banking.config.LedgerProperties;
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResult;
+import com.example.banking.event.AccountBalancesChangedEvent;
+import com.example.banking.event.JournalHeadMovedEvent;
+import com.example.banking.exception.AccountBusyException;
+import com.example.banking.exception.AccountNotFoundException;
+import com.example.banking.repository.AccountMetadata;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.JournalJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * In-memory ledger for hot accounts.
+ * <p>
+ * Balances of the configured hot accounts live in {@link LedgerShard}s, each owned by a single thread,
+ * instead of being locked row by row in the database. Hot balances and their journal entries reach
+ * the database asynchronously through the {@link LedgerJournalWriter}, so reads of a hot account may
+ * lag behind by up to one flush interval. The cold side of a transfer still goes through the
+ * regular row lock, which is uncontended for such accounts, and hot legs are only booked once
+ * that transaction committed. The outbox event of a transfer is written by the journal writer in the
+ * flush that persists its last hot leg. New transfers are rejected while the writer is full, and an
+ * account whose journal head moved outside the ledger is rebuilt by its shard from the database.
+ */
+@Slf4j
+@Service
+public class HotAccountLedger {
+
+    private final LedgerProperties properties;
+    private final AccountRepository accountRepository;
+    private final JournalJdbcRepository journalJdbcRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final AccountMetadataCache accountMetadataCache;
+    private final LedgerJournalWriter journalWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LedgerShard[] shards;
+
+    /**
+     * Instantiates a new Hot account ledger.
+     *
+     * @param properties            the properties
+     * @param accountRepository     the account repository
+     * @param journalJdbcRepository the journal jdbc repository
+     * @param exchangeRateService   the exchange rate service
+     * @param accountMetadataCache  the account metadata cache
+     * @param journalWriter         the journal writer
+     * @param eventPublisher        the event publisher
+     */
+    public HotAccountLedger(
+            LedgerProperties properties,
+            AccountRepository accountRepository,
+            JournalJdbcRepository journalJdbcRepository,
+            ExchangeRateService exchangeRateService,
+            AccountMetadataCache accountMetadataCache,
+            LedgerJournalWriter journalWriter,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.properties = properties;
+        this.accountRepository = accountRepository;
+        this.journalJdbcRepository = journalJdbcRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.accountMetadataCache = accountMetadataCache;
+        this.journalWriter = journalWriter;
+        this.eventPublisher = eventPublisher;
+        this.shards = new LedgerShard[properties.enabled() ? properties.shards() : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, this::load, journalWriter);
+        }
+    }
+
+    /**
+     * Tells whether a transfer touches a hot account and must go through the ledger.
+     *
+     * @param request the request
+     * @return true if the ledger owns the balance of either account
+     */
+    public boolean handles(TransferRequest request) {
+        return properties.isHot(request.fromAccountId()) || properties.isHot(request.toAccountId());
+    }
+
+    /**
+     * Transfer funds transfer result.
+     *
+     * @param request the request
+     * @return the transfer result
+     */
+    @Transactional
+    public TransferResult transfer(TransferRequest request) {
+        return transfer(request, result -> {
+        });
+    }
+
+    /**
+     * Transfer funds transfer result, handing the result to a callback before the transaction commits.
+     *
+     * @param request      the request
+     * @param beforeCommit the callback, its writes commit or roll back together with the transfer
+     * @return the transfer result
+     */
+    @Transactional
+    public TransferResult transfer(TransferRequest request, Consumer<TransferResult> beforeCommit) {
+        if (journalWriter.isFull()) {
+            throw new AccountBusyException("Too many ledger changes waiting to be written, try again later");
+        }
+
+        // Read currencies without locks, they never change once an account exists
+        AccountMetadata senderMetadata = accountMetadataCache.get(request.fromAccountId());
+        AccountMetadata receiverMetadata = accountMetadataCache.get(request.toAccountId());
+        TransferRules.checkReceiverCurrency(receiverMetadata.currency(), request.currency());
+
+        // Resolve the rate before the cold row is locked
+        BigDecimal exchangeRate = BigDecimal.ONE;
+        BigDecimal amountToDebit = request.amount();
+        if (senderMetadata.currency() != request.currency()) {
+            exchangeRate = exchangeRateService.getExchangeRate(
+                    request.currency().code(),
+                    senderMetadata.currency().code()
+            );
+            amountToDebit = TransferRules.convert(request.amount(), exchangeRate);
+        }
+
+        Account sender = snapshot(request.fromAccountId());
+        Account receiver = snapshot(request.toAccountId());
+
+        UUID correlationId = UUID.randomUUID();
+        List<AccountTransaction> entries = TransferJournal.entries(
+                sender, receiver, amountToDebit, request.amount(), exchangeRate, correlationId, Instant.now());
+
+        BigDecimal debit = amountToDebit;
+        boolean senderHot = properties.isHot(sender.getId());
+        boolean receiverHot = properties.isHot(receiver.getId());
+
+        // Cold legs run in the surrounding transaction. A booked hot leg cannot be taken back, so a hot
+        // debit only holds its amount here and both hot legs are booked once that transaction committed;
+        // their balances in the result are the ones projected at this point.
+        BigDecimal senderBalance;
+        if (senderHot) {
+            senderBalance = await(shardFor(sender.getId()).hold(sender.getId(), debit));
+            TransactionSynchronizationManager.registerSynchronization(
+                    settleOnCommit(sender.getId(), debit, entries.get(0), entries));
+        } else {
+            senderBalance = applyCold(sender, a -> a.debit(debit), entries.get(0));
+        }
+        BigDecimal receiverBalance;
+        if (receiverHot) {
+            receiverBalance = receiver.getBalance().add(request.amount());
+            // The debit is settled after commit, once every credit was applied, so it completes the transfer
+            TransactionSynchronizationManager.registerSynchronization(applyOnCommit(
+                    receiver.getId(), a -> a.credit(request.amount()), entries.get(1), senderHot ? List.of() : entries));
+        } else {
+            receiverBalance = applyCold(receiver, a -> a.credit(request.amount()), entries.get(1));
+        }
+
+        TransferResult result = new TransferResult(
+                correlationId,
+                amountToDebit,
+                sender.getCurrency().code(),
+                request.amount(),
+                receiver.getCurrency().code(),
+                exchangeRate,
+                senderBalance,
+                receiverBalance
+        );
+        beforeCommit.accept(result);
+        return result;
+    }
+
+    /**
+     * Has the shard of an account rebuild it once the journal writer found its head moved.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void onJournalHeadMoved(JournalHeadMovedEvent event) {
+        UUID accountId = event.accountId();
+        shardFor(accountId).relink(accountId).exceptionally(ex -> {
+            log.error("Failed to relink the journal of account {}, will retry", accountId, ex);
+            return null;
+        });
+    }
+
+    /**
+     * Stops the shards once in-flight operations completed.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (LedgerShard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    private Account snapshot(UUID accountId) {
+        if (properties.isHot(accountId)) {
+            return await(shardFor(accountId).read(accountId));
+        }
+        // Locked on first load: a plain read would put an unlocked instance in the persistence
+        // context, and a later locking query would hand back that same stale instance
+        return accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    // Booked before the caller gets its result, so it reads its own transfer from the shard
+    private TransactionSynchronization settleOnCommit(
+            UUID accountId, BigDecimal amount, AccountTransaction entry, List<AccountTransaction> completed) {
+        return new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    await(shardFor(accountId).settle(accountId, amount, entry, completed));
+                } else {
+                    await(shardFor(accountId).release(accountId, amount));
+                }
+            }
+        };
+    }
+
+    private TransactionSynchronization applyOnCommit(
+            UUID accountId, Consumer<Account> mutation, AccountTransaction entry, List<AccountTransaction> completed) {
+        return new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                await(shardFor(accountId).apply(accountId, mutation, entry, completed));
+            }
+        };
+    }
+
+    private BigDecimal applyCold(Account account, Consumer<Account> mutation, AccountTransaction entry) {
+        mutation.accept(account);
+        entry.setAccount(account);
+        JournalChain.link(entry, account);
+        accountRepository.save(account);
+        eventPublisher.publishEvent(AccountBalancesChangedEvent.of(List.of(account)));
+        journalJdbcRepository.insertAll(List.of(entry), 1);
+        return account.getBalance();
+    }
+
+    private Account load(UUID accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    private LedgerShard shardFor(UUID accountId) {
+        return shards[Math.floorMod(accountId.hashCode(), shards.length)];
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
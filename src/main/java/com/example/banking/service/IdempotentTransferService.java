@@ -0,0 +1,217 @@
+package com.example.banking.service;
+
+import com.example.banking.config.IdempotencyProperties;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResponse;
+import com.example.banking.exception.IdempotencyKeyInProgressException;
+import com.example.banking.exception.IdempotencyKeyReuseException;
+import com.example.banking.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Executes transfers at most once per Idempotency-Key and client, the client owning the sender account.
+ * <p>
+ * A key is claimed in the {@code transfer_idempotency_key} table in its own short transaction before the
+ * transfer runs, so no connection is held while the transfer waits for exchange rates or its lane, and
+ * completed with its response inside the transfer's transaction, so a committed transfer is never left
+ * without its response. The most recent responses are also kept in a bounded
+ * in-process cache. Retries are answered from there without touching account locks. Requests with a key
+ * that is still being processed wait for the first one in-process through a shared future, and are
+ * rejected across nodes. A transfer that failed gives its key back; one whose outcome is unknown keeps
+ * the key claimed until it expires rather than risk running twice.
+ */
+@Slf4j
+@Service
+public class IdempotentTransferService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final TransferService transferService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final AccountMetadataCache accountMetadataCache;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+
+    private final Cache<ScopedKey, StoredResponse> recentResponses;
+    private final ConcurrentMap<ScopedKey, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private record ScopedKey(String clientId, String key) {}
+
+    private record StoredResponse(String requestHash, TransferResponse response) {}
+
+    /**
+     * Instantiates a new Idempotent transfer service.
+     *
+     * @param transferService          the transfer service
+     * @param idempotencyKeyRepository the idempotency key repository
+     * @param accountMetadataCache     the account metadata cache
+     * @param objectMapper             the object mapper
+     * @param properties               the properties
+     */
+    public IdempotentTransferService(
+            TransferService transferService,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            AccountMetadataCache accountMetadataCache,
+            ObjectMapper objectMapper,
+            IdempotencyProperties properties
+    ) {
+        this.transferService = transferService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.accountMetadataCache = accountMetadataCache;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfterWrite(properties.retention())
+                .build();
+    }
+
+    /**
+     * Transfer funds transfer response.
+     *
+     * @param key     the idempotency key
+     * @param request the request
+     * @return the response of the first request sent with this key
+     */
+    public TransferResponse transferFunds(String key, TransferRequest request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+        ScopedKey scopedKey = new ScopedKey(accountMetadataCache.get(request.fromAccountId()).clientId(), key);
+
+        StoredResponse recent = recentResponses.getIfPresent(scopedKey);
+        if (recent != null) {
+            return verify(key, recent, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> claim = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, claim);
+        if (running != null) {
+            return verify(key, await(running), requestHash);
+        }
+
+        try {
+            StoredResponse stored = execute(scopedKey, requestHash, request);
+            recentResponses.put(scopedKey, stored);
+            claim.complete(stored);
+            return verify(key, stored, requestHash);
+        } catch (RuntimeException ex) {
+            claim.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(scopedKey, claim);
+        }
+    }
+
+    /**
+     * Forgets keys older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${banking.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(properties.retention()));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private StoredResponse execute(ScopedKey scopedKey, String requestHash, TransferRequest request) {
+        String clientId = scopedKey.clientId();
+        String key = scopedKey.key();
+        if (!idempotencyKeyRepository.claim(clientId, key, requestHash, Instant.now())) {
+            IdempotencyKeyRepository.StoredKey storedKey = idempotencyKeyRepository.findByKey(clientId, key)
+                    .orElseThrow(() -> new IdempotencyKeyInProgressException(key));
+            if (storedKey.responseBody() == null) {
+                // Claimed by a request running on another node, or left behind by one whose outcome is unknown
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            return read(storedKey);
+        }
+
+        TransferResponse response;
+        try {
+            // The response is stored by the transfer's own transaction, so a key whose transfer committed
+            // always carries its response and one without a response never moved any money
+            response = TransferResponse.fromTransferResult(transferService.transferFunds(request,
+                    result -> idempotencyKeyRepository.complete(
+                            clientId, key, write(TransferResponse.fromTransferResult(result)))));
+        } catch (TransactionException ex) {
+            // The commit may have gone through, in which case the key carries its response by now
+            IdempotencyKeyRepository.StoredKey storedKey = idempotencyKeyRepository.findByKey(clientId, key)
+                    .orElse(null);
+            if (storedKey != null && storedKey.responseBody() != null) {
+                return read(storedKey);
+            }
+            // Otherwise keeping the claim prevents running the transfer twice
+            throw ex;
+        } catch (RuntimeException ex) {
+            idempotencyKeyRepository.release(clientId, key);
+            throw ex;
+        }
+        return new StoredResponse(requestHash, response);
+    }
+
+    private static TransferResponse verify(String key, StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        return stored.response();
+    }
+
+    private StoredResponse read(IdempotencyKeyRepository.StoredKey storedKey) {
+        try {
+            return new StoredResponse(
+                    storedKey.requestHash(),
+                    objectMapper.readValue(storedKey.responseBody(), TransferResponse.class));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable stored transfer response", ex);
+        }
+    }
+
+    private String write(TransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to store transfer response", ex);
+        }
+    }
+
+    private static String hash(TransferRequest request) {
+        String canonical = request.fromAccountId() + "|" + request.toAccountId() + "|" +
+                request.amount().stripTrailingZeros().toPlainString() + "|" + request.currency().code();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
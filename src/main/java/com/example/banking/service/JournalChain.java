@@ -0,0 +1,120 @@
+package com.example.banking.service;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Links journal entries into the hash chain of their account.
+ * <p>
+ * Each entry is hashed together with the hash of the previous entry of the same account, so changing,
+ * removing or reordering an entry breaks every hash after it. The head of the chain is kept on the
+ * account row and must only be advanced while the row is locked or version checked. The id and the
+ * creation time of an entry are covered too, so entries must carry both before they are linked.
+ */
+final class JournalChain {
+
+    private JournalChain() {
+    }
+
+    /**
+     * Appends an entry to the chain of an account, assigning its sequence number and hash and
+     * advancing the head kept on the account.
+     *
+     * @param entry   the entry
+     * @param account the account the entry is booked on, holding the current head
+     */
+    static void link(AccountTransaction entry, Account account) {
+        long seq = account.getJournalSeq() + 1;
+        byte[] hash = hash(account.getJournalHash(), seq, entry.getId(), account.getId(), entry.getAmount(),
+                entry.getCurrency().code(), entry.getType().name(), entry.getCreatedAt(), entry.getCorrelationId(),
+                entry.getDescription());
+        entry.setChainSeq(seq);
+        entry.setChainHash(hash);
+        account.setJournalSeq(seq);
+        account.setJournalHash(hash);
+    }
+
+    /**
+     * Appends entries to the chains of the accounts they are booked on, in order.
+     *
+     * @param entries the entries, each referencing the account holding the current head
+     */
+    static void link(List<AccountTransaction> entries) {
+        for (AccountTransaction entry : entries) {
+            link(entry, entry.getAccount());
+        }
+    }
+
+    /**
+     * Hashes an entry chained to the previous one. Must stay identical to the {@code journal_entry_hash}
+     * database function.
+     *
+     * @param previous      the hash of the previous entry of the account, null for the first one
+     * @param seq           the sequence number of the entry
+     * @param id            the entry id
+     * @param accountId     the account id
+     * @param amount        the signed amount
+     * @param currency      the currency
+     * @param type          the transaction type
+     * @param createdAt     the creation timestamp, at most microsecond precise like the stored one
+     * @param correlationId the correlation id
+     * @param description   the description
+     * @return the SHA-256 hash
+     */
+    static byte[] hash(
+            byte[] previous,
+            long seq,
+            UUID id,
+            UUID accountId,
+            BigDecimal amount,
+            String currency,
+            String type,
+            Instant createdAt,
+            UUID correlationId,
+            String description
+    ) {
+        MessageDigest digest = sha256();
+        if (previous != null) {
+            digest.update(previous);
+        }
+        String canonical = String.join("|",
+                Long.toString(seq),
+                id.toString(),
+                accountId.toString(),
+                amount.setScale(2, RoundingMode.HALF_UP).toPlainString(),
+                currency,
+                type,
+                Long.toString(storedMicros(createdAt)),
+                Objects.toString(correlationId, ""),
+                Objects.toString(description, ""));
+        return digest.digest(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // created_at is a timestamp without time zone, written by the JDBC driver in the default time zone;
+    // the database function reads its epoch as if it were UTC
+    private static long storedMicros(Instant createdAt) {
+        LocalDateTime stored = LocalDateTime.ofInstant(createdAt, ZoneId.systemDefault());
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), stored);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
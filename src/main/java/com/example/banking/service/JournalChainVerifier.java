@@ -0,0 +1,233 @@
+package com.example.banking.service;
+
+import com.example.banking.config.JournalChainProperties;
+import com.example.banking.repository.BalanceCheckpointRepository;
+import com.example.banking.repository.JournalChainRepository;
+import com.example.banking.repository.JournalChainRepository.ChainHead;
+import com.example.banking.repository.JournalChainRepository.ChainedEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies the journal hash chains incrementally.
+ * <p>
+ * Each account's chain is checked from the last verified entry up to its current head, and the
+ * checkpoint is then moved to that head, so a run reads only the entries appended since the previous
+ * one. Entries before a checkpoint are trusted; deleting the checkpoints forces a full verification.
+ * The account id space is split into one range per worker and the ranges are verified in parallel,
+ * each page of accounts in one repeatable read transaction so that heads and entries agree.
+ * Broken chains are logged, counted in {@code banking.journal.chain.broken} and reported again by
+ * every run, since their checkpoint does not move.
+ */
+@Slf4j
+@Component
+public class JournalChainVerifier {
+
+    private static final UUID LAST_ACCOUNT_ID = new UUID(-1L, -1L);
+
+    private final JournalChainRepository chainRepository;
+    private final JournalChainProperties properties;
+    private final TransactionTemplate snapshotTransaction;
+    private final ExecutorService workers;
+    private final Counter verifiedEntries;
+    private final Counter brokenChains;
+
+    /**
+     * Instantiates a new Journal chain verifier.
+     *
+     * @param chainRepository    the chain repository
+     * @param properties         the properties
+     * @param transactionManager the transaction manager
+     * @param meterRegistry      the meter registry
+     */
+    public JournalChainVerifier(
+            JournalChainRepository chainRepository,
+            JournalChainProperties properties,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.chainRepository = chainRepository;
+        this.properties = properties;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.workers = Executors.newFixedThreadPool(properties.workers(),
+                Thread.ofPlatform().name("journal-verifier-", 0).daemon(true).factory());
+        this.verifiedEntries = Counter.builder("banking.journal.chain.verified")
+                .description("Journal entries whose chain hash was verified")
+                .register(meterRegistry);
+        this.brokenChains = Counter.builder("banking.journal.chain.broken")
+                .description("Account journal chains found broken, once per verification run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifies on a fixed delay when enabled.
+     */
+    @Scheduled(fixedDelayString = "${banking.journal-chain.verify-interval:5m}")
+    public void verifyPeriodically() {
+        if (!properties.verifierEnabled()) {
+            return;
+        }
+        try {
+            verify();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to verify journal chains, will retry", ex);
+        }
+    }
+
+    /**
+     * Verifies the entries appended to every chain since its last verification.
+     *
+     * @return the ids of the accounts whose chain is broken
+     */
+    public List<UUID> verify() {
+        List<UUID> ends = rangeEnds(properties.workers());
+        List<Future<List<UUID>>> ranges = new ArrayList<>(ends.size());
+        UUID after = BalanceCheckpointRepository.FIRST_ACCOUNT_ID;
+        for (UUID upTo : ends) {
+            UUID from = after;
+            ranges.add(workers.submit(() -> verifyRange(from, upTo)));
+            after = upTo;
+        }
+
+        List<UUID> broken = new ArrayList<>();
+        for (Future<List<UUID>> range : ranges) {
+            broken.addAll(await(range));
+        }
+        if (broken.isEmpty()) {
+            log.info("Verified journal chains");
+        } else {
+            log.error("Journal chains of {} accounts are broken: {}", broken.size(), broken);
+        }
+        return broken;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Splits the account id space into contiguous ranges, in the order PostgreSQL sorts UUIDs.
+     *
+     * @param count the number of ranges
+     * @return the inclusive upper end of each range, the last one being the highest id
+     */
+    static List<UUID> rangeEnds(int count) {
+        long step = Long.divideUnsigned(-1L, count);
+        List<UUID> ends = new ArrayList<>(count);
+        for (int i = 1; i < count; i++) {
+            ends.add(new UUID(step * i, -1L));
+        }
+        ends.add(LAST_ACCOUNT_ID);
+        return ends;
+    }
+
+    private List<UUID> verifyRange(UUID after, UUID upTo) {
+        List<UUID> broken = new ArrayList<>();
+        List<ChainHead> heads;
+        do {
+            UUID from = after;
+            List<ChainHead> verified = new ArrayList<>();
+            heads = snapshotTransaction.execute(status -> {
+                List<ChainHead> page = chainRepository.findUnverifiedAfter(from, upTo, properties.batchSize());
+                if (!page.isEmpty()) {
+                    broken.addAll(verifyPage(page, verified));
+                }
+                return page;
+            });
+            if (heads == null || heads.isEmpty()) {
+                break;
+            }
+            if (!verified.isEmpty()) {
+                chainRepository.saveCheckpoints(verified, Instant.now());
+            }
+            after = heads.getLast().accountId();
+        } while (heads.size() == properties.batchSize());
+        return broken;
+    }
+
+    private List<UUID> verifyPage(List<ChainHead> heads, List<ChainHead> verified) {
+        Map<UUID, ChainCursor> cursors = new HashMap<>();
+        for (ChainHead head : heads) {
+            cursors.put(head.accountId(), new ChainCursor(head.verifiedSeq(), head.verifiedHash()));
+        }
+        chainRepository.forEachUnverifiedEntry(heads, entry -> cursors.get(entry.accountId()).advance(entry));
+
+        List<UUID> broken = new ArrayList<>();
+        for (ChainHead head : heads) {
+            ChainCursor cursor = cursors.get(head.accountId());
+            if (cursor.brokenAt == 0
+                    && cursor.seq == head.headSeq()
+                    && Arrays.equals(cursor.hash, head.headHash())) {
+                verified.add(head);
+                verifiedEntries.increment(head.headSeq() - head.verifiedSeq());
+                continue;
+            }
+            // A chain that is intact but ends before the head lost its last entries
+            log.error("Journal chain of account {} is broken at entry {} of {}",
+                    head.accountId(), cursor.brokenAt == 0 ? cursor.seq + 1 : cursor.brokenAt, head.headSeq());
+            brokenChains.increment();
+            broken.add(head.accountId());
+        }
+        return broken;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying journal chains", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Position of the verification in one account's chain.
+     */
+    private static final class ChainCursor {
+
+        private long seq;
+        private byte[] hash;
+        private long brokenAt;
+
+        ChainCursor(long seq, byte[] hash) {
+            this.seq = seq;
+            this.hash = hash;
+        }
+
+        void advance(ChainedEntry entry) {
+            if (brokenAt != 0) {
+                return;
+            }
+            byte[] expected = JournalChain.hash(hash, entry.seq(), entry.id(), entry.accountId(), entry.amount(),
+                    entry.currency(), entry.type(), entry.createdAt(), entry.correlationId(), entry.description());
+            if (entry.seq() != seq + 1 || !Arrays.equals(expected, entry.hash())) {
+                brokenAt = entry.seq();
+                return;
+            }
+            seq = entry.seq();
+            hash = entry.hash();
+        }
+    }
+}
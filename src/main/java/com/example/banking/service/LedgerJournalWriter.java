@@ -0,0 +1,233 @@
+package com.example.banking.service;
+
+import com.example.banking.config.LedgerProperties;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.event.AccountBalancesChangedEvent;
+import com.example.banking.event.JournalHeadMovedEvent;
+import com.example.banking.exception.JournalHeadMovedException;
+import com.example.banking.repository.AccountJdbcRepository;
+import com.example.banking.repository.AccountJdbcRepository.BalanceUpdate;
+import com.example.banking.repository.JournalJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the balances and journal entries produced by the {@link HotAccountLedger}.
+ * <p>
+ * Changes are buffered in memory and written on a fixed delay, one database transaction per flush,
+ * so a balance is never persisted without the journal entries that produced it. A balance is only
+ * written over the journal head it was computed from. When a change made outside the ledger moved the
+ * head of an account, only that account's changes are held back, until its shard relinked them onto
+ * the head found in the database, and every other account keeps being flushed. Once the unwritten
+ * entries reach {@link LedgerProperties#maxPending()}, the ledger rejects new transfers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerJournalWriter {
+
+    private final LedgerProperties properties;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final JournalJdbcRepository journalJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferOutbox transferOutbox;
+
+    private Map<UUID, BalanceUpdate> pendingBalances = new HashMap<>();
+    private List<AccountTransaction> pendingEntries = new ArrayList<>();
+    private List<AccountTransaction> pendingTransfers = new ArrayList<>();
+    // Entries of accounts whose journal head moved, in chain order, until their shard relinks them
+    private final Map<UUID, List<AccountTransaction>> heldBack = new HashMap<>();
+    private int heldBackCount;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Starts the periodic flush when the ledger is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ledger-writer").daemon(true).factory());
+        long intervalMillis = properties.flushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still pending.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        synchronized (this) {
+            if (heldBackCount > 0) {
+                log.error("Stopped with {} journal entries of accounts {} still waiting to be relinked",
+                        heldBackCount, heldBack.keySet());
+            }
+        }
+    }
+
+    /**
+     * Tells whether the unwritten journal entries reached the configured maximum.
+     *
+     * @return true if no more changes should be accepted until a flush went through
+     */
+    public synchronized boolean isFull() {
+        return pendingEntries.size() + heldBackCount >= properties.maxPending();
+    }
+
+    /**
+     * Records the new balance of an account together with the journal entry that produced it and,
+     * when that entry is the last leg of a transfer to be booked, the transfer whose outbox event
+     * must be written in the same flush.
+     *
+     * @param accountId the account id
+     * @param balance   the balance after the change
+     * @param entry     the journal entry, already chained
+     * @param completed the entries of the transfer completed by this entry, otherwise empty
+     */
+    public synchronized void record(
+            UUID accountId, BigDecimal balance, AccountTransaction entry, List<AccountTransaction> completed) {
+        // The entry is the new head of the account's chain, the first pending one tells the head it started from
+        pendingBalances.merge(accountId,
+                new BalanceUpdate(balance, entry.getChainSeq() - 1, entry.getChainSeq(), entry.getChainHash()),
+                BalanceUpdate::then);
+        pendingEntries.add(entry);
+        pendingTransfers.addAll(completed);
+    }
+
+    /**
+     * Writes all pending balances, journal entries and outbox events in one transaction.
+     *
+     * @return the number of journal entries written
+     */
+    public int flush() {
+        Map<UUID, BalanceUpdate> balances;
+        List<AccountTransaction> entries;
+        List<AccountTransaction> transfers;
+        Set<UUID> relinking;
+        synchronized (this) {
+            if (pendingEntries.isEmpty() && heldBack.isEmpty()) {
+                return 0;
+            }
+            balances = pendingBalances;
+            entries = pendingEntries;
+            transfers = pendingTransfers;
+            pendingBalances = new HashMap<>();
+            pendingEntries = new ArrayList<>();
+            pendingTransfers = new ArrayList<>();
+            // Changes booked before the shard relinked the account are chained onto a stale head
+            relinking = Set.copyOf(heldBack.keySet());
+            holdBack(relinking, balances, entries);
+        }
+
+        // Asked on every flush until the shard took the entries, so a relink that failed is retried
+        relinking.forEach(accountId -> eventPublisher.publishEvent(new JournalHeadMovedEvent(accountId)));
+        if (entries.isEmpty() && transfers.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accountJdbcRepository.updateBalances(balances, properties.flushBatchSize());
+                journalJdbcRepository.insertAll(entries, properties.flushBatchSize());
+                if (!transfers.isEmpty()) {
+                    transferOutbox.append(transfers);
+                }
+                eventPublisher.publishEvent(AccountBalancesChangedEvent.of(
+                        entries.stream().map(AccountTransaction::getAccount).toList()));
+            });
+        } catch (JournalHeadMovedException ex) {
+            // Only the account that moved is held back, everything else goes out with the next flush
+            synchronized (this) {
+                holdBack(Set.of(ex.getAccountId()), balances, entries);
+            }
+            requeue(balances, entries, transfers);
+            log.warn("{}, holding back its changes until they are relinked", ex.getMessage());
+            eventPublisher.publishEvent(new JournalHeadMovedEvent(ex.getAccountId()));
+            return 0;
+        } catch (RuntimeException ex) {
+            requeue(balances, entries, transfers);
+            throw ex;
+        }
+        return entries.size();
+    }
+
+    /**
+     * Takes the held back entries of an account whose journal head moved, together with the ones
+     * recorded for it since, in chain order. The account is flushed again once they are recorded anew.
+     *
+     * @param accountId the account id
+     * @return the entries to relink, or null if the account is not held back
+     */
+    public synchronized List<AccountTransaction> takeHeldBack(UUID accountId) {
+        List<AccountTransaction> entries = heldBack.remove(accountId);
+        if (entries == null) {
+            return null;
+        }
+        heldBackCount -= entries.size();
+        pendingBalances.remove(accountId);
+        for (Iterator<AccountTransaction> it = pendingEntries.iterator(); it.hasNext(); ) {
+            AccountTransaction entry = it.next();
+            if (entry.getAccount().getId().equals(accountId)) {
+                entries.add(entry);
+                it.remove();
+            }
+        }
+        return entries;
+    }
+
+    // Called with the lock held
+    private void holdBack(Set<UUID> accountIds, Map<UUID, BalanceUpdate> balances, List<AccountTransaction> entries) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        balances.keySet().removeAll(accountIds);
+        for (Iterator<AccountTransaction> it = entries.iterator(); it.hasNext(); ) {
+            AccountTransaction entry = it.next();
+            UUID accountId = entry.getAccount().getId();
+            if (accountIds.contains(accountId)) {
+                heldBack.computeIfAbsent(accountId, id -> new ArrayList<>()).add(entry);
+                heldBackCount++;
+                it.remove();
+            }
+        }
+    }
+
+    private synchronized void requeue(
+            Map<UUID, BalanceUpdate> balances, List<AccountTransaction> entries, List<AccountTransaction> transfers) {
+        // Newer balances recorded since the swap win over the ones that failed to flush
+        balances.forEach((accountId, failed) -> pendingBalances.merge(accountId, failed,
+                (newer, older) -> older.then(newer)));
+        entries.addAll(pendingEntries);
+        pendingEntries = entries;
+        transfers.addAll(pendingTransfers);
+        pendingTransfers = transfers;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.error("Failed to flush ledger journal, will retry", ex);
+        }
+    }
+}
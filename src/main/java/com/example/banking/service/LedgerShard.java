@@ -0,0 +1,177 @@
+package com.example.banking.service;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Owner of the in-memory balances of a subset of hot accounts.
+ * <p>
+ * All reads and mutations run on the shard's single thread, so operations on an account
+ * are applied one at a time in submission order without any locking.
+ */
+class LedgerShard {
+
+    private final ExecutorService executor;
+    private final Function<UUID, Account> loader;
+    private final LedgerJournalWriter journalWriter;
+
+    // Confined to the shard thread
+    private final Map<UUID, Account> accounts = new HashMap<>();
+    private final Map<UUID, BigDecimal> held = new HashMap<>();
+
+    LedgerShard(int index, Function<UUID, Account> loader, LedgerJournalWriter journalWriter) {
+        this.executor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("ledger-shard-" + index).daemon(true).factory());
+        this.loader = loader;
+        this.journalWriter = journalWriter;
+    }
+
+    /**
+     * Returns a detached copy of the account as currently held by the shard.
+     *
+     * @param accountId the account id
+     * @return the account copy
+     */
+    CompletableFuture<Account> read(UUID accountId) {
+        return CompletableFuture.supplyAsync(() -> copyOf(account(accountId)), executor);
+    }
+
+    /**
+     * Holds an amount on an account until it is debited by {@link #settle} or given back by
+     * {@link #release}. Fails with the semantics of {@link Account#debit} if the balance minus the
+     * amounts already held cannot cover it.
+     *
+     * @param accountId the account id
+     * @param amount    the amount to hold
+     * @return the balance once every held amount is debited
+     */
+    CompletableFuture<BigDecimal> hold(UUID accountId, BigDecimal amount) {
+        return CompletableFuture.supplyAsync(() -> {
+            Account available = copyOf(account(accountId));
+            available.debit(held.getOrDefault(accountId, BigDecimal.ZERO));
+            available.debit(amount);
+            held.merge(accountId, amount, BigDecimal::add);
+            return available.getBalance();
+        }, executor);
+    }
+
+    /**
+     * Gives back an amount held by {@link #hold}.
+     *
+     * @param accountId the account id
+     * @param amount    the held amount
+     * @return a future completed once the amount is available again
+     */
+    CompletableFuture<Void> release(UUID accountId, BigDecimal amount) {
+        return CompletableFuture.runAsync(() -> unhold(accountId, amount), executor);
+    }
+
+    /**
+     * Debits an amount held by {@link #hold}, chains its journal entry and hands both to the writer,
+     * together with the transfer it completes if any.
+     * Cannot fail for lack of funds, since the amount was set aside.
+     *
+     * @param accountId the account id
+     * @param amount    the held amount
+     * @param entry     the journal entry describing the debit
+     * @param completed the entries of the transfer if this is its last leg to be booked, otherwise empty
+     * @return the balance after the debit
+     */
+    CompletableFuture<BigDecimal> settle(
+            UUID accountId, BigDecimal amount, AccountTransaction entry, List<AccountTransaction> completed) {
+        return CompletableFuture.supplyAsync(() -> {
+            unhold(accountId, amount);
+            return book(accountId, a -> a.debit(amount), entry, completed);
+        }, executor);
+    }
+
+    /**
+     * Applies a balance change, chains its journal entry and hands both to the writer, together with
+     * the transfer it completes if any.
+     * A mutation that throws leaves the balance untouched.
+     *
+     * @param accountId the account id
+     * @param mutation  the mutation, typically {@link Account#credit}
+     * @param entry     the journal entry describing the change
+     * @param completed the entries of the transfer if this is its last leg to be booked, otherwise empty
+     * @return the balance after the change
+     */
+    CompletableFuture<BigDecimal> apply(
+            UUID accountId, Consumer<Account> mutation, AccountTransaction entry, List<AccountTransaction> completed) {
+        return CompletableFuture.supplyAsync(() -> book(accountId, mutation, entry, completed), executor);
+    }
+
+    /**
+     * Rebuilds an account from the database after its journal head moved outside the ledger. The
+     * entries held back by the writer are applied again on top of the stored balance, chained onto the
+     * stored head and handed to the writer anew, and later changes are booked on the rebuilt account.
+     *
+     * @param accountId the account id
+     * @return a future completed once the account is rebuilt
+     */
+    CompletableFuture<Void> relink(UUID accountId) {
+        return CompletableFuture.runAsync(() -> {
+            // Loaded first, a failed load leaves the entries held back for the next attempt
+            Account account = loader.apply(accountId);
+            List<AccountTransaction> entries = journalWriter.takeHeldBack(accountId);
+            if (entries == null) {
+                return;
+            }
+            for (AccountTransaction entry : entries) {
+                // Amounts are signed and the other legs already committed, so there is no funds check
+                account.setBalance(account.getBalance().add(entry.getAmount()));
+                JournalChain.link(entry, account);
+                journalWriter.record(accountId, account.getBalance(), entry, List.of());
+            }
+            accounts.put(accountId, account);
+        }, executor);
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private BigDecimal book(
+            UUID accountId, Consumer<Account> mutation, AccountTransaction entry, List<AccountTransaction> completed) {
+        Account account = account(accountId);
+        mutation.accept(account);
+        // The shard is the only writer of its accounts, so their chain heads live here too
+        JournalChain.link(entry, account);
+        journalWriter.record(accountId, account.getBalance(), entry, completed);
+        return account.getBalance();
+    }
+
+    private void unhold(UUID accountId, BigDecimal amount) {
+        BigDecimal remaining = held.merge(accountId, amount.negate(), BigDecimal::add);
+        if (remaining.signum() == 0) {
+            held.remove(accountId);
+        }
+    }
+
+    private Account account(UUID accountId) {
+        return accounts.computeIfAbsent(accountId, loader);
+    }
+
+    private static Account copyOf(Account account) {
+        return Account.builder()
+                .id(account.getId())
+                .clientId(account.getClientId())
+                .currency(account.getCurrency())
+                .balance(account.getBalance())
+                .createdAt(account.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.banking.service;
+
+import com.example.banking.config.OutboxProperties;
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Publishes transfer events to RabbitMQ with publisher confirms.
+ * <p>
+ * A batch is sent on one channel and confirmed with a single wait, which requires
+ * {@code spring.rabbitmq.publisher-confirm-type: simple}. The message id is the correlation id
+ * so that consumers can drop the duplicates that at-least-once delivery implies.
+ */
+@Component
+@RequiredArgsConstructor
+public class RabbitTransferEventPublisher implements TransferEventPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final OutboxProperties properties;
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxMessage message : messages) {
+                operations.send(properties.exchange(), properties.routingKey(), toAmqp(message));
+            }
+            operations.waitForConfirmsOrDie(properties.confirmTimeout().toMillis());
+            return null;
+        });
+    }
+
+    private static Message toAmqp(OutboxMessage message) {
+        return MessageBuilder.withBody(message.payload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(message.correlationId().toString())
+                .setCorrelationId(message.correlationId().toString())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.banking.service;
+
+import com.example.banking.config.ExchangeRateSnapshotProperties;
+import com.example.banking.repository.ExchangeRateSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The tier of the exchange rate snapshot shared by all nodes.
+ * <p>
+ * The rate table lives in the {@code exchange_rate_snapshot} table. The node holding the refresh lease
+ * fetches it from the API and stores it, then announces it on a fanout exchange so that every other
+ * node reads it right away instead of on its next scheduled refresh. A lost announcement only delays
+ * the other nodes until then.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SharedExchangeRateStore {
+
+    private static final TypeReference<Map<String, BigDecimal>> RATES = new TypeReference<>() {};
+
+    private final ExchangeRateSnapshotRepository repository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExchangeRateSnapshotProperties properties;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Loads the stored rate table.
+     *
+     * @return the stored snapshot, empty if none was stored yet
+     */
+    public Optional<ExchangeRateSnapshot> load() {
+        return repository.findByBaseCurrency(properties.baseCurrency())
+                .map(stored -> new ExchangeRateSnapshot(properties.baseCurrency(), read(stored.rates()), stored.fetchedAt()));
+    }
+
+    /**
+     * Takes the lease on refreshing the rate table, or confirms this node still holds it.
+     *
+     * @param now the current time
+     * @return true if this node is to call the API
+     */
+    public boolean claimRefresh(Instant now) {
+        return repository.claimRefresh(
+                properties.baseCurrency(), nodeId, now, now.plus(properties.shared().leaseDuration()));
+    }
+
+    /**
+     * Extends the lease once a refreshed table was stored.
+     *
+     * @param now the current time
+     */
+    public void extendRefresh(Instant now) {
+        repository.moveRefreshLease(properties.baseCurrency(), nodeId, now.plus(properties.shared().leaseDuration()));
+    }
+
+    /**
+     * Gives up the lease after a failed refresh, so that another node may try instead of waiting for it to expire.
+     *
+     * @param now the current time
+     */
+    public void releaseRefresh(Instant now) {
+        repository.moveRefreshLease(properties.baseCurrency(), nodeId, now);
+    }
+
+    /**
+     * Stores a freshly fetched rate table and announces it to the other nodes.
+     *
+     * @param snapshot the snapshot
+     */
+    public void publish(ExchangeRateSnapshot snapshot) {
+        if (!repository.save(snapshot.getBaseCurrency(), write(snapshot.getRates()), snapshot.getFetchedAt())) {
+            return;
+        }
+        try {
+            rabbitTemplate.convertAndSend(properties.shared().exchange(), "", snapshot.getBaseCurrency());
+        } catch (AmqpException ex) {
+            log.warn("Failed to announce exchange rates fetched at {}, other nodes read them on their next refresh",
+                    snapshot.getFetchedAt(), ex);
+        }
+    }
+
+    private Map<String, BigDecimal> read(String rates) {
+        try {
+            return objectMapper.readValue(rates, RATES);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable stored exchange rates", ex);
+        }
+    }
+
+    private String write(Map<String, BigDecimal> rates) {
+        try {
+            return objectMapper.writeValueAsString(rates);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to store exchange rates", ex);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.banking.service;
+
+import com.example.banking.config.StatementProperties;
+import com.example.banking.dto.StatementFormat;
+import com.example.banking.exception.AccountNotFoundException;
+import com.example.banking.exception.StatementExportRejectedException;
+import com.example.banking.repository.AccountRepository;
+import com.example.banking.repository.StatementJdbcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exports the complete history of an account.
+ * <p>
+ * Rows go from a JDBC cursor straight to the response stream, one fetch at a time, so the heap used
+ * does not depend on the size of the history. The cursor holds a connection for the whole export,
+ * so only a few exports may run at once; the others are rejected before the response is committed
+ * rather than left to drain the connection pool.
+ */
+@Slf4j
+@Service
+public class StatementService {
+
+    private final AccountRepository accountRepository;
+    private final StatementJdbcRepository statementJdbcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final StatementProperties properties;
+    private final Semaphore exports;
+
+    /**
+     * Instantiates a new Statement service.
+     *
+     * @param accountRepository       the account repository
+     * @param statementJdbcRepository the statement jdbc repository
+     * @param transactionManager      the transaction manager
+     * @param objectMapper            the object mapper
+     * @param properties              the properties
+     */
+    public StatementService(
+            AccountRepository accountRepository,
+            StatementJdbcRepository statementJdbcRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            StatementProperties properties
+    ) {
+        this.accountRepository = accountRepository;
+        this.statementJdbcRepository = statementJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.exports = new Semaphore(properties.maxConcurrent());
+    }
+
+    /**
+     * Reserves one of the concurrent exports, before the response is committed.
+     *
+     * @return the permit, to close once the export is over
+     * @throws StatementExportRejectedException if the maximum number of exports is running
+     */
+    public ExportPermit acquireExport() {
+        if (!exports.tryAcquire()) {
+            throw new StatementExportRejectedException(
+                    "Too many statement exports in progress, retry later", properties.retryAfter());
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                exports.release();
+            }
+        };
+    }
+
+    /**
+     * Checks that an account exists, before the response is committed.
+     *
+     * @param accountId the account id
+     * @throws AccountNotFoundException if it does not
+     */
+    public void requireAccount(UUID accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+    }
+
+    /**
+     * Writes the statement of an account, oldest transaction first.
+     *
+     * @param accountId the account id
+     * @param format    the format
+     * @param out       the output stream, left open
+     * @return the number of transactions written
+     * @throws IOException if writing fails
+     */
+    public long export(UUID accountId, StatementFormat format, OutputStream out) throws IOException {
+        try (StatementWriter writer = StatementWriter.of(format, out, objectMapper)) {
+            // The cursor only streams inside a transaction, see StatementJdbcRepository
+            Long rows = readOnlyTransaction.execute(status ->
+                    statementJdbcRepository.forEachByAccountId(accountId, properties.fetchSize(), line -> {
+                        try {
+                            writer.write(line);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }));
+            log.debug("Exported {} transactions of account {}", rows, accountId);
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * One of the concurrent exports, released when closed. Closing it again has no effect.
+     */
+    public interface ExportPermit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
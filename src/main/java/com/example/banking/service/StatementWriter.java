@@ -0,0 +1,136 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.StatementFormat;
+import com.example.banking.repository.StatementJdbcRepository.StatementLine;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes statement lines to an output stream as they are read, keeping nothing but a fixed size buffer.
+ * <p>
+ * Field names and value formats are those of {@link com.example.banking.dto.TransactionResponse}.
+ */
+abstract class StatementWriter implements Closeable {
+
+    /**
+     * Creates a writer for a format.
+     *
+     * @param format       the format
+     * @param out          the output stream, left open
+     * @param objectMapper the object mapper providing the JSON factory
+     * @return the statement writer
+     * @throws IOException if the writer cannot be opened
+     */
+    static StatementWriter of(StatementFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8));
+            case CSV -> new Csv(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192));
+        };
+    }
+
+    /**
+     * Writes one line.
+     *
+     * @param line the line
+     * @throws IOException if writing fails, typically because the client went away
+     */
+    abstract void write(StatementLine line) throws IOException;
+
+    private static final class Ndjson extends StatementWriter {
+
+        private final JsonGenerator generator;
+
+        private Ndjson(JsonGenerator generator) {
+            this.generator = generator;
+            // Lines are terminated explicitly instead of separated by Jackson's default space
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void write(StatementLine line) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", line.id().toString());
+            generator.writeStringField("amount", line.amount().toPlainString());
+            generator.writeStringField("currency", line.currency());
+            generator.writeStringField("type", line.type());
+            generator.writeStringField("createdAt", line.createdAt().toString());
+            generator.writeStringField("description", line.description());
+            generator.writeStringField("correlationId",
+                    line.correlationId() == null ? null : line.correlationId().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class Csv extends StatementWriter {
+
+        private static final String HEADER = "id,amount,currency,type,createdAt,description,correlationId\n";
+
+        private final Writer writer;
+
+        private Csv(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(HEADER);
+        }
+
+        @Override
+        void write(StatementLine line) throws IOException {
+            writer.write(line.id().toString());
+            writer.write(',');
+            writer.write(line.amount().toPlainString());
+            writer.write(',');
+            writer.write(line.currency());
+            writer.write(',');
+            writer.write(line.type());
+            writer.write(',');
+            writer.write(line.createdAt().toString());
+            writer.write(',');
+            writeQuoted(line.description());
+            writer.write(',');
+            if (line.correlationId() != null) {
+                writer.write(line.correlationId().toString());
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flushed but not closed, the servlet container owns the response stream
+            writer.flush();
+        }
+
+        private void writeQuoted(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.banking.service;
+
+import com.example.banking.config.PartitionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Creates the monthly partitions of account_transaction ahead of time.
+ * <p>
+ * Rows whose created_at has no partition are rejected by the database, so partitions are created
+ * on startup and every night for the current month and the configured number of months to come.
+ * The current month is included in case it was never created ahead, for instance after the nodes were
+ * down for longer than that. Creation is idempotent and may run concurrently on several nodes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProperties properties;
+
+    /**
+     * Ensures the partitions of the current month and the months ahead exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${banking.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void createUpcomingPartitions() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= properties.monthsAhead(); i++) {
+            try {
+                jdbcTemplate.queryForObject(
+                        "SELECT create_account_transaction_partition(?)::text",
+                        String.class,
+                        Date.valueOf(month.plusMonths(i)));
+            } catch (DataAccessException ex) {
+                log.warn("Could not create account_transaction partition for {}", month.plusMonths(i), ex);
+            }
+        }
+    }
+}
@@ -1,39 +1,80 @@
 package com.example.banking.service;
 
-import com.example.banking.domain.AccountTransaction;
+import com.example.banking.dto.TransactionCursor;
+import com.example.banking.dto.TransactionPage;
 import com.example.banking.exception.AccountNotFoundException;
 import com.example.banking.repository.AccountRepository;
 import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.TransactionView;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 /**
  * The type Transaction service.
+ * <p>
+ * History pages are read as {@link TransactionView} projections in one read-only transaction, so
+ * nothing enters the persistence context and nothing is dirty checked or flushed. A page is read in
+ * the same repeatable read snapshot as its entity tag, so the tag always describes the page it is
+ * served with.
  */
 @Service
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
 
+    /**
+     * Gets the entity tag of the history of an account without reading it.
+     * <p>
+     * Every journal entry is written together with a balance update of its account, which bumps the
+     * account version, so the version changes whenever the history does.
+     *
+     * @param accountId the account id
+     * @return the entity tag, unquoted
+     */
+    public String getAccountTransactionsTag(UUID accountId) {
+        return accountRepository.findVersionById(accountId)
+                .map(String::valueOf)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
     /**
      * Gets account transactions.
      *
      * @param accountId the account id
      * @param pageable  the pageable
-     * @return the account transactions
+     * @return the account transactions with their entity tag
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TransactionPage getAccountTransactions(UUID accountId, Pageable pageable) {
+        // Also validates that the account exists
+        String etag = getAccountTransactionsTag(accountId);
+
+        return new TransactionPage(transactionRepository.findSliceByAccountId(accountId, pageable), etag);
+    }
+
+    /**
+     * Gets account transactions following a cursor.
+     *
+     * @param accountId the account id
+     * @param cursor    the cursor
+     * @param limit     the limit
+     * @return the account transactions with their entity tag
      */
-    public Page<AccountTransaction> getAccountTransactions(UUID accountId, Pageable pageable) {
-        // Validate account exists
-        if (!accountRepository.existsById(accountId)) {
-            throw new AccountNotFoundException(accountId);
-        }
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TransactionPage getAccountTransactions(UUID accountId, TransactionCursor cursor, int limit) {
+        // Also validates that the account exists
+        String etag = getAccountTransactionsTag(accountId);
 
-        return transactionRepository.findTransactionsByAccountId(accountId, pageable);
+        return new TransactionPage(transactionRepository.findSliceByAccountIdBefore(
+                accountId, cursor.createdAt(), cursor.id(), PageRequest.ofSize(limit)), etag);
     }
-}
\ No newline at end of file
+}
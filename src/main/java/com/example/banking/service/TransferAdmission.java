@@ -0,0 +1,239 @@
+package com.example.banking.service;
+
+import com.example.banking.config.AdmissionProperties;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.exception.AccountBusyException;
+import com.example.banking.exception.TransferRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive admission limit for transfers, shared fairly between clients.
+ * <p>
+ * The number of transfers in flight is capped by a limit that follows AIMD on observed latency: it
+ * grows by one per limit's worth of fast transfers while it is in use, and shrinks by the backoff
+ * ratio when a transfer is slower than the latency threshold or fails for lack of database capacity,
+ * at most once per threshold so that one slow burst is only punished once. Transfers beyond the limit
+ * are rejected right away instead of queuing for connections, which keeps the latency of admitted
+ * transfers flat under overload.
+ * <p>
+ * A transfer that fails because its accounts are busy says nothing about the capacity of the system,
+ * only about those accounts, so it neither grows nor shrinks the limit. It is counted separately and
+ * left to the client to retry.
+ * <p>
+ * Each client, the owner of the sender account, gets an equal share of the limit among the clients
+ * with transfers in flight. A client may exceed its share only while at least one share is still free,
+ * so a client arriving during a burst of another one always finds room.
+ * <p>
+ * A batch holds one connection at a time however many transfers it carries, so it takes a single slot.
+ * Batches are charged to one shared client, and since their duration grows with their size, only a
+ * failure for lack of capacity feeds back into the limit.
+ */
+@Service
+public class TransferAdmission {
+
+    static final String BATCH_CLIENT = "batch";
+
+    private final AdmissionProperties properties;
+    private final AccountMetadataCache accountMetadataCache;
+    private final long latencyThresholdNanos;
+
+    private final Counter admitted;
+    private final Counter rejectedLimit;
+    private final Counter rejectedShare;
+    private final Counter contended;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private final Map<String, Integer> inFlightByClient = new HashMap<>();
+    private long lastDecreaseNanos;
+
+    /**
+     * Instantiates a new Transfer admission.
+     *
+     * @param properties           the properties
+     * @param accountMetadataCache the account metadata cache
+     * @param meterRegistry        the meter registry
+     */
+    public TransferAdmission(
+            AdmissionProperties properties,
+            AccountMetadataCache accountMetadataCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.accountMetadataCache = accountMetadataCache;
+        this.latencyThresholdNanos = properties.latencyThreshold().toNanos();
+        this.limit = properties.initialLimit();
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+
+        this.admitted = outcomeCounter(meterRegistry, "admitted");
+        this.rejectedLimit = outcomeCounter(meterRegistry, "rejected_limit");
+        this.rejectedShare = outcomeCounter(meterRegistry, "rejected_share");
+        this.contended = outcomeCounter(meterRegistry, "contended");
+        Gauge.builder("banking.transfer.admission.limit", this, TransferAdmission::getLimit)
+                .description("Number of transfers currently admitted at once")
+                .register(meterRegistry);
+        Gauge.builder("banking.transfer.admission.inflight", this, TransferAdmission::getInFlight)
+                .description("Number of admitted transfers still running")
+                .register(meterRegistry);
+        Gauge.builder("banking.transfer.admission.clients", this, TransferAdmission::getActiveClients)
+                .description("Number of clients with transfers in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a transfer if the limit and the client's share allow it.
+     *
+     * @param <T>      the result type
+     * @param request  the request
+     * @param transfer the transfer
+     * @return the result of the transfer
+     * @throws TransferRejectedException if the transfer was shed
+     */
+    public <T> T admit(TransferRequest request, Supplier<T> transfer) {
+        if (!properties.enabled()) {
+            return transfer.get();
+        }
+        return run(accountMetadataCache.get(request.fromAccountId()).clientId(), Outcome.COMPLETED, transfer);
+    }
+
+    /**
+     * Runs a batch of transfers if the limit and the share of batches allow it.
+     *
+     * @param <T>   the result type
+     * @param batch the batch
+     * @return the result of the batch
+     * @throws TransferRejectedException if the batch was shed
+     */
+    public <T> T admitBatch(Supplier<T> batch) {
+        if (!properties.enabled()) {
+            return batch.get();
+        }
+        return run(BATCH_CLIENT, Outcome.BATCH_COMPLETED, batch);
+    }
+
+    private <T> T run(String clientId, Outcome completed, Supplier<T> transfer) {
+        acquire(clientId);
+        long start = System.nanoTime();
+        Outcome outcome = completed;
+        try {
+            return transfer.get();
+        } catch (AccountBusyException | ConcurrencyFailureException ex) {
+            outcome = Outcome.CONTENDED;
+            throw ex;
+        } catch (CannotCreateTransactionException | QueryTimeoutException
+                 | TransientDataAccessResourceException | DataAccessResourceFailureException ex) {
+            outcome = Outcome.OVERLOADED;
+            throw ex;
+        } finally {
+            release(clientId, start, System.nanoTime(), outcome);
+        }
+    }
+
+    /**
+     * Gets the current limit.
+     *
+     * @return the limit
+     */
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the number of admitted transfers still running.
+     *
+     * @return the number of transfers in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the number of clients with transfers in flight.
+     *
+     * @return the number of clients
+     */
+    public synchronized int getActiveClients() {
+        return inFlightByClient.size();
+    }
+
+    synchronized void acquire(String clientId) {
+        int current = (int) limit;
+        if (inFlight >= current) {
+            rejectedLimit.increment();
+            throw new TransferRejectedException(
+                    "Too many transfers in progress, retry later", properties.retryAfter());
+        }
+        int clientInFlight = inFlightByClient.getOrDefault(clientId, 0);
+        int activeClients = inFlightByClient.size() + (clientInFlight == 0 ? 1 : 0);
+        int share = Math.max(1, Math.ceilDiv(current, activeClients));
+        if (clientInFlight >= share && current - inFlight <= share) {
+            rejectedShare.increment();
+            throw new TransferRejectedException(
+                    "Too many transfers in progress for client " + clientId + ", retry later", properties.retryAfter());
+        }
+        inFlight++;
+        inFlightByClient.put(clientId, clientInFlight + 1);
+        admitted.increment();
+    }
+
+    synchronized void release(String clientId, long startNanos, long endNanos, Outcome outcome) {
+        inFlight--;
+        inFlightByClient.computeIfPresent(clientId, (id, count) -> count == 1 ? null : count - 1);
+
+        if (outcome == Outcome.CONTENDED) {
+            // Busy accounts are a signal for their owner, not for the capacity of the system
+            contended.increment();
+        } else if (outcome == Outcome.OVERLOADED
+                || (outcome == Outcome.COMPLETED && endNanos - startNanos > latencyThresholdNanos)) {
+            if (endNanos - lastDecreaseNanos >= latencyThresholdNanos) {
+                limit = Math.max(properties.minLimit(), limit * properties.backoffRatio());
+                lastDecreaseNanos = endNanos;
+            }
+        } else if (outcome == Outcome.COMPLETED && (inFlight + 1) * 2 >= limit) {
+            // Only a limit that is actually used has proven it can grow
+            limit = Math.min(properties.maxLimit(), limit + 1 / limit);
+        }
+    }
+
+    /**
+     * How an admitted transfer ended, as far as the limit is concerned.
+     */
+    enum Outcome {
+        /**
+         * The transfer ran to completion or failed for a reason of its own.
+         */
+        COMPLETED,
+        /**
+         * The batch ran to completion, its duration says nothing about the latency of one transfer.
+         */
+        BATCH_COMPLETED,
+        /**
+         * The transfer failed for lack of database capacity.
+         */
+        OVERLOADED,
+        /**
+         * The transfer failed because its accounts were busy.
+         */
+        CONTENDED
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("banking.transfer.admission")
+                .description("Transfers admitted or shed by the admission limit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
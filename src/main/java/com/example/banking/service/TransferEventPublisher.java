@@ -0,0 +1,19 @@
+package com.example.banking.service;
+
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Sends outbox messages to the message broker.
+ */
+public interface TransferEventPublisher {
+
+    /**
+     * Publishes a batch of messages and returns once the broker confirmed all of them.
+     *
+     * @param messages the messages, oldest first
+     * @throws RuntimeException if any message was not confirmed, in which case the whole batch is retried
+     */
+    void publish(List<OutboxMessage> messages);
+}
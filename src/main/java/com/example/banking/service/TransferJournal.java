@@ -0,0 +1,92 @@
+package com.example.banking.service;
+
+import com.example.banking.domain.Account;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.util.UuidV7;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the pair of journal entries recorded for a transfer.
+ * <p>
+ * Entries get their id and a creation time truncated to the microsecond precision of the column up front,
+ * since both are covered by the {@link JournalChain} hash computed before they are written.
+ */
+final class TransferJournal {
+
+    private TransferJournal() {
+    }
+
+    /**
+     * Builds the debit and credit entries of a transfer, in that order.
+     *
+     * @param sender        the sender
+     * @param receiver      the receiver
+     * @param debitAmount   the debit amount
+     * @param creditAmount  the credit amount
+     * @param exchangeRate  the exchange rate
+     * @param correlationId the correlation id
+     * @param now           the creation timestamp
+     * @return the debit and credit entries
+     */
+    static List<AccountTransaction> entries(
+            Account sender,
+            Account receiver,
+            BigDecimal debitAmount,
+            BigDecimal creditAmount,
+            BigDecimal exchangeRate,
+            UUID correlationId,
+            Instant now
+    ) {
+        Instant createdAt = now.truncatedTo(ChronoUnit.MICROS);
+
+        // Sender transaction (outflow)
+        AccountTransaction debitTransaction = AccountTransaction.builder()
+                .id(UuidV7.next())
+                .account(sender)
+                .amount(debitAmount.negate())
+                .currency(sender.getCurrency())
+                .type(AccountTransaction.TransactionType.TRANSFER_OUT)
+                .correlationId(correlationId)
+                .createdAt(createdAt)
+                .description(describe(sender, receiver, exchangeRate))
+                .build();
+
+        // Receiver transaction (inflow)
+        AccountTransaction creditTransaction = AccountTransaction.builder()
+                .id(UuidV7.next())
+                .account(receiver)
+                .amount(creditAmount)
+                .currency(receiver.getCurrency())
+                .type(AccountTransaction.TransactionType.TRANSFER_IN)
+                .correlationId(correlationId)
+                .createdAt(createdAt)
+                .description("Transfer from " + sender.getId())
+                .build();
+
+        return List.of(debitTransaction, creditTransaction);
+    }
+
+    /**
+     * Describes the outflow of a transfer, including the exchange rate if one applied.
+     *
+     * @param sender       the sender
+     * @param receiver     the receiver
+     * @param exchangeRate the exchange rate
+     * @return the description
+     */
+    static String describe(Account sender, Account receiver, BigDecimal exchangeRate) {
+        String description = "Transfer to " + receiver.getId();
+        if (!exchangeRate.equals(BigDecimal.ONE)) {
+            description += String.format(" (Rate: %s %s/%s)",
+                    exchangeRate.stripTrailingZeros().toPlainString(),
+                    sender.getCurrency(),
+                    receiver.getCurrency());
+        }
+        return description;
+    }
+}
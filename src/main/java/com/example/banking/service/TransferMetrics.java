@@ -0,0 +1,150 @@
+package com.example.banking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the stages of a single transfer.
+ * <p>
+ * All timers are registered up front and fed with {@link System#nanoTime()} differences, so
+ * recording a sample does not look up a meter. Recording is cheap but not free of allocation, since a
+ * transfer allocates the clock it threads through its stages and the callbacks capturing it.
+ * Percentiles and histograms are configured under {@code management.metrics.distribution} for the
+ * {@code banking.transfer} prefix.
+ */
+@Component
+public class TransferMetrics {
+
+    /**
+     * The stages of a transfer, in execution order.
+     */
+    public enum Stage {
+        /** Reading the account currencies. */
+        METADATA("metadata"),
+        /** Resolving the exchange rate, only for conversions. */
+        FX_RATE("fx_rate"),
+        /** Waiting for the account lanes. */
+        LANE_WAIT("lane_wait"),
+        /** Obtaining a connection and opening the transaction. */
+        CONNECTION("connection"),
+        /** Waiting for the account row locks. */
+        LOCK_WAIT("lock_wait"),
+        /** Writing both balances. */
+        BALANCE_WRITE("balance_write"),
+        /** Inserting the journal entries. */
+        JOURNAL_INSERT("journal_insert"),
+        /** Appending the outbox message. */
+        OUTBOX_APPEND("outbox_append"),
+        /** Committing the transaction. */
+        COMMIT("commit");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[] stages;
+    private final Timer completed;
+    private final Timer failed;
+    private final Timer lockHold;
+    private final Counter optimisticCommitted;
+    private final Counter optimisticConflict;
+    private final Counter optimisticFallback;
+
+    /**
+     * Instantiates new Transfer metrics.
+     *
+     * @param meterRegistry the meter registry
+     */
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        Stage[] values = Stage.values();
+        this.stages = new Timer[values.length];
+        for (Stage stage : values) {
+            stages[stage.ordinal()] = Timer.builder("banking.transfer.stage")
+                    .description("Time spent by transfers in one stage")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+        }
+        this.completed = transferTimer(meterRegistry, "completed");
+        this.failed = transferTimer(meterRegistry, "failed");
+        this.lockHold = Timer.builder("banking.transfer.lock.hold")
+                .description("Time account rows stay locked by a transfer, from acquisition to commit")
+                .register(meterRegistry);
+        this.optimisticCommitted = optimisticCounter(meterRegistry, "committed");
+        this.optimisticConflict = optimisticCounter(meterRegistry, "conflict");
+        this.optimisticFallback = optimisticCounter(meterRegistry, "fallback");
+    }
+
+    /**
+     * Records the time spent in a stage.
+     *
+     * @param stage      the stage
+     * @param startNanos the {@link System#nanoTime()} at which the stage started
+     * @return the {@link System#nanoTime()} at which the stage ended, to start the next one with
+     */
+    public long record(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stages[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Records the duration of a whole transfer.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the transfer started
+     * @param successful whether the transfer was applied
+     */
+    public void recordTransfer(long startNanos, boolean successful) {
+        (successful ? completed : failed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records how long the account rows stayed locked.
+     *
+     * @param lockedAtNanos the {@link System#nanoTime()} at which the first row was locked
+     */
+    public void recordLockHold(long lockedAtNanos) {
+        lockHold.record(System.nanoTime() - lockedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an optimistic attempt that committed.
+     */
+    public void optimisticCommitted() {
+        optimisticCommitted.increment();
+    }
+
+    /**
+     * Counts an optimistic attempt that lost against a concurrent update.
+     */
+    public void optimisticConflict() {
+        optimisticConflict.increment();
+    }
+
+    /**
+     * Counts a transfer that used up its optimistic attempts and locked the rows instead.
+     */
+    public void optimisticFallback() {
+        optimisticFallback.increment();
+    }
+
+    private static Counter optimisticCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("banking.transfer.optimistic")
+                .description("Optimistic transfer attempts by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Timer transferTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("banking.transfer")
+                .description("Time to apply a transfer, from request to commit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
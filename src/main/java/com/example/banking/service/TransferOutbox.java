@@ -0,0 +1,56 @@
+package com.example.banking.service;
+
+import com.example.banking.config.OutboxProperties;
+import com.example.banking.domain.AccountTransaction;
+import com.example.banking.event.TransferCompletedEvent;
+import com.example.banking.repository.TransferOutboxRepository;
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Writes a {@link TransferCompletedEvent} per transfer to the outbox table.
+ * <p>
+ * Must be called in the transaction that records the journal entries, so that an event exists
+ * if and only if its transfer committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferOutbox {
+
+    private final TransferOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+
+    /**
+     * Appends one event per transfer found in the journal entries.
+     *
+     * @param entries the debit and credit entries of one or more transfers
+     */
+    public void append(Collection<AccountTransaction> entries) {
+        Map<UUID, AccountTransaction[]> transfers = new LinkedHashMap<>();
+        for (AccountTransaction entry : entries) {
+            AccountTransaction[] legs = transfers.computeIfAbsent(
+                    entry.getCorrelationId(), id -> new AccountTransaction[2]);
+            legs[entry.getType() == AccountTransaction.TransactionType.TRANSFER_OUT ? 0 : 1] = entry;
+        }
+
+        List<OutboxMessage> messages = new ArrayList<>(transfers.size());
+        transfers.forEach((correlationId, legs) -> messages.add(new OutboxMessage(
+                0, correlationId, write(TransferCompletedEvent.fromEntries(legs[0], legs[1])))));
+        outboxRepository.appendAll(messages, Instant.now(), properties.batchSize());
+    }
+
+    private String write(TransferCompletedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize transfer event " + event.correlationId(), ex);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.banking.service;
+
+import com.example.banking.config.OutboxProperties;
+import com.example.banking.repository.TransferOutboxRepository;
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Drains the transfer outbox to the broker.
+ * <p>
+ * Each batch is locked, published, confirmed and deleted in one transaction. A batch that is not
+ * confirmed is rolled back and sent again later, so delivery is at least once and in order per relay.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferOutboxRelay {
+
+    private final TransferOutboxRepository outboxRepository;
+    private final TransferEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    /**
+     * Relays pending messages on a fixed delay when enabled.
+     */
+    @Scheduled(fixedDelayString = "${banking.outbox.poll-interval:200ms}")
+    public void relayPending() {
+        if (!properties.relayEnabled()) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to relay transfer events, will retry", ex);
+        }
+    }
+
+    /**
+     * Relays batches until the outbox is empty.
+     *
+     * @return the number of relayed messages
+     */
+    public int drain() {
+        int relayed = 0;
+        int batch;
+        do {
+            batch = relayBatch();
+            relayed += batch;
+        } while (batch == properties.batchSize());
+        return relayed;
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxMessage> messages = outboxRepository.lockOldest(properties.batchSize());
+            if (messages.isEmpty()) {
+                return 0;
+            }
+            publisher.publish(messages);
+            outboxRepository.deleteAll(messages);
+            return messages.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+}
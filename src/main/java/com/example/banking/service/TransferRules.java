@@ -0,0 +1,58 @@
+package com.example.banking.service;
+
+import com.example.banking.domain.Account;
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.exception.CurrencyMismatchException;
+import com.example.banking.util.CurrencyCode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Business rules shared by the transfer paths.
+ */
+final class TransferRules {
+
+    private TransferRules() {
+    }
+
+    /**
+     * Validates receiver currency matches transfer currency.
+     *
+     * @param receiver the receiver
+     * @param request  the request
+     */
+    static void checkReceiverCurrency(Account receiver, TransferRequest request) {
+        checkReceiverCurrency(receiver.getCurrency(), request.currency());
+    }
+
+    /**
+     * Validates receiver currency matches transfer currency.
+     *
+     * @param receiverCurrency the receiver currency
+     * @param currency         the transfer currency
+     */
+    static void checkReceiverCurrency(CurrencyCode receiverCurrency, CurrencyCode currency) {
+        if (receiverCurrency != currency) {
+            throw mismatch(receiverCurrency.code(), currency.code());
+        }
+    }
+
+    /**
+     * Converts the transfer amount into the sender currency.
+     *
+     * @param amount       the amount in the transfer currency
+     * @param exchangeRate the exchange rate
+     * @return the amount to debit
+     */
+    static BigDecimal convert(BigDecimal amount, BigDecimal exchangeRate) {
+        return amount.multiply(exchangeRate)
+                .setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    private static CurrencyMismatchException mismatch(String receiverCurrency, String currency) {
+        return new CurrencyMismatchException(
+                "Receiver account requires " + receiverCurrency + ", but transfer requested in " + currency
+        );
+    }
+}
@@ -3,28 +3,109 @@ package com.example.banking.service;
 import com.example.banking.domain.*;
 import com.example.banking.dto.TransferRequest;
 import com.example.banking.dto.TransferResult;
+import com.example.banking.event.AccountBalancesChangedEvent;
 import com.example.banking.exception.*;
+import com.example.banking.repository.AccountMetadata;
 import com.example.banking.repository.AccountRepository;
-import com.example.banking.repository.TransactionRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.banking.repository.JournalJdbcRepository;
+import com.example.banking.repository.TransferJdbcRepository;
+import com.example.banking.repository.TransferJdbcRepository.LockedBalance;
+import com.example.banking.config.TransferProperties;
+import com.example.banking.service.TransferMetrics.Stage;
+import com.example.banking.util.CurrencyCode;
+import com.example.banking.util.LockOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * The type Transfer service.
+ * <p>
+ * Everything that may be slow, in particular the exchange rate lookup, happens before the account
+ * rows are locked. The locked section only re-validates the currencies and applies the balances.
+ * Transfers of the same account wait for each other in {@link TransferLanes} before a connection
+ * is taken, so the row locks are normally uncontended.
+ * <p>
+ * Depending on {@code banking.transfer.concurrency.mode} the rows may instead be read without locks and
+ * written only if their version is unchanged. A transfer that loses against a concurrent update is
+ * retried after a short random pause and falls back to row locks once its attempts are used up.
+ * <p>
+ * Same-currency transfers that lock the rows need neither the rows nor a rate in Java, so by default
+ * they lock, check, update and journal both accounts in a single SQL statement instead.
  */
 @Service
-@RequiredArgsConstructor
 public class TransferService {
 
     private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
+    private final JournalJdbcRepository journalJdbcRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
     private final ExchangeRateService exchangeRateService;
+    private final HotAccountLedger hotAccountLedger;
+    private final AccountMetadataCache accountMetadataCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferLanes transferLanes;
+    private final TransferOutbox transferOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMetrics transferMetrics;
+    private final AccountContentionTracker contentionTracker;
+    private final TransferProperties.Concurrency concurrency;
+
+    /**
+     * Instantiates a new Transfer service.
+     *
+     * @param accountRepository     the account repository
+     * @param journalJdbcRepository the journal jdbc repository
+     * @param transferJdbcRepository the transfer jdbc repository
+     * @param exchangeRateService   the exchange rate service
+     * @param hotAccountLedger      the hot account ledger
+     * @param accountMetadataCache  the account metadata cache
+     * @param transactionTemplate   the transaction template
+     * @param transferLanes         the transfer lanes
+     * @param transferOutbox        the transfer outbox
+     * @param eventPublisher        the event publisher
+     * @param transferMetrics       the transfer metrics
+     * @param contentionTracker     the contention tracker
+     * @param properties            the transfer properties
+     */
+    public TransferService(
+            AccountRepository accountRepository,
+            JournalJdbcRepository journalJdbcRepository,
+            TransferJdbcRepository transferJdbcRepository,
+            ExchangeRateService exchangeRateService,
+            HotAccountLedger hotAccountLedger,
+            AccountMetadataCache accountMetadataCache,
+            TransactionTemplate transactionTemplate,
+            TransferLanes transferLanes,
+            TransferOutbox transferOutbox,
+            ApplicationEventPublisher eventPublisher,
+            TransferMetrics transferMetrics,
+            AccountContentionTracker contentionTracker,
+            TransferProperties properties
+    ) {
+        this.accountRepository = accountRepository;
+        this.journalJdbcRepository = journalJdbcRepository;
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.hotAccountLedger = hotAccountLedger;
+        this.accountMetadataCache = accountMetadataCache;
+        this.transactionTemplate = transactionTemplate;
+        this.transferLanes = transferLanes;
+        this.transferOutbox = transferOutbox;
+        this.eventPublisher = eventPublisher;
+        this.transferMetrics = transferMetrics;
+        this.contentionTracker = contentionTracker;
+        this.concurrency = properties.concurrency();
+    }
 
     /**
      * Transfer funds transfer result.
@@ -32,126 +113,298 @@ public class TransferService {
      * @param request the request
      * @return the transfer result
      */
-    @Transactional
     public TransferResult transferFunds(TransferRequest request) {
+        return transferFunds(request, result -> {
+        });
+    }
+
+    /**
+     * Transfer funds transfer result, handing the result to a callback inside the transfer's transaction.
+     * <p>
+     * Whatever the callback writes commits or rolls back together with the balances, and it runs again
+     * if the transaction is retried after losing against a concurrent update.
+     *
+     * @param request      the request
+     * @param beforeCommit the callback, invoked once the transfer is applied and before it commits
+     * @return the transfer result
+     */
+    public TransferResult transferFunds(TransferRequest request, Consumer<TransferResult> beforeCommit) {
         // Prevent same account transfer
         if (request.fromAccountId().equals(request.toAccountId())) {
             throw new SameAccountTransferException("Cannot transfer to the same account");
         }
 
+        // Hot accounts are owned by the in-memory ledger instead of being row locked
+        if (hotAccountLedger.handles(request)) {
+            return hotAccountLedger.transfer(request, beforeCommit);
+        }
+
+        long start = System.nanoTime();
+        boolean successful = false;
+        // clock[0] is the end of the last recorded stage, clock[1] the moment the first row got locked.
+        // Shared by the lane and transaction callbacks, it is allocated once per transfer.
+        long[] clock = new long[2];
+        try {
+            // Read currencies without locks, they never change once an account exists
+            AccountMetadata sender = accountMetadataCache.get(request.fromAccountId());
+            AccountMetadata receiver = accountMetadataCache.get(request.toAccountId());
+            clock[0] = transferMetrics.record(Stage.METADATA, start);
+
+            // Validate receiver currency matches transfer currency, currencies are compared by identity
+            CurrencyCode currency = request.currency();
+            TransferRules.checkReceiverCurrency(receiver.currency(), currency);
+
+            // Resolve the rate before any row is locked
+            BigDecimal exchangeRate = BigDecimal.ONE;
+            if (sender.currency() != currency) {
+                exchangeRate = exchangeRateService.getExchangeRate(
+                        currency.code(),
+                        sender.currency().code()
+                );
+                clock[0] = transferMetrics.record(Stage.FX_RATE, clock[0]);
+            }
+
+            TransferResult result;
+            if (contentionTracker.optimistic(request.fromAccountId(), request.toAccountId())) {
+                result = applyOptimistic(request, sender.currency(), exchangeRate, clock, beforeCommit);
+            } else if (concurrency.singleStatement() && sender.currency() == currency) {
+                result = inLanes(request, clock, beforeCommit,
+                        status -> transferInOneStatement(request, sender, receiver, clock));
+            } else {
+                result = apply(request, sender.currency(), exchangeRate, clock, beforeCommit, true);
+            }
+            successful = true;
+            return result;
+        } finally {
+            if (clock[1] != 0) {
+                transferMetrics.recordLockHold(clock[1]);
+            }
+            transferMetrics.recordTransfer(start, successful);
+        }
+    }
+
+    private TransferResult applyOptimistic(
+            TransferRequest request,
+            CurrencyCode expectedSenderCurrency,
+            BigDecimal exchangeRate,
+            long[] clock,
+            Consumer<TransferResult> beforeCommit
+    ) {
+        for (int attempt = 1; attempt <= concurrency.maxAttempts(); attempt++) {
+            try {
+                TransferResult result = apply(request, expectedSenderCurrency, exchangeRate, clock, beforeCommit, false);
+                transferMetrics.optimisticCommitted();
+                contentionTracker.record(request.fromAccountId(), request.toAccountId(), false);
+                return result;
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException ex) {
+                // A lost version check or a lock timeout or deadlock against a concurrent update
+                transferMetrics.optimisticConflict();
+                contentionTracker.record(request.fromAccountId(), request.toAccountId(), true);
+                backOff(attempt);
+                clock[0] = System.nanoTime();
+            }
+        }
+        // Give up on optimism rather than letting a hot pair of accounts retry forever
+        transferMetrics.optimisticFallback();
+        return apply(request, expectedSenderCurrency, exchangeRate, clock, beforeCommit, true);
+    }
+
+    private TransferResult apply(
+            TransferRequest request,
+            CurrencyCode expectedSenderCurrency,
+            BigDecimal exchangeRate,
+            long[] clock,
+            Consumer<TransferResult> beforeCommit,
+            boolean lock
+    ) {
+        return inLanes(request, clock, beforeCommit,
+                status -> transferLocked(request, expectedSenderCurrency, exchangeRate, clock, lock));
+    }
+
+    private TransferResult inLanes(
+            TransferRequest request,
+            long[] clock,
+            Consumer<TransferResult> beforeCommit,
+            TransactionCallback<TransferResult> transfer
+    ) {
+        return transferLanes.execute(request.fromAccountId(), request.toAccountId(), () -> {
+            clock[0] = transferMetrics.record(Stage.LANE_WAIT, clock[0]);
+            TransferResult result = transactionTemplate.execute(status -> {
+                TransferResult applied = transfer.doInTransaction(status);
+                beforeCommit.accept(applied);
+                return applied;
+            });
+            transferMetrics.record(Stage.COMMIT, clock[0]);
+            return result;
+        });
+    }
+
+    private void backOff(int attempt) {
+        // Full jitter: a random pause up to an exponentially growing bound spreads out the retries
+        long bound = Math.min(
+                concurrency.maxBackoff().toNanos(),
+                concurrency.initialBackoff().toNanos() << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException("Transfer interrupted while retrying a conflicting update");
+        }
+    }
+
+    private TransferResult transferLocked(
+            TransferRequest request,
+            CurrencyCode expectedSenderCurrency,
+            BigDecimal exchangeRate,
+            long[] clock,
+            boolean lock
+    ) {
+        clock[0] = transferMetrics.record(Stage.CONNECTION, clock[0]);
+
         // Load accounts in ID order to prevent deadlocks
         List<UUID> accountIds = Arrays.asList(
                 request.fromAccountId(),
                 request.toAccountId()
         );
-        Collections.sort(accountIds);
+        accountIds.sort(LockOrder.ACCOUNT_IDS);
 
-        Account sender = accountRepository.findByIdWithLock(accountIds.get(0))
-                .orElseThrow(() -> new AccountNotFoundException(accountIds.getFirst()));
+        // Without locks the versions read here are checked by the balance updates instead
+        Account first = load(accountIds.get(0), lock);
+        if (lock) {
+            clock[1] = System.nanoTime();
+        }
 
-        Account receiver = accountRepository.findByIdWithLock(accountIds.get(1))
-                .orElseThrow(() -> new AccountNotFoundException(accountIds.get(1)));
+        Account second = load(accountIds.get(1), lock);
+        clock[0] = transferMetrics.record(Stage.LOCK_WAIT, clock[0]);
 
-        // Reassign sender/receiver based on request
-        if (accountIds.getFirst().equals(request.toAccountId())) {
-            Account temp = sender;
-            sender = receiver;
-            receiver = temp;
-        }
+        // Assign sender/receiver based on request
+        boolean senderFirst = first.getId().equals(request.fromAccountId());
+        Account sender = senderFirst ? first : second;
+        Account receiver = senderFirst ? second : first;
 
-        // Validate receiver currency matches transfer currency
-        if (!receiver.getCurrency().equals(request.currency())) {
+        // Re-validate the currencies the rate was resolved for against the locked rows
+        TransferRules.checkReceiverCurrency(receiver, request);
+        if (sender.getCurrency() != expectedSenderCurrency) {
             throw new CurrencyMismatchException(
-                    "Receiver account requires " + receiver.getCurrency() +
-                            ", but transfer requested in " + request.currency()
+                    "Sender account currency changed from " + expectedSenderCurrency +
+                            " to " + sender.getCurrency() + " during transfer"
             );
         }
 
-        // Convert amount if currencies differ
-        BigDecimal exchangeRate = BigDecimal.ONE;
         BigDecimal amountToDebit = request.amount();
-
-        if (!sender.getCurrency().equals(request.currency())) {
-            exchangeRate = exchangeRateService.getExchangeRate(
-                    request.currency(),
-                    sender.getCurrency()
-            );
-            amountToDebit = request.amount().multiply(exchangeRate)
-                    .setScale(2, RoundingMode.HALF_EVEN);
+        if (sender.getCurrency() != request.currency()) {
+            amountToDebit = TransferRules.convert(request.amount(), exchangeRate);
         }
 
         sender.debit(amountToDebit);
         receiver.credit(request.amount());
 
-        // Save account updates
-        accountRepository.save(sender);
-        accountRepository.save(receiver);
+        // Chain the entries first, so that the advanced chain heads are written with the balances
+        UUID correlationId = UUID.randomUUID();
+        List<AccountTransaction> entries = TransferJournal.entries(
+                sender, receiver, amountToDebit, request.amount(), exchangeRate, correlationId, Instant.now());
+        JournalChain.link(entries);
 
-        // Record transactions and get correlation ID
-        UUID correlationId = recordTransactions(
-                sender,
-                receiver,
-                amountToDebit,
-                request.amount(),
-                exchangeRate
-        );
+        // Save account updates, flushed right away so that the write is timed as its own stage
+        accountRepository.save(first);
+        if (!lock) {
+            // The updates lock the rows here, and ordered updates would sort them by UUID#compareTo.
+            // Flushing one at a time keeps the lock order of every other transfer.
+            accountRepository.flush();
+        }
+        accountRepository.save(second);
+        accountRepository.flush();
+        clock[0] = transferMetrics.record(Stage.BALANCE_WRITE, clock[0]);
+        eventPublisher.publishEvent(AccountBalancesChangedEvent.of(List.of(sender, receiver)));
+
+        recordTransactions(entries, clock);
 
         // Return transfer result with all necessary details
         return new TransferResult(
                 correlationId,
                 amountToDebit,
-                sender.getCurrency(),
+                sender.getCurrency().code(),
                 request.amount(),
-                receiver.getCurrency(),
+                receiver.getCurrency().code(),
                 exchangeRate,
                 sender.getBalance(),  // New balance after transfer
                 receiver.getBalance()  // New balance after transfer
         );
     }
 
-    private UUID recordTransactions(
-            Account sender,
-            Account receiver,
-            BigDecimal debitAmount,
-            BigDecimal creditAmount,
-            BigDecimal exchangeRate
+    private TransferResult transferInOneStatement(
+            TransferRequest request,
+            AccountMetadata senderMetadata,
+            AccountMetadata receiverMetadata,
+            long[] clock
     ) {
+        clock[0] = transferMetrics.record(Stage.CONNECTION, clock[0]);
+
+        // Detached stand-ins carrying what the journal, the outbox and the event need
+        Account sender = reference(senderMetadata);
+        Account receiver = reference(receiverMetadata);
         UUID correlationId = UUID.randomUUID();
-        Instant now = Instant.now();
-
-        // Build description with exchange rate info
-        String description = "Transfer to " + receiver.getId();
-        if (!exchangeRate.equals(BigDecimal.ONE)) {
-            description += String.format(" (Rate: %s %s/%s)",
-                    exchangeRate.stripTrailingZeros().toPlainString(),
-                    sender.getCurrency(),
-                    receiver.getCurrency());
+        List<AccountTransaction> entries = TransferJournal.entries(
+                sender, receiver, request.amount(), request.amount(), BigDecimal.ONE, correlationId, Instant.now());
+
+        clock[1] = System.nanoTime();
+        List<LockedBalance> balances = transferJdbcRepository.transfer(
+                sender.getId(), receiver.getId(), request.amount(), entries);
+        // Locking, both balance updates and the journal insert are one round trip
+        clock[0] = transferMetrics.record(Stage.BALANCE_WRITE, clock[0]);
+
+        boolean applied = balances.size() == 2;
+        for (LockedBalance balance : balances) {
+            (balance.accountId().equals(sender.getId()) ? sender : receiver).setBalance(balance.balance());
+            applied &= balance.applied();
+        }
+        if (sender.getBalance() == null) {
+            throw new AccountNotFoundException(sender.getId());
+        }
+        if (receiver.getBalance() == null) {
+            throw new AccountNotFoundException(receiver.getId());
+        }
+        if (!applied) {
+            // Nothing was written, the sender's unchanged balance does not cover the amount
+            sender.debit(request.amount());
+            throw new IllegalStateException("Transfer " + correlationId + " was not applied");
         }
+        eventPublisher.publishEvent(AccountBalancesChangedEvent.of(List.of(sender, receiver)));
 
-        // Sender transaction (outflow)
-        AccountTransaction debitTransaction = AccountTransaction.builder()
-                .account(sender)
-                .amount(debitAmount.negate())
-                .currency(sender.getCurrency())
-                .type(AccountTransaction.TransactionType.TRANSFER_OUT)
-                .correlationId(correlationId)
-                .createdAt(now)
-                .description(description)
-                .build();
+        transferOutbox.append(entries);
+        clock[0] = transferMetrics.record(Stage.OUTBOX_APPEND, clock[0]);
 
-        // Receiver transaction (inflow)
-        AccountTransaction creditTransaction = AccountTransaction.builder()
-                .account(receiver)
-                .amount(creditAmount)
-                .currency(receiver.getCurrency())
-                .type(AccountTransaction.TransactionType.TRANSFER_IN)
-                .correlationId(correlationId)
-                .createdAt(now)
-                .description("Transfer from " + sender.getId())
+        return new TransferResult(
+                correlationId,
+                request.amount(),
+                sender.getCurrency().code(),
+                request.amount(),
+                receiver.getCurrency().code(),
+                BigDecimal.ONE,
+                sender.getBalance(),
+                receiver.getBalance()
+        );
+    }
+
+    private static Account reference(AccountMetadata metadata) {
+        return Account.builder()
+                .id(metadata.id())
+                .clientId(metadata.clientId())
+                .currency(metadata.currency())
                 .build();
+    }
+
+    private Account load(UUID accountId, boolean lock) {
+        return (lock ? accountRepository.findByIdWithLock(accountId) : accountRepository.findById(accountId))
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
 
-        transactionRepository.saveAll(List.of(debitTransaction, creditTransaction));
+    private void recordTransactions(List<AccountTransaction> entries, long[] clock) {
+        // Entries carry their id and chain hash already, there is nothing for the persistence context to generate
+        journalJdbcRepository.insertAll(entries, entries.size());
+        clock[0] = transferMetrics.record(Stage.JOURNAL_INSERT, clock[0]);
 
-        return correlationId;
+        transferOutbox.append(entries);
+        clock[0] = transferMetrics.record(Stage.OUTBOX_APPEND, clock[0]);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransferRequest;
+import com.example.banking.dto.TransferResponse;
+import com.example.banking.dto.TransferSubmissionResponse;
+import com.example.banking.exception.TransferSubmissionNotFoundException;
+import com.example.banking.repository.TransferSubmissionRepository;
+import com.example.banking.repository.TransferSubmissionRepository.Submission;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Accepts transfers for asynchronous processing and reports their status.
+ * <p>
+ * Submissions are stored in the {@code transfer_submission} table, which acts as a durable queue
+ * drained by the {@link TransferSubmissionWorker}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferSubmissionService {
+
+    private final TransferSubmissionRepository submissionRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Queues a transfer.
+     *
+     * @param request the request
+     * @return the pending submission
+     */
+    public TransferSubmissionResponse submit(TransferRequest request) {
+        UUID id = UUID.randomUUID();
+        Instant now = Instant.now();
+        submissionRepository.insert(id, request, now);
+        return new TransferSubmissionResponse(
+                id, TransferSubmissionRepository.Status.PENDING.name(), null, null, now.toString());
+    }
+
+    /**
+     * Gets a submission.
+     *
+     * @param id the id
+     * @return the submission
+     */
+    public TransferSubmissionResponse getSubmission(UUID id) {
+        Submission submission = submissionRepository.findById(id)
+                .orElseThrow(() -> new TransferSubmissionNotFoundException(id));
+        return new TransferSubmissionResponse(
+                submission.id(),
+                submission.status().name(),
+                submission.responseBody() == null ? null : read(submission.responseBody()),
+                submission.error(),
+                submission.createdAt().toString()
+        );
+    }
+
+    private TransferResponse read(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, TransferResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable stored transfer response", ex);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.banking.service;
+
+import com.example.banking.config.SubmissionProperties;
+import com.example.banking.dto.TransferResponse;
+import com.example.banking.exception.ExchangeRateException;
+import com.example.banking.exception.IdempotencyKeyInProgressException;
+import com.example.banking.repository.TransferSubmissionRepository;
+import com.example.banking.repository.TransferSubmissionRepository.Submission;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies queued transfer submissions.
+ * <p>
+ * Claimed submissions are grouped by sender account and each group is applied in submission order
+ * by one thread of a bounded pool, so transfers of one account never compete for its lock and the
+ * number of connections used stays at the pool size. Transfers go through the
+ * {@link IdempotentTransferService} keyed by submission id, which makes a submission that is
+ * processed again after a crash return its first result instead of moving money twice. Submissions
+ * that fail temporarily are retried with exponentially growing delays and fail for good once they
+ * used up their attempts.
+ */
+@Slf4j
+@Component
+public class TransferSubmissionWorker {
+
+    private final TransferSubmissionRepository submissionRepository;
+    private final IdempotentTransferService idempotentTransferService;
+    private final ObjectMapper objectMapper;
+    private final SubmissionProperties properties;
+    private final ExecutorService workers;
+
+    /**
+     * Instantiates a new Transfer submission worker.
+     *
+     * @param submissionRepository      the submission repository
+     * @param idempotentTransferService the idempotent transfer service
+     * @param objectMapper              the object mapper
+     * @param properties                the properties
+     */
+    public TransferSubmissionWorker(
+            TransferSubmissionRepository submissionRepository,
+            IdempotentTransferService idempotentTransferService,
+            ObjectMapper objectMapper,
+            SubmissionProperties properties
+    ) {
+        this.submissionRepository = submissionRepository;
+        this.idempotentTransferService = idempotentTransferService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.workers = Executors.newFixedThreadPool(
+                properties.workers(), Thread.ofPlatform().name("transfer-worker-", 0).factory());
+    }
+
+    /**
+     * Processes pending submissions until the queue is empty.
+     */
+    @Scheduled(fixedDelayString = "${banking.submission.poll-interval:100ms}")
+    public void processPending() {
+        if (!properties.workersEnabled()) {
+            return;
+        }
+        List<Submission> claimed;
+        do {
+            claimed = submissionRepository.claimPending(properties.batchSize());
+            process(claimed);
+        } while (claimed.size() == properties.batchSize());
+    }
+
+    /**
+     * Queues again the submissions of workers that stopped while processing them.
+     */
+    @Scheduled(fixedDelayString = "${banking.submission.lease-check-interval:1m}")
+    public void releaseExpiredLeases() {
+        int released = submissionRepository.releaseProcessingBefore(
+                Instant.now().minus(properties.leaseTimeout()), properties.maxAttempts());
+        if (released > 0) {
+            log.warn("Queued {} abandoned transfer submissions again", released);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    void process(List<Submission> submissions) {
+        if (submissions.isEmpty()) {
+            return;
+        }
+        Map<UUID, List<Submission>> bySender = new LinkedHashMap<>();
+        for (Submission submission : submissions) {
+            bySender.computeIfAbsent(submission.request().fromAccountId(), id -> new ArrayList<>()).add(submission);
+        }
+
+        List<Callable<Void>> groups = new ArrayList<>(bySender.size());
+        for (List<Submission> group : bySender.values()) {
+            groups.add(() -> {
+                group.forEach(this::applyQuietly);
+                return null;
+            });
+        }
+        try {
+            workers.invokeAll(groups);
+        } catch (InterruptedException ex) {
+            // Unfinished submissions stay in processing until their lease expires
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(Submission submission) {
+        TransferResponse response;
+        try {
+            response = idempotentTransferService.transferFunds("submission:" + submission.id(), submission.request());
+        } catch (ExchangeRateException | IdempotencyKeyInProgressException | TransientDataAccessException ex) {
+            retryLater(submission, ex);
+            return;
+        } catch (RuntimeException ex) {
+            submissionRepository.fail(submission.id(), ex.getMessage());
+            return;
+        }
+        submissionRepository.complete(submission.id(), write(response));
+    }
+
+    private void retryLater(Submission submission, RuntimeException ex) {
+        if (submission.attempts() >= properties.maxAttempts()) {
+            log.warn("Transfer submission {} failed temporarily {} times, giving up",
+                    submission.id(), submission.attempts(), ex);
+            submissionRepository.fail(submission.id(),
+                    "Gave up after " + submission.attempts() + " attempts: " + ex.getMessage());
+            return;
+        }
+        Duration delay = properties.backoff(submission.attempts());
+        log.warn("Transfer submission {} failed temporarily, retrying in {}", submission.id(), delay, ex);
+        submissionRepository.retry(submission.id(), Instant.now().plus(delay));
+    }
+
+    private void applyQuietly(Submission submission) {
+        try {
+            apply(submission);
+        } catch (RuntimeException ex) {
+            // Left in processing, the submission is retried once its lease expired
+            log.error("Failed to record the outcome of transfer submission {}", submission.id(), ex);
+        }
+    }
+
+    private String write(TransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to store transfer response", ex);
+        }
+    }
+}
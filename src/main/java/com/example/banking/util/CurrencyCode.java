@@ -0,0 +1,113 @@
+package com.example.banking.util;
+
+import com.example.banking.exception.InvalidCurrencyException;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Currency;
+
+/**
+ * ISO 4217 currency code, with exactly one instance per currency.
+ * <p>
+ * Every code known to {@link Currency} is registered once, at class initialization, in a table
+ * indexed by its three letters. Looking a code up is a range check and an array read, so unknown
+ * codes cost neither an exception nor an allocation. Since instances are canonical, they are
+ * compared by identity.
+ */
+public final class CurrencyCode {
+
+    private static final int LETTERS = 26;
+    private static final CurrencyCode[] REGISTRY = new CurrencyCode[LETTERS * LETTERS * LETTERS];
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            String code = currency.getCurrencyCode();
+            int index = index(code);
+            if (index >= 0) {
+                REGISTRY[index] = new CurrencyCode(code, currency.getDefaultFractionDigits());
+            }
+        }
+    }
+
+    private final String code;
+    private final int fractionDigits;
+
+    private CurrencyCode(String code, int fractionDigits) {
+        this.code = code;
+        this.fractionDigits = fractionDigits;
+    }
+
+    /**
+     * Looks a currency up without failing.
+     *
+     * @param code the code, upper case
+     * @return the currency, null if the code is not a known ISO 4217 code
+     */
+    public static CurrencyCode lookup(CharSequence code) {
+        int index = index(code);
+        return index < 0 ? null : REGISTRY[index];
+    }
+
+    /**
+     * Tells whether a code is a known ISO 4217 code.
+     *
+     * @param code the code, upper case
+     * @return true if the code is known
+     */
+    public static boolean isValid(CharSequence code) {
+        return lookup(code) != null;
+    }
+
+    /**
+     * Gets the currency of a code.
+     *
+     * @param code the code, upper case
+     * @return the currency
+     * @throws InvalidCurrencyException if the code is not a known ISO 4217 code
+     */
+    @JsonCreator
+    public static CurrencyCode of(String code) {
+        CurrencyCode currency = lookup(code);
+        if (currency == null) {
+            throw new InvalidCurrencyException("Invalid currency code: " + code);
+        }
+        return currency;
+    }
+
+    /**
+     * Gets the three letter code.
+     *
+     * @return the code
+     */
+    @JsonValue
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Gets the default number of fraction digits, -1 for pseudo currencies.
+     *
+     * @return the fraction digits
+     */
+    public int fractionDigits() {
+        return fractionDigits;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+
+    private static int index(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int first = code.charAt(0) - 'A';
+        int second = code.charAt(1) - 'A';
+        int third = code.charAt(2) - 'A';
+        if ((first | second | third) < 0 || first >= LETTERS || second >= LETTERS || third >= LETTERS) {
+            return -1;
+        }
+        return (first * LETTERS + second) * LETTERS + third;
+    }
+}
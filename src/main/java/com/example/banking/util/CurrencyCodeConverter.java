@@ -0,0 +1,21 @@
+package com.example.banking.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link CurrencyCode} attributes to their three letter code, reading back the shared instance.
+ */
+@Converter(autoApply = true)
+public class CurrencyCodeConverter implements AttributeConverter<CurrencyCode, String> {
+
+    @Override
+    public String convertToDatabaseColumn(CurrencyCode currency) {
+        return currency == null ? null : currency.code();
+    }
+
+    @Override
+    public CurrencyCode convertToEntityAttribute(String code) {
+        return code == null ? null : CurrencyCode.of(code);
+    }
+}
@@ -3,21 +3,17 @@ package com.example.banking.util;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.util.Currency;
-
 /**
  * The type Currency validator.
+ * <p>
+ * Codes are checked against the {@link CurrencyCode} registry, so invalid ones are rejected
+ * without throwing and without allocating.
  */
 public class CurrencyValidator
         implements ConstraintValidator<ValidCurrency, String> {
 
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
-        try {
-            Currency.getInstance(value);
-            return true;
-        } catch (Exception _) {
-            return false;
-        }
+        return CurrencyCode.isValid(value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.example.banking.util;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a {@link UuidV7} to an entity id when it is persisted.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GeneratedUuidV7 {
+}
@@ -0,0 +1,24 @@
+package com.example.banking.util;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * The type Lock order.
+ */
+public final class LockOrder {
+
+    /**
+     * Order in which account rows are locked to prevent deadlocks.
+     * <p>
+     * PostgreSQL compares {@code uuid} values byte by byte, while {@link UUID#compareTo} compares
+     * signed longs, so the two disagree whenever a most significant bit is set. Locking with this
+     * comparator yields the same order as a {@code SELECT ... ORDER BY id FOR UPDATE}.
+     */
+    public static final Comparator<UUID> ACCOUNT_IDS = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private LockOrder() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.banking.config
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.SQLException
+import java.sql.SQLTransientConnectionException
+import java.time.Duration
+
+class ConcurrencyLimitedDataSourceSpec extends Specification {
+
+    DataSource target = Mock()
+
+    @Subject
+    ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50))
+
+    def "should release the permit when the connection is closed"() {
+        given:
+        def connection = Mock(Connection)
+        target.getConnection() >> connection
+
+        when:
+        dataSource.getConnection().close()
+        def next = dataSource.getConnection()
+
+        then:
+        1 * connection.close()
+        next != null
+    }
+
+    def "should close the connection and release the permit only once when closed twice"() {
+        given:
+        def pooled = Mock(Connection)
+        target.getConnection() >> pooled
+        def connection = dataSource.getConnection()
+
+        when:
+        connection.close()
+        connection.close()
+        dataSource.getConnection()
+        dataSource.getConnection()
+
+        then: "Only one permit came back"
+        1 * pooled.close()
+        thrown(SQLTransientConnectionException)
+    }
+
+    def "should release the permit when the target fails to open a connection"() {
+        given:
+        target.getConnection() >> { throw new SQLException("connection refused") } >> Mock(Connection)
+
+        when:
+        dataSource.getConnection()
+
+        then:
+        thrown(SQLException)
+
+        when:
+        def connection = dataSource.getConnection()
+
+        then:
+        connection != null
+    }
+
+    def "should give up once the acquire timeout elapses"() {
+        given:
+        target.getConnection() >> Mock(Connection)
+        dataSource.getConnection()
+
+        when:
+        long start = System.nanoTime()
+        dataSource.getConnection()
+
+        then:
+        def ex = thrown(SQLTransientConnectionException)
+        ex.message == "No database connection available within 50ms"
+        System.nanoTime() - start >= Duration.ofMillis(50).toNanos()
+        dataSource.queueLength == 0
+    }
+
+    def "should pass other calls through to the target connection"() {
+        given:
+        def connection = Mock(Connection)
+        target.getConnection() >> connection
+
+        when:
+        def limited = dataSource.getConnection()
+        limited.setAutoCommit(false)
+
+        then:
+        1 * connection.setAutoCommit(false)
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.banking.controller
 
 import com.example.banking.domain.Account
+import com.example.banking.dto.AccountResponse
+import com.example.banking.dto.ClientAccounts
 import com.example.banking.service.AccountService
+import com.example.banking.util.CurrencyCode
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
@@ -30,22 +33,22 @@ class AccountControllerSpec extends Specification {
         UUID id1 = UUID.randomUUID()
         UUID id2 = UUID.randomUUID()
 
-        accountService.getClientAccounts(clientId) >> [
+        accountService.getClientAccounts(clientId) >> new ClientAccounts([
                 Account.builder()
                         .id(id1)
                         .clientId(clientId)
-                        .currency("USD")
+                        .currency(CurrencyCode.of("USD"))
                         .balance(new BigDecimal("100.00"))
                         .createdAt(now)
                         .build(),
                 Account.builder()
                         .id(id2)
                         .clientId(clientId)
-                        .currency("EUR")
+                        .currency(CurrencyCode.of("EUR"))
                         .balance(new BigDecimal("250.50"))
                         .createdAt(now)
                         .build()
-        ]
+        ].collect { AccountResponse.fromDomain(it) }, "2-5")
 
         expect:
         mvc.perform(get("/clients/$clientId/accounts")
@@ -58,12 +61,44 @@ class AccountControllerSpec extends Specification {
                 .andExpect(jsonPath('$[1].id').value(id2.toString()))
                 .andExpect(jsonPath('$[1].currency').value("EUR"))
                 .andExpect(jsonPath('$[1].balance').value(250.50))
+                .andExpect(header().string("ETag", '"2-5"'))
+    }
+
+    def "GET with a current If-None-Match returns 304 without loading the accounts"() {
+        given:
+        String clientId = "client-123"
+        accountService.getClientAccountsTag(clientId) >> "2-5"
+        accountService.getClientAccounts(clientId) >> { throw new IllegalStateException("accounts loaded") }
+
+        expect:
+        mvc.perform(get("/clients/$clientId/accounts")
+                .header("If-None-Match", 'W/"2-5"')
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", '"2-5"'))
+                .andExpect(content().string(""))
+    }
+
+    def "GET with an outdated If-None-Match returns the accounts under their own tag"() {
+        given:
+        String clientId = "client-123"
+        def account = new AccountResponse(UUID.randomUUID(), "USD", new BigDecimal("90.00"), Instant.now().toString())
+        accountService.getClientAccountsTag(clientId) >> "1-3"
+        accountService.getClientAccounts(clientId) >> new ClientAccounts([account], "1-4")
+
+        expect:
+        mvc.perform(get("/clients/$clientId/accounts")
+                .header("If-None-Match", '"1-2"')
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", '"1-4"'))
+                .andExpect(jsonPath('$[0].id').value(account.id().toString()))
     }
 
     def "GET /clients/{clientId}/accounts returns empty list when none"() {
         given:
         String clientId = "client-456"
-        accountService.getClientAccounts(clientId) >> []
+        accountService.getClientAccounts(clientId) >> new ClientAccounts([]
 
         expect:
         mvc.perform(get("/clients/$clientId/accounts")
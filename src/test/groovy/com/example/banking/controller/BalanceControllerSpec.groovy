@@ -0,0 +1,58 @@
+package com.example.banking.controller
+
+import com.example.banking.dto.BalanceResponse
+import com.example.banking.exception.AccountNotFoundException
+import com.example.banking.service.BalanceHistoryService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
+import org.springframework.test.web.servlet.MockMvc
+import spock.lang.Specification
+
+import java.time.Instant
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*
+
+@WebMvcTest(controllers = BalanceController)
+class BalanceControllerSpec extends Specification {
+
+    @Autowired
+    MockMvc mvc
+
+    @SpringBean
+    BalanceHistoryService balanceHistoryService = Mock()
+
+    def "GET /accounts/{accountId}/balance returns the balance at the requested time"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        Instant at = Instant.parse("2024-01-31T23:59:59Z")
+
+        when:
+        def response = mvc.perform(get("/accounts/$accountId/balance").param("at", "2024-01-31T23:59:59Z"))
+
+        then:
+        1 * balanceHistoryService.getBalanceAt(accountId, at) >>
+                new BalanceResponse(accountId, new BigDecimal("1070.00"), "USD", at.toString())
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath('$.balance').value("1070.00"))
+                .andExpect(jsonPath('$.currency').value("USD"))
+                .andExpect(jsonPath('$.at').value("2024-01-31T23:59:59Z"))
+    }
+
+    def "GET balance of an unknown account returns 404"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        balanceHistoryService.getBalanceAt(accountId, null) >> { throw new AccountNotFoundException(accountId) }
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/balance"))
+                .andExpect(status().isNotFound())
+    }
+
+    def "GET balance with a malformed time returns 400"() {
+        expect:
+        mvc.perform(get("/accounts/${UUID.randomUUID()}/balance").param("at", "yesterday"))
+                .andExpect(status().isBadRequest())
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.banking.controller
 
-import com.example.banking.domain.Account
 import com.example.banking.domain.AccountTransaction
+import com.example.banking.dto.StatementFormat
+import com.example.banking.dto.TransactionCursor
+import com.example.banking.dto.TransactionPage
+import com.example.banking.exception.AccountNotFoundException
+import com.example.banking.exception.StatementExportRejectedException
+import com.example.banking.repository.TransactionView
+import com.example.banking.service.StatementService
 import com.example.banking.service.TransactionService
+import com.example.banking.util.CurrencyCode
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
@@ -10,12 +17,15 @@ import org.springframework.http.MediaType
 import org.springframework.test.web.servlet.MockMvc
 import spock.lang.Specification
 
+import java.time.Duration
 import java.time.Instant
 
 import org.springframework.data.domain.Page
 import org.springframework.data.domain.PageImpl
 import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.SliceImpl
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*
 
@@ -28,23 +38,20 @@ class TransactionControllerSpec extends Specification {
     @SpringBean
     TransactionService transactionService = Stub()
 
+    @SpringBean
+    StatementService statementService = Stub()
+
     def "GET /accounts/{accountId}/transactions returns paged list"() {
         given:
         UUID accountId = UUID.randomUUID()
-        def acct = Account.builder().id(accountId).clientId("client-x").currency("USD")
-                .balance(new BigDecimal("100")).createdAt(Instant.now()).build()
         def now = Instant.now()
-        def tx1 = AccountTransaction.builder()
-                .id(UUID.randomUUID()).account(acct).amount(new BigDecimal("10.00"))
-                .currency("USD").type(AccountTransaction.TransactionType.TRANSFER_IN)
-                .createdAt(now).description("desc1").correlationId(UUID.randomUUID()).build()
-        def tx2 = AccountTransaction.builder()
-                .id(UUID.randomUUID()).account(acct).amount(new BigDecimal("20.50"))
-                .currency("USD").type(AccountTransaction.TransactionType.TRANSFER_OUT)
-                .createdAt(now).description("desc2").correlationId(UUID.randomUUID()).build()
-        Page<AccountTransaction> page = new PageImpl<>([tx1, tx2], PageRequest.of(0,2), 5)
-
-        transactionService.getAccountTransactions(accountId, PageRequest.of(0,2)) >> page
+        def tx1 = new TransactionView(UUID.randomUUID(), new BigDecimal("10.00"), CurrencyCode.of("USD"),
+                AccountTransaction.TransactionType.TRANSFER_IN, now, "desc1", UUID.randomUUID())
+        def tx2 = new TransactionView(UUID.randomUUID(), new BigDecimal("20.50"), CurrencyCode.of("USD"),
+                AccountTransaction.TransactionType.TRANSFER_OUT, now, "desc2", UUID.randomUUID())
+        Page<TransactionView> page = new PageImpl<>([tx1, tx2], PageRequest.of(0,2), 5)
+
+        transactionService.getAccountTransactions(accountId, PageRequest.of(0,2)) >> new TransactionPage(page, "7")
 
         expect:
         mvc.perform(get("/accounts/$accountId/transactions")
@@ -59,6 +66,79 @@ class TransactionControllerSpec extends Specification {
                 .andExpect(jsonPath('$[1].id').value(tx2.id.toString()))
                 .andExpect(jsonPath('$[1].type').value('TRANSFER_OUT'))
                 .andExpect(jsonPath('$[1].amount').value(20.50))
+                .andExpect(header().string("X-Next-Cursor", TransactionCursor.after(tx2).encode()))
+                .andExpect(header().string("ETag", '"7"'))
+    }
+
+    def "GET with a current If-None-Match returns 304 without a body"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        transactionService.getAccountTransactionsTag(accountId) >> "7"
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/transactions")
+                .header("If-None-Match", '"6", "7"')
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", '"7"'))
+                .andExpect(content().string(""))
+    }
+
+    def "GET with an outdated If-None-Match returns the page"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        def tx = new TransactionView(UUID.randomUUID(), new BigDecimal("5.00"), CurrencyCode.of("USD"),
+                AccountTransaction.TransactionType.TRANSFER_IN, Instant.now(), "new", null)
+        transactionService.getAccountTransactionsTag(accountId) >> "8"
+        transactionService.getAccountTransactions(accountId, PageRequest.of(0, 10)) >>
+                new TransactionPage(new SliceImpl<>([tx], PageRequest.ofSize(10), false), "8")
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/transactions")
+                .header("If-None-Match", '"7"')
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", '"8"'))
+                .andExpect(jsonPath('$[0].id').value(tx.id.toString()))
+    }
+
+    def "GET with If-None-Match of an unknown account returns 404"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        transactionService.getAccountTransactionsTag(accountId) >> { throw new AccountNotFoundException(accountId) }
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/transactions")
+                .header("If-None-Match", '"1"'))
+                .andExpect(status().isNotFound())
+    }
+
+    def "GET with cursor seeks past it and omits the next cursor on the last page"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        def cursor = new TransactionCursor(Instant.parse("2024-01-01T10:00:00.123456Z"), UUID.randomUUID())
+        def tx = new TransactionView(UUID.randomUUID(), new BigDecimal("5.00"), CurrencyCode.of("USD"),
+                AccountTransaction.TransactionType.TRANSFER_IN, Instant.parse("2024-01-01T09:00:00Z"), "older", null)
+
+        transactionService.getAccountTransactions(accountId, cursor, 2) >>
+                new TransactionPage(new SliceImpl<>([tx], PageRequest.ofSize(2), false), "3")
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/transactions")
+                .param("cursor", cursor.encode())
+                .param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath('$[0].id').value(tx.id.toString()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+    }
+
+    def "GET with malformed cursor returns 400"() {
+        expect:
+        mvc.perform(get("/accounts/${UUID.randomUUID()}/transactions")
+                .param("cursor", "not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
     }
 
     def "GET with invalid UUID returns 400"() {
@@ -81,4 +161,56 @@ class TransactionControllerSpec extends Specification {
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
     }
+
+    def "GET /accounts/{accountId}/statement streams the statement in the requested format"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        def permit = Mock(StatementService.ExportPermit)
+        statementService.acquireExport() >> permit
+        statementService.export(accountId, StatementFormat.CSV, _ as OutputStream) >> { UUID id, StatementFormat f, OutputStream out ->
+            out.write("id,amount\n1,10.00\n".bytes)
+            1L
+        }
+
+        when:
+        def started = mvc.perform(get("/accounts/$accountId/statement").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+        def result = mvc.perform(asyncDispatch(started))
+
+        then:
+        result.andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"statement-${accountId}.csv\""))
+                .andExpect(content().string("id,amount\n1,10.00\n"))
+        1 * permit.close()
+    }
+
+    def "GET statement while too many exports run returns 503 with Retry-After"() {
+        given:
+        statementService.acquireExport() >> {
+            throw new StatementExportRejectedException("Too many statement exports in progress, retry later", Duration.ofSeconds(5))
+        }
+
+        expect:
+        mvc.perform(get("/accounts/${UUID.randomUUID()}/statement"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+    }
+
+    def "GET statement of an unknown account returns 404 before streaming"() {
+        given:
+        UUID accountId = UUID.randomUUID()
+        statementService.requireAccount(accountId) >> { throw new AccountNotFoundException(accountId) }
+
+        expect:
+        mvc.perform(get("/accounts/$accountId/statement"))
+                .andExpect(status().isNotFound())
+    }
+
+    def "GET statement with an unsupported format returns 400"() {
+        expect:
+        mvc.perform(get("/accounts/${UUID.randomUUID()}/statement").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+    }
 }
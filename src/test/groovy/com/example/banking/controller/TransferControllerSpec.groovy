@@ -1,8 +1,18 @@
 package com.example.banking.controller
 
+import com.example.banking.dto.BatchTransferItemResult
 import com.example.banking.dto.TransferRequest
+import com.example.banking.dto.TransferResponse
 import com.example.banking.dto.TransferResult
+import com.example.banking.dto.TransferSubmissionResponse
+import com.example.banking.exception.TransferRejectedException
+import com.example.banking.exception.TransferSubmissionNotFoundException
+import com.example.banking.service.BatchTransferService
+import com.example.banking.service.IdempotentTransferService
+import com.example.banking.service.TransferAdmission
 import com.example.banking.service.TransferService
+import com.example.banking.service.TransferSubmissionService
+import com.example.banking.util.CurrencyCode
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
@@ -10,7 +20,10 @@ import org.springframework.http.MediaType
 import org.springframework.test.web.servlet.MockMvc
 import spock.lang.Specification
 
+import java.time.Duration
+import java.util.function.Supplier
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*
 
@@ -23,6 +36,21 @@ class TransferControllerSpec extends Specification {
     @SpringBean
     TransferService transferService = Stub()
 
+    @SpringBean
+    BatchTransferService batchTransferService = Stub()
+
+    @SpringBean
+    IdempotentTransferService idempotentTransferService = Mock()
+
+    @SpringBean
+    TransferSubmissionService transferSubmissionService = Stub()
+
+    @SpringBean
+    TransferAdmission transferAdmission = Stub() {
+        admit(_, _) >> { TransferRequest request, Supplier transfer -> transfer.get() }
+        admitBatch(_) >> { Supplier batch -> batch.get() }
+    }
+
     def "POST /transfers successfully transfers funds between accounts"() {
         given:
         UUID fromAccountId = UUID.randomUUID()
@@ -31,7 +59,7 @@ class TransferControllerSpec extends Specification {
                 fromAccountId,
                 toAccountId,
                 new BigDecimal("150.75"),
-                "USD"
+                CurrencyCode.of("USD")
         )
         TransferResult transferResult = new TransferResult(
                 UUID.randomUUID(),
@@ -63,13 +91,26 @@ class TransferControllerSpec extends Specification {
                 .andExpect(jsonPath('$.receiverNewBalance').value("150.75"))
     }
 
+    def "POST /transfers returns 429 with Retry-After when the transfer is shed"() {
+        when:
+        def response = mvc.perform(post("/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"fromAccountId": "' + UUID.randomUUID() + '", "toAccountId": "' + UUID.randomUUID() + '", "amount": 1.00, "currency": "USD"}'))
+
+        then: "Declared here to take precedence over the pass-through stub"
+        transferAdmission.admit(_, _) >> { throw new TransferRejectedException("Too many transfers in progress, retry later", Duration.ofSeconds(2)) }
+        response.andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath('$.message').value("Too many transfers in progress, retry later"))
+    }
+
     def "POST /transfers returns 400 for invalid transfer request"() {
         given:
         TransferRequest invalidRequest = new TransferRequest(
                 null,
                 null,
                 new BigDecimal("-100.00"),
-                "USD"
+                CurrencyCode.of("USD")
         )
 
         when:
@@ -81,4 +122,165 @@ class TransferControllerSpec extends Specification {
         response.andExpect(status().isBadRequest())
                 .andExpect(jsonPath('$.message').value("toAccountId: must not be null; amount: must be greater than 0; fromAccountId: must not be null"))
     }
+
+    def "POST /transfers returns 400 for an unknown currency"() {
+        when:
+        def response = mvc.perform(post("/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"fromAccountId": "' + UUID.randomUUID() + '", "toAccountId": "' + UUID.randomUUID() + '", "amount": 10.00, "currency": "XYZ"}'))
+
+        then:
+        response.andExpect(status().isBadRequest())
+                .andExpect(jsonPath('$.message').value("Invalid currency code: XYZ"))
+    }
+
+    def "POST /transfers/batch reports a result for each transfer"() {
+        given:
+        UUID fromAccountId = UUID.randomUUID()
+        UUID toAccountId = UUID.randomUUID()
+        TransferResult transferResult = new TransferResult(
+                UUID.randomUUID(),
+                new BigDecimal("10.00"),
+                "USD",
+                new BigDecimal("10.00"),
+                "USD",
+                BigDecimal.ONE,
+                new BigDecimal("990.00"),
+                new BigDecimal("510.00")
+        )
+        batchTransferService.transferFunds(_) >> [
+                BatchTransferItemResult.completed(transferResult),
+                BatchTransferItemResult.failed("Account not found: " + toAccountId)
+        ]
+        def item = '{"fromAccountId": "' + fromAccountId + '", "toAccountId": "' + toAccountId + '", "amount": 10.00, "currency": "USD"}'
+
+        when:
+        def response = mvc.perform(post("/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"transfers": [' + item + ', ' + item + ']}'))
+
+        then:
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath('$.completed').value(1))
+                .andExpect(jsonPath('$.failed').value(1))
+                .andExpect(jsonPath('$.results[0].status').value("COMPLETED"))
+                .andExpect(jsonPath('$.results[0].transfer.senderNewBalance').value("990.00"))
+                .andExpect(jsonPath('$.results[1].index').value(1))
+                .andExpect(jsonPath('$.results[1].status').value("FAILED"))
+                .andExpect(jsonPath('$.results[1].error').value("Account not found: " + toAccountId))
+    }
+
+    def "POST /transfers/batch returns 429 with Retry-After when the batch is shed"() {
+        given:
+        def item = '{"fromAccountId": "' + UUID.randomUUID() + '", "toAccountId": "' + UUID.randomUUID() + '", "amount": 1.00, "currency": "USD"}'
+
+        when:
+        def response = mvc.perform(post("/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"transfers": [' + item + ']}'))
+
+        then: "Declared here to take precedence over the pass-through stub"
+        transferAdmission.admitBatch(_) >> { throw new TransferRejectedException("Too many transfers in progress, retry later", Duration.ofSeconds(2)) }
+        response.andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+    }
+
+    def "POST /transfers/batch returns 400 for an empty batch"() {
+        expect:
+        mvc.perform(post("/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"transfers": []}'))
+                .andExpect(status().isBadRequest())
+    }
+
+    def "POST /transfers with Idempotency-Key goes through the idempotent path"() {
+        given:
+        UUID fromAccountId = UUID.randomUUID()
+        UUID toAccountId = UUID.randomUUID()
+        UUID correlationId = UUID.randomUUID()
+        TransferResponse stored = new TransferResponse(
+                correlationId,
+                new BigDecimal("10.00"),
+                "USD",
+                new BigDecimal("10.00"),
+                "USD",
+                BigDecimal.ONE,
+                new BigDecimal("990.00"),
+                new BigDecimal("510.00")
+        )
+
+        when:
+        def response = mvc.perform(post("/transfers")
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"fromAccountId": "' + fromAccountId + '", "toAccountId": "' + toAccountId + '", "amount": 10.00, "currency": "USD"}'))
+
+        then:
+        1 * idempotentTransferService.transferFunds("retry-1", _ as TransferRequest) >> stored
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath('$.correlationId').value(correlationId.toString()))
+                .andExpect(jsonPath('$.senderNewBalance').value("990.00"))
+    }
+
+    def "POST /transfers/async queues the transfer and returns 202 with its location"() {
+        given:
+        UUID id = UUID.randomUUID()
+        transferSubmissionService.submit(_ as TransferRequest) >>
+                new TransferSubmissionResponse(id, "PENDING", null, null, "2025-01-01T00:00:00Z")
+        def body = '{"fromAccountId": "' + UUID.randomUUID() + '", "toAccountId": "' + UUID.randomUUID() + '", "amount": 10.00, "currency": "USD"}'
+
+        when:
+        def response = mvc.perform(post("/transfers/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+
+        then:
+        response.andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/transfers/" + id))
+                .andExpect(jsonPath('$.id').value(id.toString()))
+                .andExpect(jsonPath('$.status').value("PENDING"))
+                .andExpect(jsonPath('$.transfer').doesNotExist())
+    }
+
+    def "POST /transfers/async returns 400 for invalid transfer request"() {
+        expect:
+        mvc.perform(post("/transfers/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"fromAccountId": null, "toAccountId": null, "amount": -100.00, "currency": "USD"}'))
+                .andExpect(status().isBadRequest())
+    }
+
+    def "GET /transfers/{id} returns the outcome of a submitted transfer"() {
+        given:
+        UUID id = UUID.randomUUID()
+        TransferResponse transfer = new TransferResponse(
+                UUID.randomUUID(),
+                new BigDecimal("10.00"),
+                "USD",
+                new BigDecimal("10.00"),
+                "USD",
+                BigDecimal.ONE,
+                new BigDecimal("990.00"),
+                new BigDecimal("510.00")
+        )
+        transferSubmissionService.getSubmission(id) >>
+                new TransferSubmissionResponse(id, "COMPLETED", transfer, null, "2025-01-01T00:00:00Z")
+
+        expect:
+        mvc.perform(get("/transfers/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath('$.status').value("COMPLETED"))
+                .andExpect(jsonPath('$.transfer.senderNewBalance').value("990.00"))
+                .andExpect(jsonPath('$.error').doesNotExist())
+    }
+
+    def "GET /transfers/{id} returns 404 for an unknown transfer"() {
+        given:
+        UUID id = UUID.randomUUID()
+        transferSubmissionService.getSubmission(id) >> { throw new TransferSubmissionNotFoundException(id) }
+
+        expect:
+        mvc.perform(get("/transfers/" + id))
+                .andExpect(status().isNotFound())
+    }
 }
@@ -5,6 +5,7 @@ import com.example.banking.dto.TransferRequest;
 import com.example.banking.dto.TransferResponse;
 import com.example.banking.repository.AccountRepository;
 import com.example.banking.repository.TransactionRepository;
+import com.example.banking.util.CurrencyCode;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
@@ -51,7 +52,7 @@ class TransferStepDefinitions /*extends SpringIntegrationTest*/ {
         for (Map<String, String> account : accounts) {
             Account acc = new Account();
             acc.setClientId(account.get("clientId"));
-            acc.setCurrency(account.get("currency"));
+            acc.setCurrency(CurrencyCode.of(account.get("currency")));
             acc.setBalance(new BigDecimal(account.get("balance")));
             Account saved = accountRepository.save(acc);
 
@@ -75,7 +76,7 @@ class TransferStepDefinitions /*extends SpringIntegrationTest*/ {
                 fromAccountId,
                 toAccountId,
                 new BigDecimal(amount),
-                currency
+                CurrencyCode.of(currency)
         );
 
         HttpHeaders headers = new HttpHeaders();
@@ -132,7 +133,7 @@ class TransferStepDefinitions /*extends SpringIntegrationTest*/ {
         assert account.getBalance().compareTo(expectedBalance) == 0 :
                 "Expected balance: " + expectedBalance + ", Actual: " + account.getBalance();
 
-        assert account.getCurrency().equals(currency) :
+        assert account.getCurrency().code().equals(currency) :
                 "Expected currency: " + currency + ", Actual: " + account.getCurrency();
     }
 
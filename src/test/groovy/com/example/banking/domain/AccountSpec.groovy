@@ -1,6 +1,7 @@
 package com.example.banking.domain
 
 import com.example.banking.exception.InsufficientFundsException
+import com.example.banking.util.CurrencyCode
 import org.springframework.boot.test.context.SpringBootTest
 import spock.lang.Specification
 
@@ -12,7 +13,7 @@ class AccountSpec extends Specification {
         def acc = Account.builder()
                 .id(UUID.randomUUID())
                 .clientId("c1")
-                .currency("USD")
+                .currency(CurrencyCode.of("USD"))
                 .balance(new BigDecimal("100.00"))
                 .build()
 
@@ -28,7 +29,7 @@ class AccountSpec extends Specification {
         def acc = Account.builder()
                 .id(UUID.randomUUID())
                 .clientId("c2")
-                .currency("EUR")
+                .currency(CurrencyCode.of("EUR"))
                 .balance(new BigDecimal("200.00"))
                 .build()
 
@@ -44,7 +45,7 @@ class AccountSpec extends Specification {
         def acc = Account.builder()
                 .id(UUID.randomUUID())
                 .clientId("c3")
-                .currency("GBP")
+                .currency(CurrencyCode.of("GBP"))
                 .balance(new BigDecimal("75.00"))
                 .build()
 
@@ -61,7 +62,7 @@ class AccountSpec extends Specification {
         def acc = Account.builder()
                 .id(uuid)
                 .clientId("c4")
-                .currency("JPY")
+                .currency(CurrencyCode.of("JPY"))
                 .balance(new BigDecimal("10.00"))
                 .build()
 
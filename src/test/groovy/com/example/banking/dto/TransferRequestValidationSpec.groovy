@@ -1,5 +1,6 @@
 package com.example.banking.dto
 
+import com.example.banking.util.CurrencyCode
 import jakarta.validation.Validation
 import jakarta.validation.Validator
 import jakarta.validation.ValidatorFactory
@@ -28,12 +29,12 @@ class TransferRequestValidationSpec extends Specification {
         violations.size() == expectedViolationCount
 
         where:
-        fromAccountId                  | toAccountId                  | amount        | currency | expectedViolationCount
-        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | "USD"     | 0
-        null                           | UUID.randomUUID()            | new BigDecimal("100.00") | "USD"     | 1
-        UUID.randomUUID()              | null                         | new BigDecimal("100.00") | "USD"     | 1
-        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("-100.00")| "USD"     | 1
-        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | "US"      | 2
-        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | "USD"     | 0
+        fromAccountId                  | toAccountId                  | amount                   | currency               | expectedViolationCount
+        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | CurrencyCode.of("USD") | 0
+        null                           | UUID.randomUUID()            | new BigDecimal("100.00") | CurrencyCode.of("USD") | 1
+        UUID.randomUUID()              | null                         | new BigDecimal("100.00") | CurrencyCode.of("USD") | 1
+        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("-100.00")| CurrencyCode.of("USD") | 1
+        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | null                   | 1
+        UUID.randomUUID()              | UUID.randomUUID()            | new BigDecimal("100.00") | CurrencyCode.of("EUR") | 0
     }
 }
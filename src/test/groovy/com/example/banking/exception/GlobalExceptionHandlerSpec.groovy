@@ -0,0 +1,55 @@
+package com.example.banking.exception
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.http.HttpStatus
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.web.context.request.ServletWebRequest
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class GlobalExceptionHandlerSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("POST", "/transfers"))
+
+    @Subject
+    GlobalExceptionHandler handler = new GlobalExceptionHandler(Stub(ObjectProvider) {
+        getIfAvailable(_) >> meterRegistry
+    })
+
+    def "counts each error response by exception type and status"() {
+        when:
+        def notFound = handler.handleNotFound(new AccountNotFoundException(UUID.randomUUID()), request)
+        handler.handleNotFound(new AccountNotFoundException(UUID.randomUUID()), request)
+        def rejected = handler.handleTransferRejected(
+                new TransferRejectedException("Too many transfers in progress, retry later", Duration.ofSeconds(2)), request)
+        def failed = handler.handleAllExceptions(new IllegalStateException("boom"), request)
+
+        then:
+        notFound.statusCode == HttpStatus.NOT_FOUND
+        rejected.statusCode == HttpStatus.TOO_MANY_REQUESTS
+        failed.statusCode == HttpStatus.INTERNAL_SERVER_ERROR
+        errors("AccountNotFoundException", "404") == 2
+        errors("TransferRejectedException", "429") == 1
+        errors("IllegalStateException", "500") == 1
+    }
+
+    def "tags exceptions handled by the same method separately"() {
+        when:
+        handler.handleBusinessRuleViolation(new InsufficientFundsException("Account has insufficient funds"), request)
+        handler.handleBusinessRuleViolation(new SameAccountTransferException("Cannot transfer to the same account"), request)
+
+        then:
+        errors("InsufficientFundsException", "422") == 1
+        errors("SameAccountTransferException", "422") == 1
+        meterRegistry.find("banking.errors").counters().size() == 2
+    }
+
+    private double errors(String exception, String status) {
+        meterRegistry.get("banking.errors").tags("exception", exception, "status", status).counter().count()
+    }
+}
@@ -2,10 +2,12 @@ package com.example.banking.integration
 
 import com.example.banking.domain.Account
 import com.example.banking.dto.TransferRequest
+import com.example.banking.exception.InsufficientFundsException
 import com.example.banking.exception.SameAccountTransferException
 import com.example.banking.repository.AccountRepository
 import com.example.banking.repository.TransactionRepository
 import com.example.banking.service.TransferService
+import com.example.banking.util.CurrencyCode
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.test.context.ActiveProfiles
@@ -28,12 +30,12 @@ class TransferIntegrationSpec extends Specification {
     def "should maintain consistency during concurrent transfers"() {
         given: "An account with initial balance"
         def account = accountRepository.save(
-                new Account(clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
+                new Account(clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
         )
 
         and: "Concurrent transfer requests"
         def requests = (1..10).collect {
-            new TransferRequest(account.id, account.id, new BigDecimal("10.00"), "USD")
+            new TransferRequest(account.id, account.id, new BigDecimal("10.00"), CurrencyCode.of("USD"))
         }
 
         when: "Executing transfers concurrently"
@@ -58,12 +60,12 @@ class TransferIntegrationSpec extends Specification {
     def "should record transactions atomically"() {
         given: "Two accounts"
         def sender = accountRepository.save(
-                new Account(clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
+                new Account(clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
         )
         def receiver = accountRepository.save(
-                new Account(clientId: "c2", currency: "USD", balance: new BigDecimal("500.00"))
+                new Account(clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
         )
-        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), "USD")
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
 
         when: "Transfer is executed"
         transferService.transferFunds(request)
@@ -83,4 +85,25 @@ class TransferIntegrationSpec extends Specification {
         senderTxns[0].amount == new BigDecimal("-100.00")
         receiverTxns[0].amount == new BigDecimal("100.00")
     }
-}
\ No newline at end of file
+
+    def "should leave balances and journal untouched when the sender cannot cover the amount"() {
+        given: "A sender with less than the amount"
+        def sender = accountRepository.save(
+                new Account(clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("50.00"))
+        )
+        def receiver = accountRepository.save(
+                new Account(clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        )
+
+        when: "Transfer is executed"
+        transferService.transferFunds(new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+
+        then: "Insufficient funds are reported"
+        thrown(InsufficientFundsException)
+
+        and: "Nothing was written"
+        accountRepository.findById(sender.id).get().balance == new BigDecimal("50.00")
+        accountRepository.findById(receiver.id).get().balance == new BigDecimal("500.00")
+        transactionRepository.findTransactionsByAccountId(sender.id, PageRequest.of(0, 10)).isEmpty()
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.banking.repository
 
 import com.example.banking.domain.Account
+import com.example.banking.util.CurrencyCode
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.test.context.ActiveProfiles
@@ -36,8 +37,8 @@ class AccountRepositorySpec extends Specification {
     def setup() {
         accountRepository.deleteAll()
         accountRepository.saveAll([
-                new Account(id: UUID.randomUUID(), clientId: "client-1", currency: "USD", balance: BigDecimal.ZERO),
-                new Account(id: UUID.randomUUID(), clientId: "client-1", currency: "EUR", balance: BigDecimal.ZERO)
+                new Account(clientId: "client-1", currency: CurrencyCode.of("USD"), balance: BigDecimal.ZERO),
+                new Account(clientId: "client-1", currency: CurrencyCode.of("EUR"), balance: BigDecimal.ZERO)
         ])
     }
 
@@ -47,6 +48,16 @@ class AccountRepositorySpec extends Specification {
 
         then:
         accounts.size() == 2
-        accounts*.currency.sort() == ["EUR", "USD"]
+        accounts*.currency*.code().sort() == ["EUR", "USD"]
+    }
+
+    def "should read account views by client ID without loading entities"() {
+        when:
+        def views = accountRepository.findViewsByClientId("client-1")
+
+        then:
+        views.size() == 2
+        views*.currency()*.code().sort() == ["EUR", "USD"]
+        views.every { it instanceof AccountView && it.balance() == 0 && it.createdAt() != null }
     }
 }
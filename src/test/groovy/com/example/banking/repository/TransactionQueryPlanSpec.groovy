@@ -0,0 +1,121 @@
+package com.example.banking.repository
+
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.springframework.transaction.support.TransactionTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Checks and logs the plans of the hot queries without and with the indexes of v1.3, v1.9 and v1.10.
+ * The "before" plan is taken after dropping the indexes in a transaction that is rolled back.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class TransactionQueryPlanSpec extends Specification {
+
+    static final int ACCOUNTS = 2_000
+    static final int TRANSACTIONS_PER_ACCOUNT = 100
+
+    static final List<String> INDEXES = [
+            "idx_account_transaction_account_created_at_id",
+            "idx_account_transaction_correlation_id",
+            "idx_account_transaction_account_chain_seq",
+            "idx_account_client_id_version"
+    ]
+
+    @Shared
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("banking")
+            .withUsername("banking")
+            .withPassword("banking")
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        postgres.start()
+        registry.add("spring.datasource.url", postgres::getJdbcUrl)
+        registry.add("spring.datasource.username", postgres::getUsername)
+        registry.add("spring.datasource.password", postgres::getPassword)
+    }
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    TransactionTemplate transactionTemplate
+
+    @Shared
+    boolean seeded
+
+    @Shared
+    Map<String, Object> sample
+
+    def setup() {
+        if (seeded) {
+            return
+        }
+        jdbcTemplate.update("""
+                INSERT INTO account (id, client_id, currency, balance, created_at)
+                SELECT gen_random_uuid(), 'plan-client-' || g, 'USD', 1000, now()
+                FROM generate_series(1, ?) g""", ACCOUNTS)
+        jdbcTemplate.update("""
+                INSERT INTO account_transaction (id, account_id, amount, currency, type, created_at, description, correlation_id)
+                SELECT gen_random_uuid(), a.id, 1.00, 'USD', 'TRANSFER_IN',
+                       now() - random() * INTERVAL '90 days', 'seed', gen_random_uuid()
+                FROM account a, generate_series(1, ?) g
+                WHERE a.client_id LIKE 'plan-client-%'""", TRANSACTIONS_PER_ACCOUNT)
+        jdbcTemplate.execute("ANALYZE account")
+        jdbcTemplate.execute("ANALYZE account_transaction")
+        sample = jdbcTemplate.queryForMap("""
+                SELECT t.account_id, t.created_at, t.id, t.correlation_id, a.client_id
+                FROM account_transaction t JOIN account a ON a.id = t.account_id
+                LIMIT 1""")
+        seeded = true
+    }
+
+    // History rows all fall in the legacy partition; the empty monthly ones are irrelevant to the plan
+    @Unroll
+    def "#query uses an index once the migration is applied"() {
+        given:
+        def params = parameters.collect { sample[it] }
+
+        when:
+        def before = explain(sql, params, true)
+        def after = explain(sql, params, false)
+        log.info("Plan of {} before the migration:\n{}\nand after:\n{}", query, before, after)
+
+        then:
+        (before =~ /Seq Scan on ${table}\b/).find()
+        !(after =~ /Seq Scan on ${table}\b/).find()
+        after.contains("Index")
+
+        where:
+        query                  | table                        | parameters                               | sql
+        "history page"         | "account_transaction_legacy" | ["account_id"]                           | "SELECT * FROM account_transaction WHERE account_id = ? ORDER BY created_at DESC, id DESC LIMIT 21"
+        "history keyset page"  | "account_transaction_legacy" | ["account_id", "created_at", "id"]       | "SELECT * FROM account_transaction WHERE account_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT 21"
+        "transfer legs"        | "account_transaction_legacy" | ["correlation_id"]                       | "SELECT * FROM account_transaction WHERE correlation_id = ?"
+        "client accounts"      | "account"                    | ["client_id"]                            | "SELECT * FROM account WHERE client_id = ?"
+    }
+
+    private String explain(String sql, List<Object> params, boolean withoutIndexes) {
+        transactionTemplate.execute { status ->
+            if (withoutIndexes) {
+                INDEXES.each { jdbcTemplate.execute("DROP INDEX ${it}") }
+            }
+            def plan = jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + sql, String, params as Object[])
+                    .join("\n")
+            status.setRollbackOnly()
+            plan
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.banking.service
+
+import com.example.banking.config.TransferProperties
+import com.example.banking.config.TransferProperties.ConcurrencyMode
+import spock.lang.Specification
+
+import java.time.Duration
+
+class AccountContentionTrackerSpec extends Specification {
+
+    UUID from = UUID.randomUUID()
+    UUID to = UUID.randomUUID()
+
+    def "should follow the configured mode outside of adaptive mode"() {
+        given:
+        def tracker = tracker(mode)
+
+        when: "Conflicts are reported"
+        3.times { tracker.record(from, to, true) }
+
+        then: "The choice does not change"
+        tracker.optimistic(from, to) == optimistic
+
+        where:
+        mode                        | optimistic
+        ConcurrencyMode.PESSIMISTIC | false
+        ConcurrencyMode.OPTIMISTIC  | true
+    }
+
+    def "should lock accounts whose conflict rate exceeds the threshold in adaptive mode"() {
+        given:
+        def tracker = tracker(ConcurrencyMode.ADAPTIVE)
+
+        expect: "Unknown accounts are tried optimistically"
+        tracker.optimistic(from, to)
+
+        when: "One conflict happens"
+        tracker.record(from, to, true)
+
+        then: "The rate is still below the threshold"
+        tracker.optimistic(from, to)
+
+        when: "A second conflict happens"
+        tracker.record(from, to, true)
+
+        then: "Both accounts are locked, also in transfers with other accounts"
+        !tracker.optimistic(from, to)
+        !tracker.optimistic(UUID.randomUUID(), to)
+
+        when: "Optimistic attempts succeed again"
+        3.times { tracker.record(from, to, false) }
+
+        then:
+        tracker.optimistic(from, to)
+    }
+
+    private static AccountContentionTracker tracker(ConcurrencyMode mode) {
+        new AccountContentionTracker(new TransferProperties(null, new TransferProperties.AccountCache(100), null,
+                new TransferProperties.Concurrency(mode, 3, Duration.ZERO, Duration.ZERO, 0.3d, Duration.ofMinutes(1), false)))
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.banking.service
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+import java.sql.Timestamp
+import java.time.Duration
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+
+/**
+ * Checkpoints an account twice and compares point-in-time balances with the journal.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@Stepwise
+class BalanceHistorySpec extends Specification {
+
+    @Shared
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("banking")
+            .withUsername("banking")
+            .withPassword("banking")
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        postgres.start()
+        registry.add("spring.datasource.url", postgres::getJdbcUrl)
+        registry.add("spring.datasource.username", postgres::getUsername)
+        registry.add("spring.datasource.password", postgres::getPassword)
+    }
+
+    @Autowired
+    BalanceHistoryService balanceHistoryService
+
+    @Autowired
+    BalanceCheckpointJob checkpointJob
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Shared
+    Instant t0 = Instant.now().truncatedTo(ChronoUnit.SECONDS)
+
+    @Shared
+    UUID accountId = UUID.randomUUID()
+
+    def "the first checkpoint is derived from the current balance"() {
+        given: "An account opened with 1000.00 and three entries"
+        jdbcTemplate.update("INSERT INTO account (id, client_id, currency, balance, created_at) VALUES (?, 'history-client', 'USD', 1077.50, ?)",
+                accountId, Timestamp.from(t0 - Duration.ofDays(1)))
+        entry("100.00", Duration.ofHours(10))
+        entry("-30.00", Duration.ofHours(5))
+        entry("7.50", Duration.ofHours(1))
+
+        when:
+        checkpointJob.checkpoint(t0 - Duration.ofHours(3))
+
+        then:
+        checkpoint(t0 - Duration.ofHours(3)) == new BigDecimal("1070.00")
+    }
+
+    def "later checkpoints roll the previous one forward"() {
+        given: "A new entry"
+        entry("20.00", Duration.ofMinutes(30))
+        jdbcTemplate.update("UPDATE account SET balance = balance + 20.00 WHERE id = ?", accountId)
+
+        when:
+        checkpointJob.checkpoint(t0 - Duration.ofMinutes(10))
+
+        then:
+        checkpoint(t0 - Duration.ofMinutes(10)) == new BigDecimal("1097.50")
+
+        when: "Nothing happened since"
+        checkpointJob.checkpoint(t0 - Duration.ofMinutes(5))
+
+        then: "No checkpoint is written"
+        checkpoint(t0 - Duration.ofMinutes(5)) == null
+    }
+
+    def "balance at #ago ago is #expected"() {
+        expect:
+        balanceHistoryService.getBalanceAt(accountId, t0 - ago).balance() == new BigDecimal(expected)
+
+        where:
+        ago                      | expected
+        Duration.ofHours(20)     | "1000.00"
+        Duration.ofHours(10)     | "1100.00"
+        Duration.ofHours(4)      | "1070.00"
+        Duration.ofMinutes(45)   | "1077.50"
+        Duration.ofMinutes(20)   | "1097.50"
+        Duration.ofSeconds(-60)  | "1097.50"
+    }
+
+    private void entry(String amount, Duration ago) {
+        jdbcTemplate.update("""
+                INSERT INTO account_transaction (id, account_id, amount, currency, type, created_at, description, correlation_id)
+                VALUES (gen_random_uuid(), ?, ?, 'USD', ?, ?, 'history', gen_random_uuid())""",
+                accountId, new BigDecimal(amount), amount.startsWith("-") ? "TRANSFER_OUT" : "TRANSFER_IN",
+                Timestamp.from(t0 - ago))
+    }
+
+    private BigDecimal checkpoint(Instant asOf) {
+        jdbcTemplate.queryForList(
+                "SELECT balance FROM account_balance_checkpoint WHERE account_id = ? AND as_of = ?",
+                BigDecimal, accountId, Timestamp.from(asOf)).find()
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.banking.service
+
+import com.example.banking.config.TransferProperties
+import com.example.banking.domain.Account
+import com.example.banking.dto.TransferRequest
+import com.example.banking.exception.AccountNotFoundException
+import com.example.banking.repository.AccountMetadata
+import com.example.banking.repository.AccountRepository
+import com.example.banking.repository.JournalJdbcRepository
+import com.example.banking.util.CurrencyCode
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class BatchTransferServiceSpec extends Specification {
+
+    AccountRepository accountRepository = Mock()
+    JournalJdbcRepository journalJdbcRepository = Mock()
+    ExchangeRateService exchangeRateService = Mock()
+    AccountMetadataCache accountMetadataCache = Stub()
+    HotAccountLedger hotAccountLedger = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+
+    @Subject
+    BatchTransferService batchTransferService = new BatchTransferService(
+            accountRepository, journalJdbcRepository, exchangeRateService, accountMetadataCache, hotAccountLedger,
+            new TransactionTemplate(transactionManager), new TransferProperties(new TransferProperties.Batch(2), new TransferProperties.AccountCache(100),
+                    new TransferProperties.Lanes(true, 16, Duration.ofSeconds(5)), null),
+            Mock(TransferOutbox), Mock(ApplicationEventPublisher))
+
+    def "transferFunds - applies good transfers and reports failed ones without rolling back"() {
+        given:
+        def a = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("100.00"))
+        def b = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("0.00"))
+        def requests = [
+                new TransferRequest(a.id, b.id, new BigDecimal("60.00"), CurrencyCode.of("USD")),
+                new TransferRequest(a.id, b.id, new BigDecimal("60.00"), CurrencyCode.of("USD"))
+        ]
+        known(a, b)
+
+        when:
+        def results = batchTransferService.transferFunds(requests)
+
+        then: "All accounts of the chunk are locked in one statement"
+        1 * accountRepository.findAllByIdWithLock({ it.size() == 2 }) >> [a, b]
+
+        and: "Journal entries of the good transfer are inserted in one batch"
+        1 * journalJdbcRepository.insertAll({ it.size() == 2 }, 2)
+
+        and:
+        results[0].completed
+        results[0].result().senderNewBalance() == new BigDecimal("40.00")
+        !results[1].completed
+        results[1].error().contains("insufficient funds")
+        a.balance == new BigDecimal("40.00")
+        b.balance == new BigDecimal("60.00")
+    }
+
+    def "transferFunds - fetches each exchange rate once per chunk before locking"() {
+        given:
+        def usd = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def eur = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("EUR"), balance: new BigDecimal("0.00"))
+        known(usd, eur)
+        def request = new TransferRequest(usd.id, eur.id, new BigDecimal("10.00"), CurrencyCode.of("EUR"))
+
+        when:
+        def results = batchTransferService.transferFunds([request, request])
+
+        then:
+        1 * exchangeRateService.getExchangeRate("EUR", "USD") >> new BigDecimal("1.10")
+
+        then:
+        1 * accountRepository.findAllByIdWithLock(_) >> [usd, eur]
+        results*.completed == [true, true]
+        usd.balance == new BigDecimal("978.00")
+    }
+
+    def "transferFunds - splits requests into chunks and rejects same account transfers"() {
+        given:
+        def id = UUID.randomUUID()
+        def requests = (1..3).collect { new TransferRequest(id, id, BigDecimal.ONE, CurrencyCode.of("USD")) }
+
+        when:
+        def results = batchTransferService.transferFunds(requests)
+
+        then:
+        results.size() == 3
+        results.every { it.error() == "Cannot transfer to the same account" }
+        0 * accountRepository._
+    }
+
+    def "transferFunds - reports an unknown sender without locking for it"() {
+        given:
+        def a = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("100.00"))
+        def b = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("0.00"))
+        def unknownId = UUID.randomUUID()
+        known(a, b)
+        accountMetadataCache.get(unknownId) >> { throw new AccountNotFoundException(unknownId) }
+
+        when:
+        def results = batchTransferService.transferFunds([
+                new TransferRequest(unknownId, b.id, new BigDecimal("10.00"), CurrencyCode.of("USD")),
+                new TransferRequest(a.id, b.id, new BigDecimal("10.00"), CurrencyCode.of("USD"))
+        ])
+
+        then:
+        1 * accountRepository.findAllByIdWithLock([a.id, b.id] as Set) >> [a, b]
+        results[0].error() == "Account not found: " + unknownId
+        results[1].completed
+    }
+
+    private void known(Account... accounts) {
+        accounts.each { account ->
+            accountMetadataCache.get(account.id) >> new AccountMetadata(account.id, account.clientId, account.currency)
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.banking.service
+
+import com.example.banking.config.CacheConfig
+import com.example.banking.event.AccountBalancesChangedEvent
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager
+import spock.lang.Specification
+import spock.lang.Subject
+
+class ClientAccountsCacheInvalidatorSpec extends Specification {
+
+    ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CLIENT_ACCOUNTS)
+
+    @Subject
+    ClientAccountsCacheInvalidator invalidator = new ClientAccountsCacheInvalidator(cacheManager)
+
+    def "evicts only the clients whose balances changed"() {
+        given:
+        def cache = cacheManager.getCache(CacheConfig.CLIENT_ACCOUNTS)
+        cache.put("c1", [])
+        cache.put("c2", [])
+        cache.put("c3", [])
+
+        when:
+        invalidator.onBalancesChanged(new AccountBalancesChangedEvent(["c1", "c2"] as Set))
+
+        then:
+        cache.get("c1") == null
+        cache.get("c2") == null
+        cache.get("c3") != null
+    }
+}
@@ -2,6 +2,7 @@ package com.example.banking.service
 
 import com.example.banking.exception.ExchangeRateException
 import com.github.benmanes.caffeine.cache.Caffeine
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
@@ -26,6 +27,9 @@ class ExchangeRateServiceSpec extends Specification {
     @SpringBean
     ExchangeRateClient exchangeRateClient = Mock()
 
+    @SpringBean
+    ExchangeRateSnapshotCache snapshotCache = Mock()
+
     @Autowired
     @Subject
     ExchangeRateService exchangeRateService
@@ -47,8 +51,8 @@ class ExchangeRateServiceSpec extends Specification {
         }
 
         @Bean
-        ExchangeRateService exchangeRateService(ExchangeRateClient client) {
-            return new ExchangeRateService(client)
+        ExchangeRateService exchangeRateService(ExchangeRateClient client, ExchangeRateSnapshotCache snapshotCache) {
+            return new ExchangeRateService(client, snapshotCache, new SimpleMeterRegistry())
         }
     }
 
@@ -67,6 +71,18 @@ class ExchangeRateServiceSpec extends Specification {
         then: "Returns correct rate"
         rate == 0.92
     }
+
+    def "should serve rate from snapshot without calling client"() {
+        given: "Snapshot knows the pair"
+        snapshotCache.lookup("USD", "CHF") >> Optional.of(new BigDecimal("0.88"))
+
+        when: "Requesting rate"
+        BigDecimal rate = exchangeRateService.getExchangeRate("USD", "CHF")
+
+        then: "Returns snapshot rate"
+        rate == 0.88
+        0 * exchangeRateClient._
+    }
 /* THIS PART DOESN'T WORK YET (OR ITS SETUP)
     def "should cache exchange rates"() {
         given: "Initial request"
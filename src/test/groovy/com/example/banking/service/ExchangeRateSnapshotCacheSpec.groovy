@@ -0,0 +1,209 @@
+package com.example.banking.service
+
+import com.example.banking.config.ExchangeRateSnapshotProperties
+import com.example.banking.exception.ExchangeRateException
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.util.concurrent.PollingConditions
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class ExchangeRateSnapshotCacheSpec extends Specification {
+
+    ExchangeRateClient exchangeRateClient = Mock()
+    SharedExchangeRateStore sharedStore = Mock()
+    ExchangeRateSnapshotProperties properties = properties(true, false)
+    ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("exchangeRates")
+    Instant now = Instant.parse("2025-01-01T00:00:00Z")
+    Clock clock = Stub() {
+        instant() >> { now }
+    }
+
+    @Subject
+    ExchangeRateSnapshotCache snapshotCache = new ExchangeRateSnapshotCache(
+            exchangeRateClient, sharedStore, properties, cacheManager, clock)
+
+    def "should serve base and cross rates from the fetched table"() {
+        given:
+        exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.9"), GBP: new BigDecimal("0.8")]
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+        snapshotCache.lookup("EUR", "USD").get() == 1.111111111111111
+        snapshotCache.lookup("EUR", "GBP").get() == 0.8888888888888889
+        snapshotCache.lookup("EUR", "EUR").get() == 1
+        snapshotCache.lookup("EUR", "JPY").isEmpty()
+    }
+
+    def "should be empty before the first refresh"() {
+        expect:
+        snapshotCache.lookup("USD", "EUR").isEmpty()
+    }
+
+    def "should keep the previous snapshot when a refresh fails"() {
+        given:
+        exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.9")] >>
+                { throw new ExchangeRateException("Service down") }
+        snapshotCache.refresh()
+
+        when:
+        now = now.plusSeconds(60)
+        snapshotCache.refresh()
+
+        then:
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+        snapshotCache.current().get().fetchedAt == Instant.parse("2025-01-01T00:00:00Z")
+    }
+
+    def "should still serve a stale snapshot while refreshing it in the background"() {
+        given:
+        exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.9")] >> [EUR: new BigDecimal("0.95")]
+        snapshotCache.refresh()
+
+        when:
+        now = now.plus(Duration.ofMinutes(3))
+        def rate = snapshotCache.lookup("USD", "EUR")
+
+        then:
+        rate.get() == 0.9
+        new PollingConditions(timeout: 5).eventually {
+            assert snapshotCache.lookup("USD", "EUR").get() == 0.95
+        }
+    }
+
+    def "should not serve a snapshot older than the maximum staleness"() {
+        given:
+        exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.9")] >>
+                { throw new ExchangeRateException("Service down") }
+        snapshotCache.refresh()
+
+        when:
+        now = now.plus(Duration.ofMinutes(16))
+
+        then:
+        snapshotCache.lookup("USD", "EUR").isEmpty()
+    }
+
+    def "should evict pairs cached from individual calls when swapping"() {
+        given:
+        exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.9")]
+        cacheManager.getCache("exchangeRates").put(["USD", "EUR"], new BigDecimal("0.85"))
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        cacheManager.getCache("exchangeRates").get(["USD", "EUR"]) == null
+    }
+
+    def "should not fetch when disabled"() {
+        given:
+        snapshotCache = new ExchangeRateSnapshotCache(
+                exchangeRateClient, sharedStore, properties(false, false), cacheManager, clock)
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        0 * exchangeRateClient._
+        0 * sharedStore._
+        snapshotCache.lookup("USD", "EUR").isEmpty()
+    }
+
+    def "should use a fresh shared snapshot without calling the API"() {
+        given:
+        snapshotCache = sharedCache()
+        sharedStore.load() >> Optional.of(snapshot([EUR: new BigDecimal("0.9")], now.minusSeconds(10)))
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        0 * sharedStore.claimRefresh(_)
+        0 * exchangeRateClient._
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+    }
+
+    def "should fetch and publish a due snapshot while holding the refresh lease"() {
+        given:
+        snapshotCache = sharedCache()
+        sharedStore.load() >> Optional.of(snapshot([EUR: new BigDecimal("0.9")], now.minusSeconds(60)))
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        1 * sharedStore.claimRefresh(now) >> true
+        1 * exchangeRateClient.fetchRateTable("USD") >> [EUR: new BigDecimal("0.95")]
+        1 * sharedStore.publish({ it.fetchedAt == now && it.rate("USD", "EUR").get() == 0.95 })
+        1 * sharedStore.extendRefresh(now)
+        0 * sharedStore.releaseRefresh(_)
+        snapshotCache.lookup("USD", "EUR").get() == 0.95
+    }
+
+    def "should release the refresh lease when the fetch fails"() {
+        given:
+        snapshotCache = sharedCache()
+        sharedStore.load() >> Optional.of(snapshot([EUR: new BigDecimal("0.9")], now.minusSeconds(60)))
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        1 * sharedStore.claimRefresh(now) >> true
+        1 * exchangeRateClient.fetchRateTable("USD") >> { throw new ExchangeRateException("API down") }
+        1 * sharedStore.releaseRefresh(now)
+        0 * sharedStore.publish(_)
+        0 * sharedStore.extendRefresh(_)
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+    }
+
+    def "should leave the API to the node holding the refresh lease"() {
+        given:
+        snapshotCache = sharedCache()
+        sharedStore.load() >> Optional.of(snapshot([EUR: new BigDecimal("0.9")], now.minusSeconds(60)))
+
+        when:
+        snapshotCache.refresh()
+
+        then:
+        1 * sharedStore.claimRefresh(now) >> false
+        0 * exchangeRateClient._
+        0 * sharedStore.publish(_)
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+    }
+
+    def "should swap in an announced snapshot unless it is older than the current one"() {
+        given:
+        snapshotCache = sharedCache()
+        sharedStore.load() >>> [
+                Optional.of(snapshot([EUR: new BigDecimal("0.9")], now)),
+                Optional.of(snapshot([EUR: new BigDecimal("0.8")], now.minusSeconds(30)))]
+
+        when:
+        snapshotCache.onSnapshotStored("USD")
+        snapshotCache.onSnapshotStored("USD")
+
+        then:
+        snapshotCache.lookup("USD", "EUR").get() == 0.9
+    }
+
+    private ExchangeRateSnapshotCache sharedCache() {
+        new ExchangeRateSnapshotCache(exchangeRateClient, sharedStore, properties(true, true), cacheManager, clock)
+    }
+
+    private static ExchangeRateSnapshot snapshot(Map<String, BigDecimal> rates, Instant fetchedAt) {
+        new ExchangeRateSnapshot("USD", rates, fetchedAt)
+    }
+
+    private static ExchangeRateSnapshotProperties properties(boolean enabled, boolean shared) {
+        new ExchangeRateSnapshotProperties(enabled, "USD", Duration.ofSeconds(60), Duration.ofMinutes(2),
+                Duration.ofMinutes(15), new ExchangeRateSnapshotProperties.Shared(shared, Duration.ofMinutes(5), "banking.fx-rates"))
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.banking.service
+
+import com.example.banking.config.LedgerProperties
+import com.example.banking.domain.Account
+import com.example.banking.domain.AccountTransaction
+import com.example.banking.dto.TransferRequest
+import com.example.banking.event.JournalHeadMovedEvent
+import com.example.banking.exception.AccountBusyException
+import com.example.banking.exception.InsufficientFundsException
+import com.example.banking.repository.AccountMetadata
+import com.example.banking.repository.AccountRepository
+import com.example.banking.repository.JournalJdbcRepository
+import com.example.banking.util.CurrencyCode
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.time.Instant
+
+class HotAccountLedgerSpec extends Specification {
+
+    UUID hotId = UUID.randomUUID()
+    UUID coldId = UUID.randomUUID()
+
+    AccountRepository accountRepository = Mock()
+    JournalJdbcRepository journalJdbcRepository = Mock()
+    ExchangeRateService exchangeRateService = Mock()
+    AccountMetadataCache accountMetadataCache = Stub()
+    LedgerJournalWriter journalWriter = Mock()
+    CurrencyCode hotCurrency = CurrencyCode.of("USD")
+    LedgerProperties properties = new LedgerProperties(true, [hotId] as Set, 2, 500, Duration.ofSeconds(60), 100_000)
+
+    @Subject
+    HotAccountLedger ledger = new HotAccountLedger(
+            properties, accountRepository, journalJdbcRepository, exchangeRateService, accountMetadataCache,
+            journalWriter, Mock(ApplicationEventPublisher))
+
+    def setup() {
+        TransactionSynchronizationManager.initSynchronization()
+        accountMetadataCache.get(hotId) >> { new AccountMetadata(hotId, "c1", hotCurrency) }
+        accountMetadataCache.get(coldId) >> new AccountMetadata(coldId, "c2", CurrencyCode.of("USD"))
+    }
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.synchronizationActive) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+        ledger.shutdown()
+    }
+
+    // Stands in for the transaction manager completing the surrounding transaction
+    private static void complete(int status) {
+        def synchronizations = TransactionSynchronizationManager.synchronizations
+        TransactionSynchronizationManager.clearSynchronization()
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations*.afterCommit()
+        }
+        synchronizations*.afterCompletion(status)
+        TransactionSynchronizationManager.initSynchronization()
+    }
+
+    def "handles - only transfers touching a hot account"() {
+        expect:
+        ledger.handles(new TransferRequest(hotId, coldId, BigDecimal.TEN, CurrencyCode.of("USD")))
+        ledger.handles(new TransferRequest(coldId, hotId, BigDecimal.TEN, CurrencyCode.of("USD")))
+        !ledger.handles(new TransferRequest(coldId, UUID.randomUUID(), BigDecimal.TEN, CurrencyCode.of("USD")))
+    }
+
+    def "transfer - debits the hot sender in memory and locks only the cold receiver"() {
+        given:
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        accountRepository.findById(hotId) >> Optional.of(hot)
+
+        when:
+        def first = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+        def second = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("50.00"), CurrencyCode.of("USD")))
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+
+        then: "The cold receiver is locked on first load and journaled in the transaction"
+        2 * accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+        0 * accountRepository.findById(coldId)
+        0 * accountRepository.findByIdWithLock(hotId)
+        2 * journalJdbcRepository.insertAll({ it.size() == 1 }, 1)
+
+        and: "The hot balance is applied in order and handed to the writer with the transfer it completes"
+        1 * journalWriter.record(hotId, new BigDecimal("900.00"), _, { it.size() == 2 })
+        1 * journalWriter.record(hotId, new BigDecimal("850.00"), _, { it.size() == 2 })
+        first.senderNewBalance() == new BigDecimal("900.00")
+        second.senderNewBalance() == new BigDecimal("850.00")
+        second.receiverNewBalance() == new BigDecimal("650.00")
+    }
+
+    def "transfer - keeps the insufficient funds semantics of Account.debit"() {
+        given:
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("10.00"))
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        accountRepository.findById(hotId) >> Optional.of(hot)
+        accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+
+        when:
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("10.01"), CurrencyCode.of("USD")))
+
+        then:
+        def ex = thrown(InsufficientFundsException)
+        ex.message.contains("Account $hotId")
+        0 * journalWriter.record(*_)
+    }
+
+    def "transfer - books the hot leg only once the transaction committed"() {
+        given:
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("100.00"))
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        accountRepository.findById(hotId) >> Optional.of(hot)
+        accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+
+        when: "The held amount cannot be spent twice"
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("80.00"), CurrencyCode.of("USD")))
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("80.00"), CurrencyCode.of("USD")))
+
+        then:
+        thrown(InsufficientFundsException)
+        0 * journalWriter.record(*_)
+
+        when: "The transaction rolls back"
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK)
+        def result = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("80.00"), CurrencyCode.of("USD")))
+
+        then: "The hold is released and nothing was booked"
+        result.senderNewBalance() == new BigDecimal("20.00")
+        0 * journalWriter.record(*_)
+
+        when:
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+
+        then:
+        1 * journalWriter.record(hotId, new BigDecimal("20.00"), _, _)
+    }
+
+    def "transfer - resolves the exchange rate before locking the cold account"() {
+        given:
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("EUR"), balance: new BigDecimal("1000.00"))
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        hotCurrency = CurrencyCode.of("EUR")
+        accountRepository.findById(hotId) >> Optional.of(hot)
+
+        when:
+        def result = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+
+        then:
+        1 * exchangeRateService.getExchangeRate("USD", "EUR") >> new BigDecimal("0.90")
+
+        then:
+        1 * accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+        result.senderNewBalance() == new BigDecimal("910.00")
+    }
+
+    def "transfer - rejects new transfers while the journal writer is full"() {
+        given:
+        journalWriter.isFull() >> true
+
+        when:
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+
+        then:
+        thrown(AccountBusyException)
+        0 * accountRepository.findByIdWithLock(_)
+        0 * journalWriter.record(*_)
+    }
+
+    def "onJournalHeadMoved - relinks the held back entries onto the stored head and books later changes on it"() {
+        given: "The shard holds the account, then a change outside the ledger takes 50.00 and moves the head"
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def stored = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("950.00"),
+                journalSeq: 5, journalHash: new byte[32])
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        accountRepository.findById(hotId) >>> [Optional.of(hot), Optional.of(stored)]
+        accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+        def heldBack = new AccountTransaction(id: UUID.randomUUID(), account: new Account(id: hotId),
+                amount: new BigDecimal("-100.00"), currency: CurrencyCode.of("USD"),
+                type: AccountTransaction.TransactionType.TRANSFER_OUT, createdAt: Instant.now(), chainSeq: 1)
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+
+        when:
+        ledger.onJournalHeadMoved(new JournalHeadMovedEvent(hotId))
+        def result = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("50.00"), CurrencyCode.of("USD")))
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+
+        then: "The held back debit is applied again on the stored balance and chained after the stored head"
+        1 * journalWriter.takeHeldBack(hotId) >> [heldBack]
+        1 * journalWriter.record(hotId, new BigDecimal("850.00"), heldBack, [])
+        heldBack.chainSeq == 6
+
+        and: "The next transfer is booked on the rebuilt account"
+        result.senderNewBalance() == new BigDecimal("800.00")
+        1 * journalWriter.record(hotId, new BigDecimal("800.00"), { it.chainSeq == 7 }, _)
+    }
+
+    def "onJournalHeadMoved - leaves the account alone when its entries were already relinked"() {
+        given:
+        def hot = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def stale = new Account(id: hotId, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1.00"))
+        def cold = new Account(id: coldId, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        accountRepository.findById(hotId) >>> [Optional.of(hot), Optional.of(stale)]
+        accountRepository.findByIdWithLock(coldId) >> Optional.of(cold)
+        journalWriter.takeHeldBack(hotId) >> null
+        ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("100.00"), CurrencyCode.of("USD")))
+        complete(TransactionSynchronization.STATUS_COMMITTED)
+
+        when:
+        ledger.onJournalHeadMoved(new JournalHeadMovedEvent(hotId))
+        def result = ledger.transfer(new TransferRequest(hotId, coldId, new BigDecimal("50.00"), CurrencyCode.of("USD")))
+
+        then:
+        result.senderNewBalance() == new BigDecimal("850.00")
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.banking.service
+
+import com.example.banking.config.IdempotencyProperties
+import com.example.banking.dto.TransferRequest
+import com.example.banking.dto.TransferResponse
+import com.example.banking.dto.TransferResult
+import com.example.banking.exception.IdempotencyKeyInProgressException
+import com.example.banking.exception.IdempotencyKeyReuseException
+import com.example.banking.exception.InsufficientFundsException
+import com.example.banking.repository.AccountMetadata
+import com.example.banking.repository.IdempotencyKeyRepository
+import com.example.banking.util.CurrencyCode
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.transaction.TransactionSystemException
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class IdempotentTransferServiceSpec extends Specification {
+
+    TransferService transferService = Mock()
+    IdempotencyKeyRepository idempotencyKeyRepository = Mock()
+    AccountMetadataCache accountMetadataCache = Stub()
+    ObjectMapper objectMapper = new ObjectMapper()
+
+    @Subject
+    IdempotentTransferService service = new IdempotentTransferService(
+            transferService, idempotencyKeyRepository, accountMetadataCache,
+            objectMapper, new IdempotencyProperties(100, Duration.ofHours(24)))
+
+    def request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("10.00"), CurrencyCode.of("USD"))
+
+    def setup() {
+        accountMetadataCache.get(request.fromAccountId()) >> new AccountMetadata(request.fromAccountId(), "c1", CurrencyCode.of("USD"))
+    }
+    def result = new TransferResult(UUID.randomUUID(), new BigDecimal("10.00"), "USD",
+            new BigDecimal("10.00"), "USD", BigDecimal.ONE, new BigDecimal("990.00"), new BigDecimal("510.00"))
+
+    // Runs the completion callback the way the transfer's transaction does before it commits
+    def committed = { args -> args[1].accept(result); result }
+
+    def "transferFunds - runs the transfer once and answers retries from memory"() {
+        when:
+        def first = service.transferFunds("key-1", request)
+        def retry = service.transferFunds("key-1", request)
+
+        then:
+        1 * idempotencyKeyRepository.claim("c1", "key-1", _, _) >> true
+        1 * transferService.transferFunds(request, _) >> committed
+        1 * idempotencyKeyRepository.complete("c1", "key-1", { it.contains(result.correlationId().toString()) })
+        first == retry
+        first.correlationId() == result.correlationId()
+    }
+
+    def "transferFunds - returns the stored response without running the transfer"() {
+        given: "A key completed before the in-memory cache was lost"
+        String storedHash = null
+        idempotencyKeyRepository.claim("c1", "key-2", _, _) >> { args -> storedHash = args[2]; true }
+        transferService.transferFunds(request, _) >> committed
+        def first = service.transferFunds("key-2", request)
+        def restarted = new IdempotentTransferService(
+                transferService, idempotencyKeyRepository, accountMetadataCache,
+                objectMapper, new IdempotencyProperties(100, Duration.ofHours(24)))
+
+        when:
+        def replay = restarted.transferFunds("key-2", request)
+
+        then:
+        1 * idempotencyKeyRepository.claim("c1", "key-2", _, _) >> false
+        1 * idempotencyKeyRepository.findByKey("c1", "key-2") >>
+                Optional.of(new IdempotencyKeyRepository.StoredKey(storedHash, objectMapper.writeValueAsString(first)))
+        0 * transferService._
+        replay == first
+    }
+
+    def "transferFunds - rejects a key reused for another request"() {
+        given:
+        idempotencyKeyRepository.claim(*_) >> true
+        transferService.transferFunds(_, _) >> committed
+        service.transferFunds("key-3", request)
+
+        when:
+        service.transferFunds("key-3", new TransferRequest(request.fromAccountId(), request.toAccountId(), new BigDecimal("11.00"), CurrencyCode.of("USD")))
+
+        then:
+        thrown(IdempotencyKeyReuseException)
+    }
+
+    def "transferFunds - concurrent requests with one key wait for the first"() {
+        given:
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        idempotencyKeyRepository.claim(*_) >> true
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def futures = (1..4).collect {
+            executor.submit({ service.transferFunds("key-4", request) } as Callable)
+        }
+        started.await(5, TimeUnit.SECONDS)
+        release.countDown()
+        def responses = futures*.get(5, TimeUnit.SECONDS)
+
+        then:
+        1 * transferService.transferFunds(request, _) >> { args ->
+            started.countDown()
+            release.await(5, TimeUnit.SECONDS)
+            committed(args)
+        }
+        responses.toSet().size() == 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "transferFunds - scopes keys to the client of the sender account"() {
+        given:
+        def other = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("10.00"), CurrencyCode.of("USD"))
+        accountMetadataCache.get(other.fromAccountId()) >> new AccountMetadata(other.fromAccountId(), "c2", CurrencyCode.of("USD"))
+
+        when:
+        service.transferFunds("key-5", request)
+        service.transferFunds("key-5", other)
+
+        then:
+        1 * idempotencyKeyRepository.claim("c1", "key-5", _, _) >> true
+        1 * idempotencyKeyRepository.claim("c2", "key-5", _, _) >> true
+        2 * transferService.transferFunds(_, _) >> committed
+    }
+
+    def "transferFunds - gives the key back when the transfer fails"() {
+        given:
+        idempotencyKeyRepository.claim(*_) >> true
+
+        when:
+        service.transferFunds("key-6", request)
+
+        then:
+        1 * transferService.transferFunds(request, _) >> { throw new InsufficientFundsException("insufficient") }
+        1 * idempotencyKeyRepository.release("c1", "key-6")
+        0 * idempotencyKeyRepository.complete(*_)
+        thrown(InsufficientFundsException)
+    }
+
+    def "transferFunds - rejects a key claimed on another node that has no response yet"() {
+        given:
+        idempotencyKeyRepository.claim(*_) >> false
+        idempotencyKeyRepository.findByKey("c1", "key-7") >> Optional.of(new IdempotencyKeyRepository.StoredKey("hash", null))
+
+        when:
+        service.transferFunds("key-7", request)
+
+        then:
+        thrown(IdempotencyKeyInProgressException)
+        0 * transferService._
+    }
+
+    def "transferFunds - returns the stored response when the commit failed after going through"() {
+        given:
+        String storedHash = null
+        idempotencyKeyRepository.claim("c1", "key-8", _, _) >> { args -> storedHash = args[2]; true }
+
+        when:
+        def response = service.transferFunds("key-8", request)
+
+        then:
+        1 * transferService.transferFunds(request, _) >> { throw new TransactionSystemException("commit failed") }
+        1 * idempotencyKeyRepository.findByKey("c1", "key-8") >> { Optional.of(new IdempotencyKeyRepository.StoredKey(
+                storedHash, objectMapper.writeValueAsString(TransferResponse.fromTransferResult(result)))) }
+        0 * idempotencyKeyRepository.release(*_)
+        response.correlationId() == result.correlationId()
+    }
+
+    def "transferFunds - keeps the key claimed when the outcome of the commit is unknown"() {
+        given:
+        idempotencyKeyRepository.claim(*_) >> true
+        idempotencyKeyRepository.findByKey("c1", "key-9") >> Optional.of(new IdempotencyKeyRepository.StoredKey("hash", null))
+
+        when:
+        service.transferFunds("key-9", request)
+
+        then:
+        1 * transferService.transferFunds(request, _) >> { throw new TransactionSystemException("commit failed") }
+        0 * idempotencyKeyRepository.release(*_)
+        thrown(TransactionSystemException)
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.banking.service
+
+import com.example.banking.domain.Account
+import com.example.banking.dto.TransferRequest
+import com.example.banking.repository.AccountRepository
+import com.example.banking.util.CurrencyCode
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+/**
+ * Chains entries through the single-statement transfer and the batch transfer, which hash in the
+ * database and in Java respectively, and verifies the chains incrementally.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@Stepwise
+class JournalChainVerifierSpec extends Specification {
+
+    @Shared
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("banking")
+            .withUsername("banking")
+            .withPassword("banking")
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        postgres.start()
+        registry.add("spring.datasource.url", postgres::getJdbcUrl)
+        registry.add("spring.datasource.username", postgres::getUsername)
+        registry.add("spring.datasource.password", postgres::getPassword)
+    }
+
+    @Autowired
+    TransferService transferService
+
+    @Autowired
+    BatchTransferService batchTransferService
+
+    @Autowired
+    JournalChainVerifier verifier
+
+    @Autowired
+    AccountRepository accountRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    MeterRegistry meterRegistry
+
+    @Shared
+    UUID first
+
+    @Shared
+    UUID second
+
+    @Shared
+    UUID third
+
+    def "chains hashed by the database and by the application verify alike"() {
+        given: "Three accounts"
+        first = account()
+        second = account()
+        third = account()
+
+        when: "Entries are chained by single statements and by batches, interleaved"
+        transfer(first, second, "10.00")
+        batchTransferService.transferFunds([
+                new TransferRequest(second, first, new BigDecimal("5.00"), CurrencyCode.of("USD")),
+                new TransferRequest(first, third, new BigDecimal("1.00"), CurrencyCode.of("USD"))])
+        transfer(third, first, "1.00")
+
+        then: "Every chain is intact"
+        verifier.verify().isEmpty()
+        journalSeq(first) == 4
+        journalSeq(second) == 2
+        journalSeq(third) == 2
+    }
+
+    def "only entries appended since the last run are verified"() {
+        given:
+        double before = verifiedEntries()
+
+        when:
+        transfer(first, second, "2.00")
+
+        then:
+        verifier.verify().isEmpty()
+        verifiedEntries() - before == 2
+    }
+
+    def "a changed entry breaks the chain of its account"() {
+        given: "The amount of the latest entry of the third account is changed behind the journal's back"
+        transfer(second, third, "3.00")
+        jdbcTemplate.update(
+                "UPDATE account_transaction SET amount = amount + 100 WHERE account_id = ? AND chain_seq = ?",
+                third, journalSeq(third))
+
+        expect:
+        verifier.verify() == [third]
+    }
+
+    def "a moved creation time breaks the chain of its account"() {
+        given: "The latest entry of the second account is backdated by one microsecond"
+        jdbcTemplate.update(
+                "UPDATE account_transaction SET created_at = created_at - INTERVAL '1 microsecond' " +
+                        "WHERE account_id = ? AND chain_seq = ?",
+                second, journalSeq(second))
+
+        expect: "The third account stays broken"
+        verifier.verify() as Set == [second, third] as Set
+    }
+
+    def "id ranges cover the id space in PostgreSQL order"() {
+        expect:
+        JournalChainVerifier.rangeEnds(4)*.toString() == [
+                "3fffffff-ffff-ffff-ffff-ffffffffffff",
+                "7fffffff-ffff-fffe-ffff-ffffffffffff",
+                "bfffffff-ffff-fffd-ffff-ffffffffffff",
+                "ffffffff-ffff-ffff-ffff-ffffffffffff"]
+    }
+
+    private UUID account() {
+        accountRepository.save(new Account(clientId: "chain-client", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))).id
+    }
+
+    private void transfer(UUID from, UUID to, String amount) {
+        transferService.transferFunds(new TransferRequest(from, to, new BigDecimal(amount), CurrencyCode.of("USD")))
+    }
+
+    private long journalSeq(UUID accountId) {
+        jdbcTemplate.queryForObject("SELECT journal_seq FROM account WHERE id = ?", Long, accountId)
+    }
+
+    private double verifiedEntries() {
+        meterRegistry.counter("banking.journal.chain.verified").count()
+    }
+}
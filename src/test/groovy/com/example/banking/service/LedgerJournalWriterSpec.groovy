@@ -0,0 +1,161 @@
+package com.example.banking.service
+
+import com.example.banking.config.LedgerProperties
+import com.example.banking.domain.Account
+import com.example.banking.domain.AccountTransaction
+import com.example.banking.event.JournalHeadMovedEvent
+import com.example.banking.exception.JournalHeadMovedException
+import com.example.banking.repository.AccountJdbcRepository
+import com.example.banking.repository.JournalJdbcRepository
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class LedgerJournalWriterSpec extends Specification {
+
+    UUID accountId = UUID.randomUUID()
+    UUID otherId = UUID.randomUUID()
+
+    AccountJdbcRepository accountJdbcRepository = Mock()
+    JournalJdbcRepository journalJdbcRepository = Mock()
+    TransferOutbox transferOutbox = Mock()
+    ApplicationEventPublisher eventPublisher = Mock()
+
+    @Subject
+    LedgerJournalWriter writer = writer(100_000)
+
+    private LedgerJournalWriter writer(int maxPending) {
+        new LedgerJournalWriter(
+                new LedgerProperties(true, [accountId, otherId] as Set, 1, 500, Duration.ofSeconds(60), maxPending),
+                accountJdbcRepository, journalJdbcRepository,
+                new TransactionTemplate(Mock(PlatformTransactionManager)), eventPublisher, transferOutbox)
+    }
+
+    def "flush - writes the latest balance guarded by the head the pending changes started from"() {
+        given:
+        writer.record(accountId, new BigDecimal("90.00"), entry(6), [])
+        writer.record(accountId, new BigDecimal("80.00"), entry(7), [])
+
+        when:
+        writer.flush()
+
+        then:
+        1 * accountJdbcRepository.updateBalances({ Map balances ->
+            def update = balances[accountId]
+            update.balance() == new BigDecimal("80.00") && update.expectedJournalSeq() == 5 && update.journalSeq() == 7
+        }, 500)
+        1 * journalJdbcRepository.insertAll({ it.size() == 2 }, 500)
+    }
+
+    def "flush - keeps the original expected head when a failed flush is requeued"() {
+        given:
+        writer.record(accountId, new BigDecimal("90.00"), entry(6), [])
+        accountJdbcRepository.updateBalances(_, _) >> { throw new IllegalStateException("moved") }
+
+        when:
+        writer.flush()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        writer.record(accountId, new BigDecimal("80.00"), entry(7), [])
+        writer.flush()
+
+        then:
+        1 * accountJdbcRepository.updateBalances({ Map balances ->
+            def update = balances[accountId]
+            update.balance() == new BigDecimal("80.00") && update.expectedJournalSeq() == 5 && update.journalSeq() == 7
+        }, 500)
+    }
+
+    def "flush - writes the outbox event of a transfer with its last hot leg"() {
+        given:
+        def debit = entry(6)
+        def credit = entry(3)
+        writer.record(accountId, new BigDecimal("90.00"), debit, [debit, credit])
+
+        when:
+        writer.flush()
+
+        then:
+        1 * journalJdbcRepository.insertAll([debit], 500)
+        1 * transferOutbox.append([debit, credit])
+    }
+
+    def "flush - holds back only the account whose journal head moved"() {
+        given:
+        def moved = entry(6)
+        def other = entry(otherId, 3)
+        writer.record(accountId, new BigDecimal("90.00"), moved, [])
+        writer.record(otherId, new BigDecimal("10.00"), other, [])
+
+        when:
+        def written = writer.flush()
+
+        then:
+        1 * accountJdbcRepository.updateBalances(_, 500) >> { throw new JournalHeadMovedException(accountId, 5) }
+        1 * eventPublisher.publishEvent(new JournalHeadMovedEvent(accountId))
+        written == 0
+
+        when: "The other account is written while the moved one waits for its shard"
+        written = writer.flush()
+
+        then:
+        1 * accountJdbcRepository.updateBalances({ Map balances -> balances.keySet() == [otherId] as Set }, 500)
+        1 * journalJdbcRepository.insertAll([other], 500)
+        1 * eventPublisher.publishEvent(new JournalHeadMovedEvent(accountId))
+        written == 1
+    }
+
+    def "takeHeldBack - hands over the held back entries with the ones recorded since, in chain order"() {
+        given:
+        def first = entry(6)
+        def second = entry(7)
+        writer.record(accountId, new BigDecimal("90.00"), first, [])
+        accountJdbcRepository.updateBalances(_, _) >> { throw new JournalHeadMovedException(accountId, 5) }
+        writer.flush()
+        writer.record(accountId, new BigDecimal("80.00"), second, [])
+
+        when:
+        def entries = writer.takeHeldBack(accountId)
+
+        then:
+        entries == [first, second]
+        writer.takeHeldBack(accountId) == null
+
+        and: "Nothing is left to write until the shard records them anew"
+        writer.flush() == 0
+    }
+
+    def "isFull - counts pending and held back entries against the maximum"() {
+        given:
+        def small = writer(2)
+        small.record(accountId, new BigDecimal("90.00"), entry(6), [])
+        accountJdbcRepository.updateBalances(_, _) >> { throw new JournalHeadMovedException(accountId, 5) }
+
+        when:
+        small.flush()
+
+        then:
+        !small.isFull()
+
+        when:
+        small.record(otherId, new BigDecimal("10.00"), entry(otherId, 3), [])
+
+        then:
+        small.isFull()
+    }
+
+    private AccountTransaction entry(long seq) {
+        entry(accountId, seq)
+    }
+
+    private static AccountTransaction entry(UUID accountId, long seq) {
+        new AccountTransaction(account: new Account(id: accountId), chainSeq: seq, chainHash: new byte[32])
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.banking.service
+
+import com.example.banking.dto.StatementFormat
+import com.example.banking.exception.StatementExportRejectedException
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+/**
+ * Exports a long history through a cursor with a small fetch size.
+ */
+@SpringBootTest(properties = "banking.statement.fetch-size=100")
+@ActiveProfiles("test")
+@Testcontainers
+class StatementServiceSpec extends Specification {
+
+    static final int TRANSACTIONS = 20_000
+
+    @Shared
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("banking")
+            .withUsername("banking")
+            .withPassword("banking")
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        postgres.start()
+        registry.add("spring.datasource.url", postgres::getJdbcUrl)
+        registry.add("spring.datasource.username", postgres::getUsername)
+        registry.add("spring.datasource.password", postgres::getPassword)
+    }
+
+    @Autowired
+    @Subject
+    StatementService statementService
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    ObjectMapper objectMapper
+
+    @Shared
+    UUID accountId
+
+    def setup() {
+        if (accountId != null) {
+            return
+        }
+        accountId = UUID.randomUUID()
+        jdbcTemplate.update("INSERT INTO account (id, client_id, currency, balance, created_at) VALUES (?, 'statement-client', 'USD', 0, now())",
+                accountId)
+        jdbcTemplate.update("""
+                INSERT INTO account_transaction (id, account_id, amount, currency, type, created_at, description, correlation_id)
+                SELECT gen_random_uuid(), ?, g, 'USD', 'TRANSFER_IN', now() - g * INTERVAL '1 minute',
+                       'line ' || g || ', "quoted"', gen_random_uuid()
+                FROM generate_series(1, ?) g""", accountId, TRANSACTIONS)
+    }
+
+    def "exports every transaction as one JSON line, oldest first"() {
+        given:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        long rows = statementService.export(accountId, StatementFormat.NDJSON, out)
+
+        then:
+        rows == TRANSACTIONS
+        def lines = out.toString("UTF-8").split("\n")
+        lines.length == TRANSACTIONS
+        def first = objectMapper.readTree(lines.first())
+        first.get("amount").asText() == "${TRANSACTIONS}.00"
+        first.get("description").asText() == "line ${TRANSACTIONS}, \"quoted\""
+        objectMapper.readTree(lines.last()).get("amount").asText() == "1.00"
+    }
+
+    def "exports a CSV with a header line and quoted descriptions"() {
+        given:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        statementService.export(accountId, StatementFormat.CSV, out)
+
+        then:
+        def lines = out.toString("UTF-8").split("\n")
+        lines.length == TRANSACTIONS + 1
+        lines[0] == "id,amount,currency,type,createdAt,description,correlationId"
+        lines[1].contains(",${TRANSACTIONS}.00,USD,TRANSFER_IN,")
+        lines[1].contains(",\"line ${TRANSACTIONS}, \"\"quoted\"\"\",")
+    }
+
+    def "rejects exports beyond the limit until a permit is closed"() {
+        given: "All four exports are running"
+        def permits = (1..4).collect { statementService.acquireExport() }
+
+        when:
+        statementService.acquireExport()
+
+        then:
+        def ex = thrown(StatementExportRejectedException)
+        ex.retryAfter == Duration.ofSeconds(5)
+
+        when: "One export ends, its permit closed twice"
+        permits.first().close()
+        permits.first().close()
+        def next = statementService.acquireExport()
+        statementService.acquireExport()
+
+        then: "Only one slot came back"
+        thrown(StatementExportRejectedException)
+        next != null
+
+        cleanup:
+        permits*.close()
+        next?.close()
+    }
+}
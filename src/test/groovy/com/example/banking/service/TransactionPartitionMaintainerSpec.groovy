@@ -0,0 +1,43 @@
+package com.example.banking.service
+
+import com.example.banking.config.PartitionProperties
+import org.springframework.dao.DataAccessResourceFailureException
+import org.springframework.jdbc.core.JdbcTemplate
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.sql.Date
+import java.time.LocalDate
+import java.time.ZoneOffset
+
+class TransactionPartitionMaintainerSpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+
+    @Subject
+    TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(jdbcTemplate, new PartitionProperties(2))
+
+    def month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1)
+
+    def "should create the partitions of the current month and the months ahead"() {
+        when:
+        maintainer.createUpcomingPartitions()
+
+        then:
+        1 * jdbcTemplate.queryForObject(_ as String, String, Date.valueOf(month))
+        1 * jdbcTemplate.queryForObject(_ as String, String, Date.valueOf(month.plusMonths(1)))
+        1 * jdbcTemplate.queryForObject(_ as String, String, Date.valueOf(month.plusMonths(2)))
+        0 * jdbcTemplate._
+    }
+
+    def "should go on with the next months when one cannot be created"() {
+        when:
+        maintainer.createUpcomingPartitions()
+
+        then:
+        1 * jdbcTemplate.queryForObject(_ as String, String, Date.valueOf(month)) >> {
+            throw new DataAccessResourceFailureException("connection lost")
+        }
+        2 * jdbcTemplate.queryForObject(_ as String, String, _)
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.banking.service
+
+import com.example.banking.config.AdmissionProperties
+import com.example.banking.dto.TransferRequest
+import com.example.banking.exception.AccountBusyException
+import com.example.banking.exception.TransferRejectedException
+import com.example.banking.repository.AccountMetadata
+import com.example.banking.util.CurrencyCode
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.dao.CannotAcquireLockException
+import org.springframework.dao.DataAccessResourceFailureException
+import org.springframework.dao.QueryTimeoutException
+import org.springframework.transaction.CannotCreateTransactionException
+import spock.lang.Specification
+
+import java.time.Duration
+
+class TransferAdmissionSpec extends Specification {
+
+    static final long MILLIS = 1_000_000L
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    AccountMetadataCache accountMetadataCache = Stub()
+
+    def "should reject transfers beyond the limit right away"() {
+        given:
+        def admission = admission(4)
+        4.times { admission.acquire("a") }
+
+        when:
+        admission.acquire("a")
+
+        then:
+        def ex = thrown(TransferRejectedException)
+        ex.retryAfter == Duration.ofSeconds(1)
+        admission.inFlight == 4
+        outcome("admitted") == 4
+        outcome("rejected_limit") == 1
+    }
+
+    def "should keep room for other clients while one client uses more than its share"() {
+        given: "Client a alone uses most of the limit"
+        def admission = admission(10)
+        8.times { admission.acquire("a") }
+
+        when: "Client b arrives, shares are now 5 each"
+        admission.acquire("b")
+
+        then:
+        admission.activeClients == 2
+
+        when: "Client a asks for more while only one slot is free"
+        admission.acquire("a")
+
+        then:
+        thrown(TransferRejectedException)
+        outcome("rejected_share") == 1
+
+        when: "Client b is still within its share"
+        admission.acquire("b")
+
+        then:
+        admission.inFlight == 10
+    }
+
+    def "should shrink the limit on slow transfers at most once per latency threshold"() {
+        given:
+        def admission = admission(20)
+        long start = System.nanoTime()
+        3.times { admission.acquire("a") }
+
+        when: "A slow transfer completes"
+        admission.release("a", start, start + 150 * MILLIS, TransferAdmission.Outcome.COMPLETED)
+
+        then:
+        admission.limit == 18.0d
+
+        when: "Another one completes within the same threshold"
+        admission.release("a", start, start + 200 * MILLIS, TransferAdmission.Outcome.COMPLETED)
+
+        then:
+        admission.limit == 18.0d
+
+        when: "A third one completes a threshold later"
+        admission.release("a", start, start + 260 * MILLIS, TransferAdmission.Outcome.COMPLETED)
+
+        then:
+        admission.limit == 16.2d
+        admission.inFlight == 0
+    }
+
+    def "should grow the limit additively while it is in use and transfers are fast"() {
+        given:
+        def admission = admission(4)
+        long start = System.nanoTime()
+        4.times { admission.acquire("a") }
+
+        when:
+        4.times { admission.release("a", start, start + 5 * MILLIS, TransferAdmission.Outcome.COMPLETED) }
+
+        then: "Only completions that leave half the limit in flight add one over the limit"
+        admission.limit > 4.48d
+        admission.limit < 4.49d
+    }
+
+    def "should count failures for lack of capacity as overload"() {
+        given:
+        def admission = admission(20)
+        def request = request("a")
+
+        when:
+        admission.admit(request, { throw failure })
+
+        then:
+        thrown(failure.class)
+        admission.limit == 18.0d
+        admission.inFlight == 0
+        admission.activeClients == 0
+
+        where:
+        failure << [
+                new CannotCreateTransactionException("Could not open JDBC connection"),
+                new QueryTimeoutException("canceling statement due to statement timeout"),
+                new DataAccessResourceFailureException("connection refused")
+        ]
+    }
+
+    def "should leave the limit alone when accounts are busy"() {
+        given:
+        def admission = admission(20)
+        def request = request("a")
+
+        when:
+        admission.admit(request, { throw failure })
+
+        then:
+        thrown(failure.class)
+        admission.limit == 20.0d
+        admission.inFlight == 0
+        outcome("contended") == 1
+
+        where:
+        failure << [
+                new AccountBusyException("busy"),
+                new CannotAcquireLockException("could not obtain lock on row")
+        ]
+    }
+
+    def "should give a batch one slot and keep its duration out of the limit"() {
+        given:
+        def admission = admission(4)
+        3.times { admission.acquire("a") }
+        long start = System.nanoTime()
+
+        when:
+        def result = admission.admitBatch({ admission.inFlight })
+
+        then: "The batch took the last slot, charged to the shared batch client"
+        result == 4
+        admission.inFlight == 3
+
+        when: "A slow batch completes"
+        admission.acquire(TransferAdmission.BATCH_CLIENT)
+        admission.release(TransferAdmission.BATCH_CLIENT, start, start + 500 * MILLIS,
+                TransferAdmission.Outcome.BATCH_COMPLETED)
+
+        then:
+        admission.limit == 4.0d
+        admission.activeClients == 1
+    }
+
+    def "should run every transfer when disabled"() {
+        given:
+        def admission = new TransferAdmission(
+                new AdmissionProperties(false, 1, 1, 1, Duration.ofMillis(100), 0.9d, Duration.ofSeconds(1)),
+                accountMetadataCache, meterRegistry)
+        def request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.ONE, CurrencyCode.of("USD"))
+
+        expect:
+        (1..3).collect { admission.admit(request, { "done" }) } == ["done"] * 3
+    }
+
+    private TransferRequest request(String clientId) {
+        def request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.ONE, CurrencyCode.of("USD"))
+        accountMetadataCache.get(request.fromAccountId()) >> new AccountMetadata(request.fromAccountId(), clientId, CurrencyCode.of("USD"))
+        request
+    }
+
+    private TransferAdmission admission(int initialLimit) {
+        new TransferAdmission(
+                new AdmissionProperties(true, initialLimit, 4, 100, Duration.ofMillis(100), 0.9d, Duration.ofSeconds(1)),
+                accountMetadataCache, meterRegistry)
+    }
+
+    private double outcome(String outcome) {
+        meterRegistry.counter("banking.transfer.admission", "outcome", outcome).count()
+    }
+}
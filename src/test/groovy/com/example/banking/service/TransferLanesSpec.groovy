@@ -0,0 +1,116 @@
+package com.example.banking.service
+
+import com.example.banking.config.TransferProperties
+import com.example.banking.exception.AccountBusyException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TransferLanesSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "transfers of the same account run one at a time"() {
+        given:
+        TransferLanes lanes = lanes(16, Duration.ofSeconds(5))
+        UUID hot = UUID.randomUUID()
+        def running = new AtomicInteger()
+        def maxRunning = new AtomicInteger()
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..200).collect {
+            executor.submit {
+                lanes.execute(hot, UUID.randomUUID()) {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max)
+                    Thread.onSpinWait()
+                    running.decrementAndGet()
+                }
+            }
+        }
+        futures*.get(10, TimeUnit.SECONDS)
+
+        then:
+        maxRunning.get() == 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "opposite transfers between two accounts do not deadlock"() {
+        given:
+        TransferLanes lanes = lanes(16, Duration.ofSeconds(5))
+        UUID a = UUID.randomUUID()
+        UUID b = UUID.randomUUID()
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..1000).collect { i ->
+            executor.submit { lanes.execute(i % 2 == 0 ? a : b, i % 2 == 0 ? b : a) { i } }
+        }
+
+        then:
+        futures*.get(10, TimeUnit.SECONDS).size() == 1000
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "gives up when the lane stays busy and reports waiting transfers"() {
+        given:
+        TransferLanes lanes = lanes(16, Duration.ofMillis(300))
+        UUID hot = UUID.randomUUID()
+        def holding = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def holder = Thread.start {
+            lanes.execute(hot, UUID.randomUUID()) {
+                holding.countDown()
+                release.await()
+            }
+        }
+        holding.await()
+        Throwable failure = null
+        def waiter = Thread.start {
+            try {
+                lanes.execute(UUID.randomUUID(), hot) { null }
+            } catch (AccountBusyException ex) {
+                failure = ex
+            }
+        }
+
+        expect:
+        new PollingConditions(timeout: 1).eventually {
+            assert meterRegistry.get("banking.transfer.lanes.queued").gauge().value() == 1
+        }
+
+        when:
+        waiter.join()
+
+        then:
+        failure instanceof AccountBusyException
+        meterRegistry.get("banking.transfer.lanes.queued").gauge().value() == 0
+
+        cleanup:
+        release.countDown()
+        holder.join()
+    }
+
+    def "runs work directly when disabled"() {
+        given:
+        TransferLanes lanes = new TransferLanes(
+                new TransferProperties(null, null, new TransferProperties.Lanes(false, 1, Duration.ZERO), null), meterRegistry)
+
+        expect:
+        lanes.execute(UUID.randomUUID(), UUID.randomUUID()) { "done" } == "done"
+    }
+
+    private TransferLanes lanes(int count, Duration acquireTimeout) {
+        new TransferLanes(new TransferProperties(null, null, new TransferProperties.Lanes(true, count, acquireTimeout), null), meterRegistry)
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.banking.service
+
+import com.example.banking.service.TransferMetrics.Stage
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.TimeUnit
+
+class TransferMetricsSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Subject
+    TransferMetrics metrics = new TransferMetrics(meterRegistry)
+
+    def "registers one stage timer per stage up front"() {
+        expect:
+        meterRegistry.find("banking.transfer.stage").timers()*.id*.getTag("stage") as Set == [
+                "metadata", "fx_rate", "lane_wait", "connection", "lock_wait", "balance_write", "journal_insert",
+                "outbox_append", "commit"] as Set
+        meterRegistry.find("banking.transfer.stage").timers().every { it.count() == 0 }
+    }
+
+    def "record - times only the given stage, up to the moment it hands back"() {
+        given:
+        long start = System.nanoTime()
+
+        when:
+        long end = metrics.record(Stage.LOCK_WAIT, start)
+
+        then:
+        def lockWait = meterRegistry.get("banking.transfer.stage").tag("stage", "lock_wait").timer()
+        lockWait.count() == 1
+        lockWait.totalTime(TimeUnit.NANOSECONDS) == end - start
+        meterRegistry.find("banking.transfer.stage").timers().findAll { it.count() > 0 } == [lockWait]
+    }
+
+    def "recordTransfer - tags the whole transfer with its outcome"() {
+        when:
+        metrics.recordTransfer(System.nanoTime(), true)
+        metrics.recordTransfer(System.nanoTime(), true)
+        metrics.recordTransfer(System.nanoTime(), false)
+
+        then:
+        meterRegistry.get("banking.transfer").tag("outcome", "completed").timer().count() == 2
+        meterRegistry.get("banking.transfer").tag("outcome", "failed").timer().count() == 1
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.banking.service
+
+import com.example.banking.config.OutboxProperties
+import com.example.banking.repository.TransferOutboxRepository
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage
+import org.springframework.amqp.AmqpException
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+class TransferOutboxRelaySpec extends Specification {
+
+    TransferOutboxRepository outboxRepository = Mock()
+    TransferEventPublisher publisher = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+    OutboxProperties properties = new OutboxProperties(true, 2, Duration.ofSeconds(5), "banking.transfers", "transfer.completed")
+
+    @Subject
+    TransferOutboxRelay relay = new TransferOutboxRelay(
+            outboxRepository, publisher, new TransactionTemplate(transactionManager), properties)
+
+    def "drain - publishes and deletes full batches until the outbox is empty"() {
+        given:
+        def first = [message(1), message(2)]
+        def second = [message(3)]
+
+        when:
+        def relayed = relay.drain()
+
+        then:
+        1 * outboxRepository.lockOldest(2) >> first
+        1 * publisher.publish(first)
+        1 * outboxRepository.deleteAll(first)
+
+        then:
+        1 * outboxRepository.lockOldest(2) >> second
+        1 * publisher.publish(second)
+        1 * outboxRepository.deleteAll(second)
+
+        and:
+        relayed == 3
+    }
+
+    def "drain - keeps unconfirmed messages for the next run"() {
+        given:
+        def batch = [message(1), message(2)]
+        outboxRepository.lockOldest(2) >> batch
+        publisher.publish(batch) >> { throw new AmqpException("nack") }
+
+        when:
+        relay.drain()
+
+        then:
+        thrown(AmqpException)
+        0 * outboxRepository.deleteAll(_)
+        1 * transactionManager.rollback(_)
+    }
+
+    def "relayPending - does nothing when the relay is disabled"() {
+        given:
+        relay = new TransferOutboxRelay(outboxRepository, publisher, new TransactionTemplate(transactionManager),
+                new OutboxProperties(false, 2, Duration.ofSeconds(5), "banking.transfers", "transfer.completed"))
+
+        when:
+        relay.relayPending()
+
+        then:
+        0 * outboxRepository._
+        0 * publisher._
+    }
+
+    private static OutboxMessage message(long id) {
+        new OutboxMessage(id, UUID.randomUUID(), "{}")
+    }
+}
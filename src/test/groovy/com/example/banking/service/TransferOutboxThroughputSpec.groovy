@@ -0,0 +1,148 @@
+package com.example.banking.service
+
+import com.example.banking.domain.Account
+import com.example.banking.domain.AccountTransaction
+import com.example.banking.repository.TransferOutboxRepository.OutboxMessage
+import com.example.banking.util.CurrencyCode
+import com.fasterxml.jackson.databind.ObjectMapper
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.context.TestConfiguration
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Primary
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.springframework.transaction.support.TransactionTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.time.Instant
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures how fast the relay drains the outbox against a broker stand-in that acknowledges each
+ * batch after a fixed confirm round trip.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class TransferOutboxThroughputSpec extends Specification {
+
+    static final int TRANSFERS = 20_000
+
+    @Shared
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("banking")
+            .withUsername("banking")
+            .withPassword("banking")
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry registry) {
+        postgres.start()
+        registry.add("spring.datasource.url", postgres::getJdbcUrl)
+        registry.add("spring.datasource.username", postgres::getUsername)
+        registry.add("spring.datasource.password", postgres::getPassword)
+    }
+
+    @TestConfiguration
+    static class BrokerStandIn {
+        @Bean
+        @Primary
+        StandInPublisher standInPublisher() {
+            new StandInPublisher()
+        }
+    }
+
+    /**
+     * Records published messages and simulates the confirm round trip of a local broker.
+     */
+    static class StandInPublisher implements TransferEventPublisher {
+        final Queue<OutboxMessage> published = new ConcurrentLinkedQueue<>()
+
+        @Override
+        void publish(List<OutboxMessage> messages) {
+            TimeUnit.MILLISECONDS.sleep(2)
+            published.addAll(messages)
+        }
+    }
+
+    @Autowired
+    TransferOutbox transferOutbox
+
+    @Autowired
+    TransferOutboxRelay relay
+
+    @Autowired
+    StandInPublisher publisher
+
+    @Autowired
+    TransactionTemplate transactionTemplate
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    ObjectMapper objectMapper
+
+    def setup() {
+        jdbcTemplate.update("DELETE FROM transfer_outbox")
+        publisher.published.clear()
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"))
+        def entries = (1..TRANSFERS).collectMany { entries(sender, receiver) }
+        transactionTemplate.executeWithoutResult { transferOutbox.append(entries) }
+    }
+
+    def "relays every event once, in order, with one relay"() {
+        when:
+        long start = System.nanoTime()
+        def relayed = relay.drain()
+        double seconds = (System.nanoTime() - start) / 1e9
+        log.info("Relayed {} transfer events in {}s ({} events/s)",
+                relayed, String.format('%.2f', seconds), (relayed / seconds) as long)
+
+        then:
+        relayed == TRANSFERS
+        publisher.published*.id == publisher.published*.id.sort()
+        jdbcTemplate.queryForObject("SELECT count(*) FROM transfer_outbox", Integer) == 0
+
+        and: "payloads are compact transfer events keyed by correlation id"
+        def first = publisher.published.peek()
+        def event = objectMapper.readValue(first.payload(), Map)
+        event.correlationId == first.correlationId().toString()
+        event.debitedAmount == "10.00"
+    }
+
+    def "concurrent relays skip each other's batches"() {
+        given:
+        def pool = Executors.newFixedThreadPool(4)
+
+        when:
+        long start = System.nanoTime()
+        def relayed = (1..4).collect { pool.submit({ relay.drain() } as java.util.concurrent.Callable<Integer>) }
+                .sum { it.get() }
+        double seconds = (System.nanoTime() - start) / 1e9
+        log.info("Relayed {} transfer events with 4 relays in {}s ({} events/s)",
+                relayed, String.format('%.2f', seconds), (relayed / seconds) as long)
+
+        then:
+        relayed == TRANSFERS
+        publisher.published*.id.toSet().size() == TRANSFERS
+
+        cleanup:
+        pool.shutdown()
+    }
+
+    private static List<AccountTransaction> entries(Account sender, Account receiver) {
+        TransferJournal.entries(sender, receiver, new BigDecimal("10.00"), new BigDecimal("10.00"),
+                BigDecimal.ONE, UUID.randomUUID(), Instant.now())
+    }
+}
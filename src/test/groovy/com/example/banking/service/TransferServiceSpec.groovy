@@ -1,29 +1,74 @@
 package com.example.banking.service
 
+import com.example.banking.config.TransferProperties
+import com.example.banking.config.TransferProperties.ConcurrencyMode
 import com.example.banking.domain.Account
 import com.example.banking.dto.TransferRequest
+import com.example.banking.dto.TransferResult
 import com.example.banking.exception.*
+import com.example.banking.repository.AccountMetadata
 import com.example.banking.repository.AccountRepository
-import com.example.banking.repository.TransactionRepository
+import com.example.banking.repository.JournalJdbcRepository
+import com.example.banking.repository.TransferJdbcRepository
+import com.example.banking.repository.TransferJdbcRepository.LockedBalance
+import com.example.banking.event.AccountBalancesChangedEvent
+import com.example.banking.util.CurrencyCode
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.dao.CannotAcquireLockException
+import org.springframework.orm.ObjectOptimisticLockingFailureException
 import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.time.Duration
+
 @SpringBootTest
 class TransferServiceSpec extends Specification {
 
     AccountRepository accountRepository = Mock()
-    TransactionRepository transactionRepository = Mock()
+    JournalJdbcRepository journalJdbcRepository = Mock()
+    TransferJdbcRepository transferJdbcRepository = Mock()
     ExchangeRateService exchangeRateService = Mock()
+    HotAccountLedger hotAccountLedger = Mock()
+    AccountMetadataCache accountMetadataCache = Mock()
+    TransferOutbox transferOutbox = Mock()
+    ApplicationEventPublisher eventPublisher = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
 
     @Subject
-    TransferService transferService = new TransferService(accountRepository, transactionRepository, exchangeRateService)
+    TransferService transferService = transferService(ConcurrencyMode.PESSIMISTIC)
+
+    private TransferService transferService(ConcurrencyMode mode, boolean singleStatement = false) {
+        def properties = new TransferProperties(null, new TransferProperties.AccountCache(100),
+                new TransferProperties.Lanes(true, 16, Duration.ofSeconds(5)),
+                new TransferProperties.Concurrency(mode, 3, Duration.ZERO, Duration.ZERO, 0.3d, Duration.ofMinutes(1), singleStatement))
+        new TransferService(accountRepository, journalJdbcRepository, transferJdbcRepository, exchangeRateService,
+                hotAccountLedger, accountMetadataCache, new TransactionTemplate(transactionManager),
+                new TransferLanes(properties, meterRegistry), transferOutbox, eventPublisher,
+                new TransferMetrics(meterRegistry), new AccountContentionTracker(properties), properties)
+    }
+
+    def setup() {
+        // Metadata comes from the accounts each test locks
+        accountMetadataCache.get(_ as UUID) >> { UUID id -> metadata.get(id) }
+    }
+
+    Map<UUID, AccountMetadata> metadata = [:]
+
+    private void known(Account... accounts) {
+        accounts.each { metadata[it.id] = new AccountMetadata(it.id, it.clientId, it.currency) }
+    }
 
     def "transferFunds - should successfully transfer when currencies match"() {
         given: "Valid accounts and request"
-        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
-        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: "USD", balance: new BigDecimal("500.00"))
-        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), "USD")
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
 
         and: "Accounts are locked in ID order"
         accountRepository.findByIdWithLock(_ as UUID) >>> [Optional.of(sender), Optional.of(receiver)]
@@ -35,15 +80,25 @@ class TransferServiceSpec extends Specification {
         sender.balance == new BigDecimal("900.00")
         receiver.balance == new BigDecimal("600.00")
 
-        and: "Transactions are recorded"
-        1 * transactionRepository.saveAll(_)
+        and: "Transactions are recorded with their outbox event"
+        1 * journalJdbcRepository.insertAll({ it.size() == 2 }, 2)
+        1 * transferOutbox.append({ it.size() == 2 })
+
+        and: "Both clients' cached accounts are invalidated"
+        1 * eventPublisher.publishEvent(new AccountBalancesChangedEvent(["c1", "c2"] as Set))
+
+        and: "Every stage but the rate lookup is timed once"
+        meterRegistry.timer("banking.transfer.stage", "stage", "fx_rate").count() == 0
+        ["metadata", "lane_wait", "connection", "lock_wait", "balance_write", "journal_insert", "outbox_append",
+         "commit"].every { meterRegistry.timer("banking.transfer.stage", "stage", it).count() == 1 }
     }
 
     def "transferFunds - should convert currency when currencies differ"() {
         given: "Accounts with different currencies"
-        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
-        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: "EUR", balance: new BigDecimal("500.00"))
-        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), "EUR")
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("EUR"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("EUR"))
+        known(sender, receiver)
 
         and: "Exchange rate setup"
         exchangeRateService.getExchangeRate("EUR", "USD") >> new BigDecimal("1.20")
@@ -61,24 +116,23 @@ class TransferServiceSpec extends Specification {
 
     def "transferFunds - should throw when receiver currency mismatch"() {
         given: "Invalid currency request"
-        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
-        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: "GBP", balance: new BigDecimal("500.00"))
-        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), "EUR")
-
-        and: "Accounts loaded"
-        accountRepository.findByIdWithLock(_ as UUID) >>> [Optional.of(sender), Optional.of(receiver)]
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("GBP"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("EUR"))
+        known(sender, receiver)
 
         when: "Transfer is executed"
         transferService.transferFunds(request)
 
-        then: "Exception is thrown"
+        then: "Exception is thrown before any row is locked"
         thrown(CurrencyMismatchException)
+        0 * accountRepository.findByIdWithLock(_)
     }
 
     def "transferFunds - should prevent same account transfers"() {
         given: "Same account IDs"
         def accountId = UUID.randomUUID()
-        def request = new TransferRequest(accountId, accountId, new BigDecimal("100.00"), "USD")
+        def request = new TransferRequest(accountId, accountId, new BigDecimal("100.00"), CurrencyCode.of("USD"))
 
         when: "Transfer is attempted"
         transferService.transferFunds(request)
@@ -88,18 +142,19 @@ class TransferServiceSpec extends Specification {
 
         and: "No interactions with repositories"
         0 * accountRepository._
-        0 * transactionRepository._
+        0 * journalJdbcRepository._
     }
 
     def "transferFunds - should lock accounts in ID order"() {
         given: "Accounts in reverse ID order"
         UUID id1 = UUID.fromString("00000000-0000-0000-0000-000000000001")
         UUID id2 = UUID.fromString("00000000-0000-0000-0000-000000000002")
-        def acc1 = new Account(id: id1, clientId: "c1", currency: "USD", balance: new BigDecimal("1000.00"))
-        def acc2 = new Account(id: id2, clientId: "c2", currency: "USD", balance: new BigDecimal("500.00"))
+        def acc1 = new Account(id: id1, clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def acc2 = new Account(id: id2, clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
 
         and: "Request with reverse IDs"
-        def request = new TransferRequest(id2, id1, new BigDecimal("100.00"), "USD")
+        def request = new TransferRequest(id2, id1, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(acc1, acc2)
 
         and: "Repository returns accounts in ID order"
         accountRepository.findByIdWithLock(id1) >> Optional.of(acc1)
@@ -112,4 +167,228 @@ class TransferServiceSpec extends Specification {
         acc1.balance == new BigDecimal("1100.00") // Receiver
         acc2.balance == new BigDecimal("400.00")  // Sender
     }
-}
\ No newline at end of file
+
+    def "transferFunds - should hand the result to the callback before the transaction commits"() {
+        given: "Valid accounts and request"
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+        accountRepository.findByIdWithLock(_ as UUID) >>> [Optional.of(sender), Optional.of(receiver)]
+        def events = []
+
+        when: "Transfer is executed with a callback"
+        def result = transferService.transferFunds(request, { events << it })
+
+        then: "The callback got the result inside the transaction"
+        1 * transactionManager.commit(_) >> { events << "commit" }
+        events == [result, "commit"]
+    }
+
+    def "transferFunds - should route transfers touching hot accounts to the ledger"() {
+        given: "A transfer handled by the ledger"
+        def request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        def result = new TransferResult(UUID.randomUUID(), new BigDecimal("100.00"), "USD",
+                new BigDecimal("100.00"), "USD", BigDecimal.ONE, new BigDecimal("900.00"), new BigDecimal("600.00"))
+        hotAccountLedger.handles(request) >> true
+
+        when: "Transfer is executed"
+        def actual = transferService.transferFunds(request)
+
+        then: "The ledger applies it without row locks"
+        1 * hotAccountLedger.transfer(request, _) >> result
+        actual == result
+        0 * accountRepository.findByIdWithLock(_)
+    }
+
+    def "transferFunds - should resolve the exchange rate before locking accounts"() {
+        given: "Accounts with different currencies"
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("EUR"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("EUR"))
+        known(sender, receiver)
+
+        when: "Transfer is executed"
+        transferService.transferFunds(request)
+
+        then: "The rate is resolved first"
+        1 * exchangeRateService.getExchangeRate("EUR", "USD") >> new BigDecimal("1.20")
+
+        then: "Then both rows are locked"
+        2 * accountRepository.findByIdWithLock(_ as UUID) >>> [Optional.of(sender), Optional.of(receiver)]
+
+        and: "The lock hold time is recorded"
+        meterRegistry.timer("banking.transfer.lock.hold").count() == 1
+
+        and: "Every stage of the transfer is timed once"
+        ["metadata", "fx_rate", "lane_wait", "connection", "lock_wait", "balance_write", "journal_insert",
+         "outbox_append", "commit"].every { meterRegistry.timer("banking.transfer.stage", "stage", it).count() == 1 }
+        meterRegistry.timer("banking.transfer", "outcome", "completed").count() == 1
+    }
+
+    def "transferFunds - should fail when an account is missing from the metadata"() {
+        given: "An unknown sender"
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(UUID.randomUUID(), receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+
+        when: "Transfer is executed"
+        transferService.transferFunds(request)
+
+        then: "Exception is thrown"
+        1 * accountMetadataCache.get(request.fromAccountId()) >> { throw new AccountNotFoundException(request.fromAccountId()) }
+        thrown(AccountNotFoundException)
+        0 * accountRepository.findByIdWithLock(_)
+
+        and: "The transfer is timed as failed"
+        meterRegistry.timer("banking.transfer", "outcome", "failed").count() == 1
+    }
+
+    def "transferFunds - should read accounts without locks in optimistic mode"() {
+        given: "An optimistic transfer service"
+        def optimistic = transferService(ConcurrencyMode.OPTIMISTIC)
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+        accountRepository.findById(sender.id) >> Optional.of(sender)
+        accountRepository.findById(receiver.id) >> Optional.of(receiver)
+
+        when: "Transfer is executed"
+        optimistic.transferFunds(request)
+
+        then: "No row is locked"
+        0 * accountRepository.findByIdWithLock(_)
+        sender.balance == new BigDecimal("900.00")
+        receiver.balance == new BigDecimal("600.00")
+
+        and: "The attempt is counted as committed"
+        meterRegistry.counter("banking.transfer.optimistic", "outcome", "committed").count() == 1
+        meterRegistry.timer("banking.transfer.lock.hold").count() == 0
+    }
+
+    def "transferFunds - should save and flush optimistic updates one by one in lock order"() {
+        given: "An optimistic transfer service and a sender whose id sorts first as signed but last as unsigned"
+        def optimistic = transferService(ConcurrencyMode.OPTIMISTIC)
+        def sender = new Account(id: UUID.fromString("f0000000-0000-7000-8000-000000000000"), clientId: "c1",
+                currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.fromString("10000000-0000-7000-8000-000000000000"), clientId: "c2",
+                currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+        accountRepository.findById(sender.id) >> Optional.of(sender)
+        accountRepository.findById(receiver.id) >> Optional.of(receiver)
+
+        when: "Transfer is executed"
+        optimistic.transferFunds(request)
+
+        then: "The receiver comes first in lock order and is written on its own"
+        1 * accountRepository.save(receiver)
+        1 * accountRepository.flush()
+
+        then: "The sender follows"
+        1 * accountRepository.save(sender)
+        1 * accountRepository.flush()
+    }
+
+    def "transferFunds - should retry an optimistic transfer that lost against a concurrent update"() {
+        given: "An optimistic transfer service"
+        def optimistic = transferService(ConcurrencyMode.OPTIMISTIC)
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+
+        and: "Fresh copies of the accounts on every read"
+        accountRepository.findById(_ as UUID) >> { UUID id -> Optional.of(copy(id == sender.id ? sender : receiver)) }
+
+        when: "Transfer is executed"
+        def result = optimistic.transferFunds(request)
+
+        then: "The first balance update conflicts and the second attempt goes through"
+        3 * accountRepository.flush() >> { throw failure } >> {}
+        result.senderNewBalance() == new BigDecimal("900.00")
+        meterRegistry.counter("banking.transfer.optimistic", "outcome", "conflict").count() == 1
+        meterRegistry.counter("banking.transfer.optimistic", "outcome", "committed").count() == 1
+
+        where:
+        failure << [
+                new ObjectOptimisticLockingFailureException(Account, UUID.randomUUID()),
+                new CannotAcquireLockException("deadlock detected")
+        ]
+    }
+
+    def "transferFunds - should fall back to row locks once the optimistic attempts are used up"() {
+        given: "An optimistic transfer service"
+        def optimistic = transferService(ConcurrencyMode.OPTIMISTIC)
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"), balance: new BigDecimal("1000.00"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"), balance: new BigDecimal("500.00"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+        accountRepository.findById(_ as UUID) >> { UUID id -> Optional.of(copy(id == sender.id ? sender : receiver)) }
+
+        when: "Transfer is executed"
+        optimistic.transferFunds(request)
+
+        then: "Every optimistic attempt conflicts"
+        3 * accountRepository.flush() >> { throw new ObjectOptimisticLockingFailureException(Account, sender.id) }
+
+        then: "The last attempt locks both rows"
+        2 * accountRepository.findByIdWithLock(_ as UUID) >> { UUID id -> Optional.of(id == sender.id ? sender : receiver) }
+        1 * accountRepository.flush()
+        sender.balance == new BigDecimal("900.00")
+        meterRegistry.counter("banking.transfer.optimistic", "outcome", "fallback").count() == 1
+    }
+
+    def "transferFunds - should apply same-currency transfers in one statement"() {
+        given: "A transfer service applying same-currency transfers in one statement"
+        def atomic = transferService(ConcurrencyMode.PESSIMISTIC, true)
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+
+        when: "Transfer is executed"
+        def result = atomic.transferFunds(request)
+
+        then: "Balances and journal are written by the statement, without loading the accounts"
+        1 * transferJdbcRepository.transfer(sender.id, receiver.id, new BigDecimal("100.00"),
+                { it*.amount == [new BigDecimal("-100.00"), new BigDecimal("100.00")] }) >> [
+                new LockedBalance(sender.id, new BigDecimal("900.00"), true),
+                new LockedBalance(receiver.id, new BigDecimal("600.00"), true)]
+        0 * accountRepository._
+        0 * journalJdbcRepository._
+
+        and: "The new balances are reported"
+        result.senderNewBalance() == new BigDecimal("900.00")
+        result.receiverNewBalance() == new BigDecimal("600.00")
+        1 * transferOutbox.append({ it.size() == 2 })
+        1 * eventPublisher.publishEvent(new AccountBalancesChangedEvent(["c1", "c2"] as Set))
+    }
+
+    def "transferFunds - should report insufficient funds when the statement did not apply"() {
+        given: "A transfer service applying same-currency transfers in one statement"
+        def atomic = transferService(ConcurrencyMode.PESSIMISTIC, true)
+        def sender = new Account(id: UUID.randomUUID(), clientId: "c1", currency: CurrencyCode.of("USD"))
+        def receiver = new Account(id: UUID.randomUUID(), clientId: "c2", currency: CurrencyCode.of("USD"))
+        def request = new TransferRequest(sender.id, receiver.id, new BigDecimal("100.00"), CurrencyCode.of("USD"))
+        known(sender, receiver)
+
+        and: "The sender does not cover the amount"
+        transferJdbcRepository.transfer(*_) >> [
+                new LockedBalance(sender.id, new BigDecimal("50.00"), false),
+                new LockedBalance(receiver.id, new BigDecimal("500.00"), false)]
+
+        when: "Transfer is executed"
+        atomic.transferFunds(request)
+
+        then: "Insufficient funds are reported and nothing is published"
+        def ex = thrown(InsufficientFundsException)
+        ex.message.contains("Current balance: 50.00 USD")
+        0 * transferOutbox._
+        0 * eventPublisher._
+    }
+
+    private static Account copy(Account account) {
+        new Account(id: account.id, clientId: account.clientId, currency: account.currency, balance: account.balance)
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.banking.service
+
+import com.example.banking.config.SubmissionProperties
+import com.example.banking.dto.TransferRequest
+import com.example.banking.dto.TransferResponse
+import com.example.banking.exception.ExchangeRateException
+import com.example.banking.exception.InsufficientFundsException
+import com.example.banking.repository.TransferSubmissionRepository
+import com.example.banking.repository.TransferSubmissionRepository.Status
+import com.example.banking.repository.TransferSubmissionRepository.Submission
+import com.example.banking.util.CurrencyCode
+import com.fasterxml.jackson.databind.ObjectMapper
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CopyOnWriteArrayList
+
+class TransferSubmissionWorkerSpec extends Specification {
+
+    TransferSubmissionRepository submissionRepository = Mock()
+    IdempotentTransferService idempotentTransferService = Mock()
+
+    @Subject
+    TransferSubmissionWorker worker = new TransferSubmissionWorker(
+            submissionRepository, idempotentTransferService, new ObjectMapper(),
+            new SubmissionProperties(true, 4, 10, Duration.ofMinutes(5), 3, Duration.ofSeconds(1), Duration.ofSeconds(3)))
+
+    def cleanup() {
+        worker.shutdown()
+    }
+
+    def "applies the transfers of one sender in submission order"() {
+        given:
+        UUID sender = UUID.randomUUID()
+        def submissions = (1..5).collect { submission(sender) } + (1..5).collect { submission(UUID.randomUUID()) }
+        def applied = new CopyOnWriteArrayList<UUID>()
+        idempotentTransferService.transferFunds(_ as String, _ as TransferRequest) >> { String key, TransferRequest request ->
+            applied << UUID.fromString(key - "submission:")
+            response()
+        }
+
+        when:
+        worker.process(submissions)
+
+        then:
+        applied.size() == 10
+        applied.findAll { id -> submissions.find { it.id() == id }.request().fromAccountId() == sender } ==
+                submissions.take(5)*.id()
+        10 * submissionRepository.complete(_ as UUID, { it.contains("correlationId") })
+    }
+
+    def "fails submissions that break a business rule"() {
+        given:
+        def submission = submission(UUID.randomUUID())
+        idempotentTransferService.transferFunds(_, _) >> { throw new InsufficientFundsException("Insufficient funds") }
+
+        when:
+        worker.process([submission])
+
+        then:
+        1 * submissionRepository.fail(submission.id(), "Insufficient funds")
+        0 * submissionRepository.complete(_, _)
+    }
+
+    def "queues again submissions that failed temporarily, with a growing delay"() {
+        given:
+        def submission = submission(UUID.randomUUID(), attempts)
+        idempotentTransferService.transferFunds(_, _) >> { throw new ExchangeRateException("FX unavailable") }
+        def before = Instant.now()
+
+        when:
+        worker.process([submission])
+
+        then:
+        1 * submissionRepository.retry(submission.id(), { Instant next ->
+            Duration.between(before, next) >= Duration.ofSeconds(delay) &&
+                    Duration.between(before, next) < Duration.ofSeconds(delay + 1)
+        })
+        0 * submissionRepository.fail(_, _)
+
+        where:
+        attempts || delay
+        1        || 1
+        2        || 2
+    }
+
+    def "fails submissions that used up their attempts"() {
+        given:
+        def submission = submission(UUID.randomUUID(), 3)
+        idempotentTransferService.transferFunds(_, _) >> { throw new ExchangeRateException("FX unavailable") }
+
+        when:
+        worker.process([submission])
+
+        then:
+        1 * submissionRepository.fail(submission.id(), "Gave up after 3 attempts: FX unavailable")
+        0 * submissionRepository.retry(_, _)
+    }
+
+    def "backoff doubles up to the maximum"() {
+        expect:
+        new SubmissionProperties(true, 4, 10, Duration.ofMinutes(5), 8, Duration.ofSeconds(1), Duration.ofSeconds(3))
+                .backoff(attempts) == Duration.ofSeconds(seconds)
+
+        where:
+        attempts || seconds
+        1        || 1
+        2        || 2
+        3        || 3
+        40       || 3
+    }
+
+    def "processPending claims until a batch comes back short"() {
+        when:
+        worker.processPending()
+
+        then:
+        1 * submissionRepository.claimPending(10) >> (1..10).collect { submission(UUID.randomUUID()) }
+        1 * submissionRepository.claimPending(10) >> []
+        _ * idempotentTransferService.transferFunds(_, _) >> response()
+    }
+
+    private static Submission submission(UUID sender, int attempts = 1) {
+        new Submission(UUID.randomUUID(), new TransferRequest(sender, UUID.randomUUID(), BigDecimal.TEN, CurrencyCode.of("USD")),
+                Status.PROCESSING, attempts, null, null, Instant.now())
+    }
+
+    private static TransferResponse response() {
+        new TransferResponse(UUID.randomUUID(), BigDecimal.TEN, "USD", BigDecimal.TEN, "USD", BigDecimal.ONE,
+                BigDecimal.ZERO, BigDecimal.TEN)
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.banking.util
+
+import com.example.banking.exception.InvalidCurrencyException
+import com.fasterxml.jackson.databind.ObjectMapper
+import spock.lang.Specification
+
+class CurrencyCodeSpec extends Specification {
+
+    def "should hand out one instance per currency"() {
+        expect:
+        CurrencyCode.of(new String("USD")).is(CurrencyCode.of("USD"))
+        CurrencyCode.lookup(new StringBuilder("EUR")).is(CurrencyCode.of("EUR"))
+        CurrencyCode.of("JPY").fractionDigits() == 0
+        CurrencyCode.of("USD").toString() == "USD"
+    }
+
+    def "should accept exactly the codes known to java.util.Currency"() {
+        expect:
+        Currency.availableCurrencies.every { CurrencyCode.isValid(it.currencyCode) }
+        CurrencyCode.isValid(code) == valid
+
+        where:
+        code   | valid
+        'XXX'  | true
+        'XYZ'  | false
+        'usd'  | false
+        'US'   | false
+        'USDX' | false
+        'U$D'  | false
+        ''     | false
+        null   | false
+    }
+
+    def "should report unknown codes without throwing on lookup"() {
+        expect:
+        CurrencyCode.lookup("XYZ") == null
+
+        when:
+        CurrencyCode.of("XYZ")
+
+        then:
+        thrown(InvalidCurrencyException)
+    }
+
+    def "should serialize as its code and read back the shared instance"() {
+        given:
+        def objectMapper = new ObjectMapper()
+
+        expect:
+        objectMapper.writeValueAsString(CurrencyCode.of("GBP")) == '"GBP"'
+        objectMapper.readValue('"GBP"', CurrencyCode).is(CurrencyCode.of("GBP"))
+    }
+
+    def "should store the code and read back the shared instance"() {
+        given:
+        def converter = new CurrencyCodeConverter()
+
+        expect:
+        converter.convertToDatabaseColumn(CurrencyCode.of("CHF")) == "CHF"
+        converter.convertToEntityAttribute("CHF").is(CurrencyCode.of("CHF"))
+        converter.convertToDatabaseColumn(null) == null
+        converter.convertToEntityAttribute(null) == null
+    }
+}
@@ -35,6 +35,14 @@ class CurrencyValidatorSpec extends Specification {
         ''        | false
         'INVALID' | false
         '123'     | false
+        'usd'     | false
+        'U$D'     | false
+    }
+
+    def "standalone isValid should accept exactly the codes known to java.util.Currency"() {
+        expect:
+        Currency.availableCurrencies.every { validatorUnderTest.isValid(it.currencyCode, null) }
+        !validatorUnderTest.isValid('XYZ', null)
     }
 
     @Unroll
@@ -0,0 +1,36 @@
+package com.example.banking.util
+
+import spock.lang.Specification
+
+class UuidV7Spec extends Specification {
+
+    def "ids carry version 7, the RFC 9562 variant and the current time"() {
+        given:
+        long before = System.currentTimeMillis()
+
+        when:
+        UUID id = UuidV7.next()
+
+        then:
+        id.version() == 7
+        id.variant() == 2
+        UuidV7.timestamp(id) >= before
+        UuidV7.timestamp(id) <= System.currentTimeMillis() + 1
+    }
+
+    def "ids generated concurrently are unique and increase in PostgreSQL order per thread"() {
+        when:
+        List<List<UUID>> perThread = (1..8).collect { [] }.asSynchronized()
+        List<Thread> threads = (0..<8).collect { int t ->
+            Thread.start {
+                List<UUID> ids = (1..10_000).collect { UuidV7.next() }
+                perThread[t] = ids
+            }
+        }
+        threads*.join()
+
+        then:
+        perThread.every { ids -> ids == ids.toSorted(LockOrder.ACCOUNT_IDS) }
+        perThread.flatten().toSet().size() == 80_000
+    }
+}